@@ -5,11 +5,42 @@ import de.htw.grischa.chess.database.client.FileSearch;
 
 import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
 import java.util.concurrent.BlockingQueue;
 
 /**
  * Abstract alpha-beta-search implementing the most important methods
+ * <p>
+ * The search walks a private copy of the given board, every turn is executed by
+ * {@link IChessGame#makeMove(int)} and taken back by {@link IChessGame#unmakeMove()} instead of creating a board for
+ * every successor. The turns of every ply are handed out by a {@link MoveIterator} reused by all nodes of that ply,
+ * so a search instance must only be used by one thread at a time. The iterator hands out the hash move, the captures
+ * by MVV-LVA, the killers of the ply and the quiet turns by their history, generating every stage only when needed,
+ * so nodes cut off early skip most of the generation. Quiet turns causing a cutoff become killers and gain history.
+ * </p>
+ * <p>
+ * The copied board and the iterators are taken from the {@link SearchArena} of the searching thread, so repeated
+ * searches on a thread allocate neither boards nor turn lists.
+ * </p>
+ * <p>
+ * If a {@link TranspositionTable} is set, every node looks up its position first: an entry searched at least as
+ * deep decides the node if its bound fits the window, otherwise its best turn is tried first. Every node stores its
+ * value and best turn afterwards. The table may be shared by searches running on other threads.
+ * </p>
+ * <p>
+ * A search may be limited by a deadline or a number of nodes and may be stopped by another thread through
+ * {@link #stop()}. The limits are checked cooperatively while walking the tree; an aborted search unwinds at once and
+ * reports the best turn among the successors of the root searched completely, see {@link #isAborted()}.
+ * </p>
+ * <p>
+ * Besides the min/max form the search can run as negamax principal variation search, see
+ * {@link #setPrincipalVariationSearch(boolean)}: only the first turn of a node is searched with the full window, the
+ * others with a null window proving they are not better, and only those failing high are searched again. The
+ * principal variation search does not consult the database.
+ * </p>
+ * <p>
+ * Both forms may rate the nodes at the horizon by a quiescence search instead of the static evaluation, see
+ * {@link #setQuiescenceNodeLimit(int)}, so no leaf is rated in the middle of an exchange.
+ * </p>
  * <h3>Version History</h3>
  * <ul>
  * <li> 1.0 - 05/10 - Heim - Initial Version </li>
@@ -21,20 +52,100 @@ import java.util.concurrent.BlockingQueue;
 public abstract class AlphaBetaSearch {
      //Logger
     private final static Logger log = Logger.getLogger(AlphaBetaSearch.class);
-     //Minimum integer used for check mate
-    private final static int MIN_INT = -10000000;
+     //Minimum integer used for check mate, fits the 16 bit scores of the TranspositionTable
+    final static int MIN_INT = -30000;
     // Maximum integer used for check mate
-    private final static int MAX_INT = +10000000;
+    final static int MAX_INT = +30000;
+    // Scores beyond this are check mates, reached within MAX_INT - MATE_SCORES plies
+    private final static int MATE_SCORES = MAX_INT - 1000;
+    // Nodes between two checks of the clock and the node limit, a power of two
+    private final static int CHECK_INTERVAL = 1024;
+    // Turns of a node always searched with the full draft by late move reductions
+    private final static int LMR_FULL_DEPTH_MOVES = 3;
+    // Plies late move reductions take off, indexed by the draft and the number of the turn, both up to 63
+    private final static int[][] REDUCTIONS = new int[64][64];
+    // Margins of futility pruning and razoring in centipawns, indexed by the draft 1 and 2
+    private final static int[] FUTILITY_MARGINS = {0, 200, 500};
+    private final static int[] RAZOR_MARGINS = {0, 350, 550};
+    // Margin of reverse futility pruning per ply of draft, applied up to the given draft
+    private final static int REVERSE_FUTILITY_MARGIN = 120;
+    private final static int REVERSE_FUTILITY_DEPTH = 3;
+    // Loss by static exchange evaluation per ply of draft a capture is pruned at, applied up to the given draft
+    private final static int EXCHANGE_PRUNING_MARGIN = 100;
+    private final static int EXCHANGE_PRUNING_DEPTH = 3;
+    // Gain besides the captured piece a capture of the quiescence search must be able to reach alpha with
+    private final static int DELTA_MARGIN = 200;
+
+    static {
+        for (int draft = 1; draft < 64; draft++) {
+            for (int moveCount = 1; moveCount < 64; moveCount++) {
+                int reduction = (int) (0.75 + Math.log(draft) * Math.log(moveCount) / 2.25);
+                // The reduced search keeps at least one ply
+                REDUCTIONS[draft][moveCount] = Math.max(0, Math.min(reduction, draft - 2));
+            }
+        }
+    }
+
     // successor
     public IChessGame nextGame;
     // Current player to calculate for
     protected Player maximizingPlayer;
     // Maximum depth to search for
     protected int maxSearchDepth;
-
-    int count = 0;
-
-    private GameList clientGameList;
+    // Pooled boards and iterators of the searching thread
+    private SearchArena arena;
+    // Ply of the arena used for depth 0
+    private int firstPly;
+    // Best turn at depth 0 of the running search
+    private int bestMove = Move.NO_MOVE;
+    // Value of the best turn at depth 0
+    private int bestValue;
+    // Turn tried first at depth 0
+    private int hashMove = Move.NO_MOVE;
+    // Results of positions already searched, null to search without
+    private TranspositionTable transpositionTable;
+    // Set by any thread to end the running and all following searches
+    private volatile boolean stopRequested = false;
+    // System.nanoTime() the following searches have to end at, 0 for no deadline
+    private long deadline = 0;
+    // Nodes a search may visit, 0 for no limit
+    private long nodeLimit = 0;
+    // Nodes visited by the running search
+    private long nodes;
+    // Set once the running search ran out of time or nodes or was stopped
+    private boolean aborted;
+    // Cutoffs of the running search, in total and on the first turn of the node
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    // Negamax principal variation search instead of min/max
+    private boolean principalVariationSearch = false;
+    // Null window searches failing high and searched again by the running search
+    private long researches;
+    // Selective search of the principal variation search, switched off for the plain full width search
+    private boolean nullMovePruning = false;
+    private boolean lateMoveReductions = false;
+    // Null moves tried and failing high in the running search
+    private long nullMoves;
+    private long nullMoveCutoffs;
+    // Turns searched with a reduced draft and searched again with the full draft in the running search
+    private long reducedMoves;
+    private long reductionResearches;
+    // Futility pruning, reverse futility pruning and razoring of the principal variation search
+    private boolean frontierPruning = false;
+    // Turns and nodes cut by them in the running search
+    private long futilityPrunes;
+    private long reverseFutilityPrunes;
+    private long razorPrunes;
+    // Pruning of captures losing material by static exchange evaluation, and captures pruned in the running search
+    private boolean exchangePruning = false;
+    private long exchangePrunes;
+    // Nodes a quiescence search started at the horizon may expand, 0 to rate the horizon statically
+    private int quiescenceNodeLimit = 0;
+    // Nodes the running quiescence search may still expand
+    private int quiescenceNodesLeft;
+    // Nodes of the quiescence searches and captures skipped by delta pruning in the running search
+    private long quiescenceNodes;
+    private long deltaPrunes;
 
     private BlockingQueue<DatabaseEntry> queue;
 
@@ -63,10 +174,9 @@ public abstract class AlphaBetaSearch {
      */
     @Deprecated
     public int getAlphaBetaTurn(int maxSearchDepth, IChessGame game) {
-        clientGameList = new GameList();
         this.maximizingPlayer = game.getPlayerToMakeTurn();
         this.maxSearchDepth = maxSearchDepth;
-        return maxValue(game, 0, MIN_INT, MAX_INT);
+        return search(game, MIN_INT, MAX_INT);
     }
 
     /**
@@ -78,166 +188,859 @@ public abstract class AlphaBetaSearch {
      * @return Game value
      */
     public int getAlphaBetaTurn(int maxSearchDepth, IChessGame game, FileSearch fileSearch) {
-        clientGameList = new GameList();
+        return getAlphaBetaTurn(maxSearchDepth, game, fileSearch, MIN_INT, MAX_INT);
+    }
+
+    /**
+     * Searches with an aspiration window around the expected value
+     * <p>
+     * A value at most alpha is only an upper bound of the true value, a value at least beta only a lower bound, and
+     * the best turn is unreliable; the caller has to search again with a wider window.
+     * </p>
+     *
+     * @param maxSearchDepth How deep to search
+     * @param game           Current board
+     * @param fileSearch     FileSearch to use for file access
+     * @param alpha          int lower bound of the window
+     * @param beta           int upper bound of the window
+     * @return Game value
+     */
+    public int getAlphaBetaTurn(int maxSearchDepth, IChessGame game, FileSearch fileSearch, int alpha, int beta) {
         this.maximizingPlayer = game.getPlayerToMakeTurn();
         this.maxSearchDepth = maxSearchDepth;
         if (this.useDB) {
-            DatabaseEntry existing = fileSearch.search(game.getMD5Hash());
+            DatabaseEntry existing = fileSearch.search(Zobrist.toDatabaseHash(game.getZobristKey()));
             if (existing != null && existing.getDepth() >= maxSearchDepth) {
                 return existing.getValue();
             }
         }
-        return maxValue(game, 0, MIN_INT, MAX_INT);
+        return search(game, alpha, beta);
+    }
+
+    /**
+     * Runs the search on a copy of the game and sets {@link #nextGame} to the best successor
+     *
+     * @param game  IChessGame to calculate for, stays untouched
+     * @param alpha int lower bound of the window
+     * @param beta  int upper bound of the window
+     * @return int value of the game, of the best turn searched completely if the search was aborted
+     */
+    private int search(IChessGame game, int alpha, int beta) {
+        int value;
+        this.arena = SearchArena.get();
+        this.firstPly = arena.beginSearch();
+        try {
+            this.bestMove = Move.NO_MOVE;
+            this.bestValue = MIN_INT;
+            this.nodes = 0;
+            this.aborted = false;
+            this.cutoffs = 0;
+            this.firstMoveCutoffs = 0;
+            this.researches = 0;
+            this.nullMoves = 0;
+            this.nullMoveCutoffs = 0;
+            this.reducedMoves = 0;
+            this.reductionResearches = 0;
+            this.futilityPrunes = 0;
+            this.reverseFutilityPrunes = 0;
+            this.razorPrunes = 0;
+            this.exchangePrunes = 0;
+            this.quiescenceNodes = 0;
+            this.deltaPrunes = 0;
+            resetStatistics();
+            arena.getHistory().age();
+            if (transpositionTable != null) transpositionTable.newSearch();
+            IChessGame board = arena.getBoard(firstPly, game);
+            value = principalVariationSearch ? negamax(board, 0, maxSearchDepth, alpha, beta, true)
+                    : maxValue(board, 0, alpha, beta);
+            if (this.aborted) value = this.bestValue;
+        } finally {
+            arena.endSearch(firstPly);
+        }
+        if (this.bestMove != Move.NO_MOVE) {
+            IChessGame board = game.copy();
+            board.makeMove(this.bestMove);
+            board.setParent(game);
+            this.nextGame = board;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the iterator for the turns of a ply
+     *
+     * @param depth int ply
+     * @return MoveIterator of the ply
+     */
+    private MoveIterator getMoveIterator(int depth) {
+        return arena.getMoveIterator(firstPly + depth);
+    }
+
+    /**
+     * Sets the turn to try first at depth 0, e.g. the best turn of a previous search of the same board
+     *
+     * @param hashMove int packed turn, {@link Move#NO_MOVE} if none
+     */
+    public void setHashMove(int hashMove) {
+        this.hashMove = hashMove;
+    }
+
+    /**
+     * Sets the transposition table used by the following searches
+     *
+     * @param transpositionTable TranspositionTable to use, may be shared with other searches, null for none
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Returns the best turn at depth 0 of the last search
+     *
+     * @return int packed turn, {@link Move#NO_MOVE} if none
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Sets the time the following searches have to end at
+     *
+     * @param deadline long value of {@link System#nanoTime()} to abort at, 0 for no deadline
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets the number of nodes every following search may visit
+     *
+     * @param nodeLimit long nodes, checked every {@value #CHECK_INTERVAL} nodes, 0 for no limit
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Ends the running search as soon as possible and aborts all following ones, may be called from any thread
+     */
+    public void stop() {
+        this.stopRequested = true;
+    }
+
+    /**
+     * Tells whether the last search was aborted before searching all successors of the root
+     * <p>
+     * The value and best turn of an aborted search only cover the successors searched completely. The turn set by
+     * {@link #setHashMove(int)} is searched first, so they are at least as good as that turn.
+     * </p>
+     *
+     * @return boolean true if the last search ran out of time or nodes or was stopped
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last search
+     *
+     * @return long nodes including the leaves
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Selects the form of the following searches, both find the same value and best turn
+     *
+     * @param principalVariationSearch boolean true for negamax principal variation search, false for min/max
+     */
+    public void setPrincipalVariationSearch(boolean principalVariationSearch) {
+        this.principalVariationSearch = principalVariationSearch;
+    }
+
+    /**
+     * Returns the number of null window searches of the last principal variation search failing high
+     *
+     * @return long turns searched again with the full window
+     */
+    public long getResearches() {
+        return researches;
     }
 
     /**
-     * First check if game is already in list, provide quality from list if positive
+     * Switches null move pruning of the principal variation search: a node whose opponent still fails high after
+     * passing is cut without searching its turns. Changes the value only where passing would be better than any
+     * turn, which the search rules out in check and for a player left with king and pawns only
+     *
+     * @param nullMovePruning boolean true to prune by null moves
+     */
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    /**
+     * Switches late move reductions of the principal variation search: quiet turns late in the order are searched
+     * shallower first, growing with the draft and the number of the turn, and searched again with the full draft
+     * if they beat alpha. Captures, promotions, turns giving check and nodes in check are never reduced
+     *
+     * @param lateMoveReductions boolean true to reduce late quiet turns
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * Switches pruning at the frontier of the principal variation search, the last plies before the horizon.
+     * Not in check and outside the principal variation the static value of a node is compared with the window:
+     * <ul>
+     * <li>reverse futility: a node whose value stays above beta by a margin per ply of draft returns at once</li>
+     * <li>razoring: a node of draft 1 or 2 whose value stays a margin below alpha is rated at the horizon and
+     * returns if that does not beat alpha either</li>
+     * <li>futility: at draft 1 and 2, if the value plus a margin does not reach alpha, quiet turns not giving check
+     * are skipped after the first turn</li>
+     * </ul>
+     *
+     * @param frontierPruning boolean true to prune at the frontier
+     */
+    public void setFrontierPruning(boolean frontierPruning) {
+        this.frontierPruning = frontierPruning;
+    }
+
+    /**
+     * Returns the number of quiet turns the last search skipped by futility pruning
+     *
+     * @return long turns neither searched nor rated
+     */
+    public long getFutilityPrunes() {
+        return futilityPrunes;
+    }
+
+    /**
+     * Returns the number of nodes the last search cut by reverse futility pruning
+     *
+     * @return long nodes returning their static value
+     */
+    public long getReverseFutilityPrunes() {
+        return reverseFutilityPrunes;
+    }
+
+    /**
+     * Returns the number of nodes the last search cut by razoring
+     *
+     * @return long nodes returning their value at the horizon
+     */
+    public long getRazorPrunes() {
+        return razorPrunes;
+    }
+
+    /**
+     * Switches pruning of losing captures in the principal variation search: outside check and after the first turn,
+     * a capture of a node with a draft up to 3 is skipped if {@link StaticExchange} rates it as losing more than a
+     * pawn per ply of draft
+     *
+     * @param exchangePruning boolean true to prune losing captures
+     */
+    public void setExchangePruning(boolean exchangePruning) {
+        this.exchangePruning = exchangePruning;
+    }
+
+    /**
+     * Returns the number of captures the last search skipped as losing material
+     *
+     * @return long captures neither searched nor rated
+     */
+    public long getExchangePrunes() {
+        return exchangePrunes;
+    }
+
+    /**
+     * Sets the node budget of the quiescence search rating every node at the horizon
      * <p>
-     * Game list filled by client until size is not a predefined value, send to server if size reached value
+     * A quiescence search follows the captures and promotions of a node at the horizon until the position is quiet,
+     * leaving out captures losing material by {@link StaticExchange} and those that could not reach alpha even if
+     * the captured piece came for free (delta pruning). The budget bounds the nodes one horizon node may expand, so
+     * a position full of exchanges costs at most a known multiple of a quiet one.
      * </p>
      *
-     * @param game    IChessGame to save
-     * @param depth   int, current calculating depth
-     * @param quality double, game quality
+     * @param quiescenceNodeLimit int nodes expanded per horizon node, 0 to rate the horizon by the static evaluation
+     */
+    public void setQuiescenceNodeLimit(int quiescenceNodeLimit) {
+        this.quiescenceNodeLimit = quiescenceNodeLimit;
+    }
+
+    /**
+     * Returns the number of nodes of the quiescence searches of the last search, included in {@link #getNodes()}
+     *
+     * @return long quiescence nodes
+     */
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /**
+     * Returns the number of captures the quiescence searches of the last search skipped by delta pruning
+     *
+     * @return long captures neither searched nor rated
+     */
+    public long getDeltaPrunes() {
+        return deltaPrunes;
+    }
+
+    /**
+     * Returns the number of null moves tried by the last search
+     *
+     * @return long null move searches
+     */
+    public long getNullMoves() {
+        return nullMoves;
+    }
+
+    /**
+     * Returns the number of null moves of the last search failing high and cutting their node
+     *
+     * @return long nodes cut by a null move
+     */
+    public long getNullMoveCutoffs() {
+        return nullMoveCutoffs;
+    }
+
+    /**
+     * Returns the number of turns the last search searched with a reduced draft
+     *
+     * @return long reduced turns
      */
-    private void saveGameToList(IChessGame game, int depth, double quality) {
-        if (depth > 5) {
-            clientGameList.setGame(game, depth, quality);
-            log.debug("Depth  " + depth + " " + game.getStringRepresentation() + " count=" + count++);
+    public long getReducedMoves() {
+        return reducedMoves;
+    }
+
+    /**
+     * Returns the number of reduced turns of the last search beating alpha and searched again with the full draft
+     *
+     * @return long reduced turns searched again
+     */
+    public long getReductionResearches() {
+        return reductionResearches;
+    }
+
+    /**
+     * Returns the number of cutoffs of the last search
+     *
+     * @return long nodes left before searching all their turns
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Returns the number of cutoffs of the last search caused by the first turn tried, the closer to
+     * {@link #getCutoffs()} the better the turns are ordered
+     *
+     * @return long nodes left after their first turn
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Counts a cutoff and remembers a quiet turn causing it as killer of the ply and in the history
+     */
+    private void recordCutoff(MoveIterator moves, int move, int draft, int moveCount) {
+        cutoffs++;
+        if (moveCount == 1) firstMoveCutoffs++;
+        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+            moves.addCutoff(move, draft);
         }
     }
 
+    /**
+     * Counts a node and tells whether the search has to unwind, the clock is read every
+     * {@value #CHECK_INTERVAL} nodes only
+     *
+     * @return boolean true if the search is aborted
+     */
+    private boolean checkAbort() {
+        if (aborted) return true;
+        if ((++nodes & (CHECK_INTERVAL - 1)) != 0) return false;
+        if (stopRequested || (nodeLimit > 0 && nodes >= nodeLimit)
+                || (deadline != 0 && System.nanoTime() - deadline >= 0)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
     private int maxValue(IChessGame game, int depth, int alpha, int beta) {
-        ArrayList<IChessGame> successorList;
+        MoveIterator moves;
         int minimumValueOfSuccessor;
         int v = MIN_INT;
+        int nodeBestMove = Move.NO_MOVE;
+        int alphaOrig = alpha;
+        int moveCount = 0;
 
-        if (game.hasBlackLost()) {
-            if (maximizingPlayer == Player.BLACK) {
-                saveGameToList(game, depth, MIN_INT + depth);
-                return MIN_INT + depth;
-            } else {
-                saveGameToList(game, depth, MAX_INT - depth);
-                return MAX_INT - depth;
-            }
-        }
-        if (game.hasWhiteLost()) {
-            if (maximizingPlayer == Player.BLACK) {
-                saveGameToList(game, depth, MAX_INT - depth);
-                return MAX_INT - depth;
-            } else {
-                saveGameToList(game, depth, MIN_INT + depth);
-                return MIN_INT + depth;
-            }
-        }
-        if (this.isLeaf(game, depth)) {
-            //			saveGameToList(game, depth, this.getPosQuality(game));
-            return (int) this.getPosQuality(game);
+        if (this.checkAbort()) {
+            return 0;
+        } else if (this.isLeaf(game, depth)) {
+            return this.horizonValue(game, depth, alpha, beta);
         } else {
-            successorList = game.getNextTurns();
-            for (IChessGame successor : successorList) {
-                successor.setParent(game);
+            long entry = probe(game);
+            if (entry != TranspositionTable.MISSING && depth > 0) {
+                int score = getTableScore(entry, depth, true);
+                if (isTableCutoff(entry, maxSearchDepth - depth, score, alpha, beta, true)) return score;
+            }
+            moves = getMoveIterator(depth);
+            moves.reset(game, getFirstMove(entry, depth));
+            for (int move = moves.next(); move != Move.NO_MOVE; move = moves.next()) {
+                moveCount++;
+                game.makeMove(move);
                 if (this.useDB) {
                     if (depth >= 3) {
-                        DatabaseEntry temp = fileSearch.search(successor.getMD5Hash());
+                        DatabaseEntry temp = fileSearch.search(Zobrist.toDatabaseHash(game.getZobristKey()));
                         if (temp != null && temp.getDepth() > depth) {
+                            game.unmakeMove();
                             return temp.getValue();
                         } else {
-                            this.familyPublish(successor, depth, successor.getQuality(maximizingPlayer));
+                            this.publish(game, depth, game.getQuality(maximizingPlayer));
                         }
                     }
                 }
-                //Ignore illegal turns
-                if (depth == 0 && !successor.isLegalBoard()) {
-                    minimumValueOfSuccessor = MIN_INT;
-                    //this.log.debug("Brett wurde als ungültig erkannt:\n" + successor.getReadableString());
-                } else {
-                    minimumValueOfSuccessor = minValue(successor, depth + 1, alpha, beta);
+                minimumValueOfSuccessor = minValue(game, depth + 1, alpha, beta);
+                game.unmakeMove();
+                //The value of an aborted successor is meaningless
+                if (this.aborted) {
+                    return 0;
                 }
 
                 //Use better successor if available
                 if (minimumValueOfSuccessor > v) {
                     v = minimumValueOfSuccessor;
-                    if (depth == 0)
-                        this.nextGame = successor;
+                    nodeBestMove = move;
+                    if (depth == 0) {
+                        this.bestMove = move;
+                        this.bestValue = v;
+                    }
                 }
                 if (v >= beta) {
-                    //					saveGameToList(successor, depth, v);
-                    return v;
+                    this.recordCutoff(moves, move, maxSearchDepth - depth, moveCount);
+                    break;
                 }
                 alpha = Math.max(v, alpha);
             }
-            //			saveGameToList(game, depth, v);
+            //No legal turn, the maximizing player is check mate or it is a draw
+            if (moveCount == 0) {
+                v = game.isInCheck() ? MIN_INT + depth : 0;
+            }
+            store(game, depth, maxSearchDepth - depth, v, alphaOrig, beta, nodeBestMove, true);
             return v;
         }
     }
 
     /**
-     * Publish calculating result to parent objects
+     * Publish calculating result of the current board to the database
      *
-     * @param child IChessGame, should have parents to publish
+     * @param game  IChessGame current board of the search
      * @param depth int, current calculating depth
      * @param value int, calculated value to publish
      */
-    private void familyPublish(IChessGame child, int depth, int value) {
-        if (child != null && child.getParent() != null) {
-            DatabaseEntry parent = new DatabaseEntry(child.getMD5Hash(), depth, value);
-            DatabaseEntry existing = this.fileSearch.search(child.getMD5Hash());
-            if (existing == null || existing.getDepth() < depth) {
-                this.queue.add(parent);
-            }
-            familyPublish(child.getParent(), depth - 2, value);
+    private void publish(IChessGame game, int depth, int value) {
+        String hash = Zobrist.toDatabaseHash(game.getZobristKey());
+        DatabaseEntry existing = this.fileSearch.search(hash);
+        if (existing == null || existing.getDepth() < depth) {
+            this.queue.add(new DatabaseEntry(hash, depth, value));
         }
     }
 
     private int minValue(IChessGame game, int depth, int alpha, int beta) {
-        ArrayList<IChessGame> successorList;
+        MoveIterator moves;
         int maximumValueOfSuccessor;
         int v = MAX_INT;
+        int nodeBestMove = Move.NO_MOVE;
+        int betaOrig = beta;
+        int moveCount = 0;
 
-        if (game.hasBlackLost()) {
-            if (maximizingPlayer == Player.BLACK) {
-                saveGameToList(game, depth, MIN_INT + depth);
-                return MIN_INT + depth;
-            } else {
-                saveGameToList(game, depth, MAX_INT - depth);
-                return MAX_INT - depth;
-            }
-        }
-        if (game.hasWhiteLost()) {
-            if (maximizingPlayer == Player.BLACK) {
-                saveGameToList(game, depth, MAX_INT - depth);
-                return MAX_INT - depth;
-            } else {
-                saveGameToList(game, depth, MIN_INT + depth);
-                return MIN_INT + depth;
-            }
-        }
-        if (this.isLeaf(game, depth)) {
-            //			saveGameToList(game, depth, this.getPosQuality(game));
-            return (int) this.getPosQuality(game);
+        if (this.checkAbort()) {
+            return 0;
+        } else if (this.isLeaf(game, depth)) {
+            // The player to move minimizes, the horizon value is from its view
+            return -this.horizonValue(game, depth, -beta, -alpha);
         } else {
-            successorList = game.getNextTurns();
-            for (IChessGame successor : successorList) {
-                maximumValueOfSuccessor = maxValue(successor, depth + 1, alpha, beta);
+            long entry = probe(game);
+            if (entry != TranspositionTable.MISSING && depth > 0) {
+                int score = getTableScore(entry, depth, false);
+                if (isTableCutoff(entry, maxSearchDepth - depth, score, alpha, beta, false)) return score;
+            }
+            moves = getMoveIterator(depth);
+            moves.reset(game, getFirstMove(entry, depth));
+            for (int move = moves.next(); move != Move.NO_MOVE; move = moves.next()) {
+                moveCount++;
+                game.makeMove(move);
+                maximumValueOfSuccessor = maxValue(game, depth + 1, alpha, beta);
+                game.unmakeMove();
+                if (this.aborted) {
+                    return 0;
+                }
 
                 if (maximumValueOfSuccessor < v) {
                     v = maximumValueOfSuccessor;
+                    nodeBestMove = move;
                 }
                 if (v <= alpha) {
-                    //					saveGameToList(successor, depth, v);
-                    return v;
+                    this.recordCutoff(moves, move, maxSearchDepth - depth, moveCount);
+                    break;
                 }
                 beta = Math.min(beta, v);
             }
-            //			saveGameToList(game, depth, v);
+            //No legal turn, the minimizing player is check mate or it is a draw
+            if (moveCount == 0) {
+                v = game.isInCheck() ? MAX_INT - depth : 0;
+            }
+            store(game, depth, maxSearchDepth - depth, v, alpha, betaOrig, nodeBestMove, false);
             return v;
         }
     }
 
+    /**
+     * Negamax principal variation search, values are from the view of the player to move
+     * <p>
+     * The maximizing player moves at even depths. The first turn is searched with the full window, every further
+     * turn with the null window (alpha, alpha + 1) and again with the full window only if it beats alpha. The draft
+     * is the remaining depth, it shrinks faster than the depth grows where null moves or reductions cut the tree.
+     * </p>
+     *
+     * @param game      IChessGame position of the node
+     * @param depth     int plies from the root
+     * @param draft     int remaining depth, the node is a leaf if it is not positive
+     * @param alpha     int lower bound of the window
+     * @param beta      int upper bound of the window
+     * @param allowNull boolean false right after a null move, two null moves in a row prove nothing
+     * @return int value from the view of the player to move
+     */
+    private int negamax(IChessGame game, int depth, int draft, int alpha, int beta, boolean allowNull) {
+        MoveIterator moves;
+        int valueOfSuccessor;
+        int v = MIN_INT;
+        int nodeBestMove = Move.NO_MOVE;
+        int alphaOrig = alpha;
+        int moveCount = 0;
+        boolean maximizing = (depth & 1) == 0;
+
+        if (this.checkAbort()) {
+            return 0;
+        } else if (draft <= 0 || this.isLeaf(game, depth)) {
+            return horizonValue(game, depth, alpha, beta);
+        }
+        // Values and bounds of the table are from the view of the player to move, like those of negamax
+        long entry = probe(game);
+        if (entry != TranspositionTable.MISSING && depth > 0) {
+            int score = getTableScore(entry, depth, true);
+            if (isTableCutoff(entry, draft, score, alpha, beta, true)) return score;
+        }
+        boolean inCheck = game.isInCheck();
+        boolean nullWindow = beta - alpha == 1;
+
+        // Frontier nodes compare the static value of the position with the window before searching any turn
+        int staticValue = 0;
+        boolean frontier = frontierPruning && depth > 0 && !inCheck && draft <= REVERSE_FUTILITY_DEPTH
+                && alpha > -MATE_SCORES && beta < MATE_SCORES;
+        if (frontier) {
+            staticValue = maximizing ? this.getPosQuality(game) : -this.getPosQuality(game);
+            // Reverse futility: so far above beta that no turn of the opponent will bring it back
+            if (nullWindow && staticValue - REVERSE_FUTILITY_MARGIN * draft >= beta) {
+                reverseFutilityPrunes++;
+                return staticValue - REVERSE_FUTILITY_MARGIN * draft;
+            }
+            // Razoring: so far below alpha that only the horizon value could bring it back
+            if (nullWindow && draft < RAZOR_MARGINS.length && staticValue + RAZOR_MARGINS[draft] <= alpha) {
+                int value = horizonValue(game, depth, alpha, beta);
+                if (draft == 1 || value <= alpha) {
+                    razorPrunes++;
+                    return value;
+                }
+            }
+        }
+        // Futility: quiet turns at the last plies can not lift a value this far below alpha
+        boolean futile = frontier && draft < FUTILITY_MARGINS.length && staticValue + FUTILITY_MARGINS[draft] <= alpha;
+
+        // Null move: if passing still fails high, a real turn will as well. Not in check, not at the root or on the
+        // principal variation, and only with pieces besides pawns, where zugzwang is rare
+        if (nullMovePruning && allowNull && depth > 0 && nullWindow && !inCheck && draft >= 2
+                && beta < MATE_SCORES && beta > -MATE_SCORES && hasPieces(game)) {
+            nullMoves++;
+            game.makeNullMove();
+            int nullValue = -negamax(game, depth + 1, draft - 1 - (draft > 6 ? 3 : 2), -beta, -beta + 1, false);
+            game.unmakeMove();
+            if (this.aborted) {
+                return 0;
+            }
+            if (nullValue >= beta) {
+                nullMoveCutoffs++;
+                return nullValue;
+            }
+        }
+
+        moves = getMoveIterator(depth);
+        moves.reset(game, getFirstMove(entry, depth));
+        for (int move = moves.next(); move != Move.NO_MOVE; move = moves.next()) {
+            moveCount++;
+            // Captures losing more than a pawn per ply of draft are not worth searching close to the horizon
+            if (exchangePruning && depth > 0 && !inCheck && moveCount > 1 && v > -MATE_SCORES
+                    && draft <= EXCHANGE_PRUNING_DEPTH && Move.isCapture(move) && !Move.isPromotion(move)
+                    && game instanceof IMailboxBoard
+                    && StaticExchange.evaluate((IMailboxBoard) game, move) < -EXCHANGE_PRUNING_MARGIN * draft) {
+                exchangePrunes++;
+                continue;
+            }
+            game.makeMove(move);
+            if (futile && moveCount > 1 && !Move.isCapture(move) && !Move.isPromotion(move) && !game.isInCheck()) {
+                game.unmakeMove();
+                futilityPrunes++;
+                v = Math.max(v, staticValue + FUTILITY_MARGINS[draft]);
+                continue;
+            }
+            if (moveCount == 1) {
+                valueOfSuccessor = -negamax(game, depth + 1, draft - 1, -beta, -alpha, true);
+            } else {
+                // Late quiet turns not giving check are searched shallower first
+                int reduction = 0;
+                if (lateMoveReductions && !inCheck && draft >= 3 && moveCount > LMR_FULL_DEPTH_MOVES
+                        && !Move.isCapture(move) && !Move.isPromotion(move) && !game.isInCheck()) {
+                    reduction = REDUCTIONS[Math.min(draft, 63)][Math.min(moveCount, 63)];
+                }
+                valueOfSuccessor = -negamax(game, depth + 1, draft - 1 - reduction, -alpha - 1, -alpha, true);
+                if (reduction > 0) {
+                    reducedMoves++;
+                    if (valueOfSuccessor > alpha && !this.aborted) {
+                        reductionResearches++;
+                        valueOfSuccessor = -negamax(game, depth + 1, draft - 1, -alpha - 1, -alpha, true);
+                    }
+                }
+                if (valueOfSuccessor > alpha && valueOfSuccessor < beta && !this.aborted) {
+                    researches++;
+                    valueOfSuccessor = -negamax(game, depth + 1, draft - 1, -beta, -alpha, true);
+                }
+            }
+            game.unmakeMove();
+            if (this.aborted) {
+                return 0;
+            }
+
+            if (valueOfSuccessor > v) {
+                v = valueOfSuccessor;
+                nodeBestMove = move;
+                if (depth == 0) {
+                    this.bestMove = move;
+                    this.bestValue = v;
+                }
+            }
+            if (v >= beta) {
+                this.recordCutoff(moves, move, draft, moveCount);
+                break;
+            }
+            alpha = Math.max(v, alpha);
+        }
+        //No legal turn, the player to move is check mate or it is a draw
+        if (moveCount == 0) {
+            v = inCheck ? MIN_INT + depth : 0;
+        }
+        store(game, depth, draft, v, alphaOrig, beta, nodeBestMove, true);
+        return v;
+    }
+
+    /**
+     * Rates a node at the horizon from the view of the player to move, by a quiescence search of its own node budget
+     * or, with quiescence switched off, by the lazy static evaluation within the window
+     */
+    private int horizonValue(IChessGame game, int depth, int alpha, int beta) {
+        if (quiescenceNodeLimit <= 0) return staticValue(game, depth, alpha, beta);
+        this.quiescenceNodesLeft = quiescenceNodeLimit;
+        return quiescence(game, depth, alpha, beta);
+    }
+
+    /**
+     * Rates a node by the evaluation from the view of the player to move, lazily within the window
+     */
+    private int staticValue(IChessGame game, int depth, int alpha, int beta) {
+        return (depth & 1) == 0 ? this.getPosQuality(game, alpha, beta) : -this.getPosQuality(game, -beta, -alpha);
+    }
+
+    /**
+     * Negamax search of the captures and promotions below the horizon, values are from the view of the player to
+     * move
+     * <p>
+     * The player to move may stand pat on the static value instead of capturing, so the value is never below it.
+     * Captures losing material by static exchange evaluation are left out, the others are tried by MVV-LVA. Delta
+     * pruning skips captures that could not lift the static value to alpha even if the captured piece came for
+     * free. In check there is no standing pat and every evasion is searched. Every node expanding its turns uses
+     * up one node of the budget set by {@link #horizonValue(IChessGame, int, int, int)}; once it is used up the
+     * remaining nodes stand pat.
+     * </p>
+     *
+     * @param game  IChessGame position of the node
+     * @param depth int plies from the root, below the horizon
+     * @param alpha int lower bound of the window
+     * @param beta  int upper bound of the window
+     * @return int value from the view of the player to move
+     */
+    private int quiescence(IChessGame game, int depth, int alpha, int beta) {
+        if (this.checkAbort()) {
+            return 0;
+        }
+        quiescenceNodes++;
+        boolean inCheck = game.isInCheck();
+        int standPat = inCheck ? MIN_INT + depth : staticValue(game, depth, alpha, beta);
+        if (standPat >= beta || quiescenceNodesLeft <= 0) {
+            return inCheck ? staticValue(game, depth, alpha, beta) : standPat;
+        }
+        quiescenceNodesLeft--;
+        int v = standPat;
+        alpha = Math.max(alpha, standPat);
+
+        MoveIterator moves = getMoveIterator(depth);
+        if (inCheck) moves.reset(game, Move.NO_MOVE);
+        else moves.resetCaptures(game);
+        for (int move = moves.next(); move != Move.NO_MOVE; move = moves.next()) {
+            if (!inCheck && !Move.isPromotion(move)) {
+                int optimistic = standPat + Math.abs(PieceSquareTable.MATERIAL[Move.getCaptured(move)]) + DELTA_MARGIN;
+                if (optimistic <= alpha) {
+                    deltaPrunes++;
+                    v = Math.max(v, optimistic);
+                    continue;
+                }
+            }
+            game.makeMove(move);
+            int valueOfSuccessor = -quiescence(game, depth + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (this.aborted) {
+                return 0;
+            }
+            if (valueOfSuccessor > v) {
+                v = valueOfSuccessor;
+                if (v >= beta) break;
+                alpha = Math.max(alpha, v);
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Checks if the player to move has a piece besides king and pawns, the guard of null move pruning against
+     * zugzwang; boards not telling their pieces never get a null move
+     */
+    private static boolean hasPieces(IChessGame game) {
+        if (!(game instanceof IMailboxBoard)) return false;
+        IMailboxBoard board = (IMailboxBoard) game;
+        int offset = game.getPlayerToMakeTurn() == Player.WHITE ? ChessBoard.WHITE_PAWN - ChessBoard.BLACK_PAWN : 0;
+        for (byte piece = ChessBoard.BLACK_KNIGHT; piece <= ChessBoard.BLACK_QUEEN; piece++) {
+            if (board.getPieceCount((byte) (piece + offset)) > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the position in the transposition table
+     *
+     * @param game IChessGame position to look up
+     * @return long packed entry, {@link TranspositionTable#MISSING} if unknown or no table is used
+     */
+    private long probe(IChessGame game) {
+        if (transpositionTable == null) return TranspositionTable.MISSING;
+        return transpositionTable.probe(game.getZobristKey());
+    }
+
+    /**
+     * Returns the turn to try first: the turn set by {@link #setHashMove(int)} at depth 0, else the best turn of the
+     * transposition table
+     */
+    private int getFirstMove(long entry, int depth) {
+        if (depth == 0 && hashMove != Move.NO_MOVE) return hashMove;
+        return TranspositionTable.getMove(entry);
+    }
+
+    /**
+     * Reads the score of an entry from the view of the maximizing player, mate scores counted from the root; from
+     * the view of the player to move if maximizing is true, as negamax needs it
+     */
+    private static int getTableScore(long entry, int depth, boolean maximizing) {
+        int score = TranspositionTable.getScore(entry);
+        if (score > MATE_SCORES) score -= depth;
+        else if (score < -MATE_SCORES) score += depth;
+        return maximizing ? score : -score;
+    }
+
+    /**
+     * Checks if an entry searched at least as deep as needed decides the node for the given window
+     */
+    private static boolean isTableCutoff(long entry, int draft, int score, int alpha, int beta, boolean maximizing) {
+        if (TranspositionTable.getDraft(entry) < draft) return false;
+        int bound = TranspositionTable.getBound(entry);
+        // Bounds are stored from the view of the player to move, swap them at nodes of the minimizing player
+        if (!maximizing && bound != TranspositionTable.EXACT) bound = TranspositionTable.EXACT - bound;
+        return bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER && score >= beta)
+                || (bound == TranspositionTable.UPPER && score <= alpha);
+    }
+
+    /**
+     * Stores the result of a node in the transposition table from the view of the player to move
+     *
+     * @param game         IChessGame position of the node
+     * @param depth        int depth of the node
+     * @param draft        int remaining depth the node was searched with
+     * @param v            int value of the node from the view of the maximizing player
+     * @param alpha        int lower bound of the window the node was searched with
+     * @param beta         int upper bound of the window the node was searched with
+     * @param nodeBestMove int best turn of the node, {@link Move#NO_MOVE} if none
+     * @param maximizing   boolean true at nodes of the maximizing player and in negamax, where v and the window are
+     *                     from the view of the player to move
+     */
+    private void store(IChessGame game, int depth, int draft, int v, int alpha, int beta, int nodeBestMove,
+                       boolean maximizing) {
+        if (transpositionTable == null) return;
+        int bound = v <= alpha ? TranspositionTable.UPPER : v >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        int score = v;
+        if (!maximizing) {
+            score = -score;
+            if (bound != TranspositionTable.EXACT) bound = TranspositionTable.EXACT - bound;
+        }
+        // Mate scores are stored counted from the node, the node may be reached at another depth later
+        if (score > MATE_SCORES) score += depth;
+        else if (score < -MATE_SCORES) score -= depth;
+        transpositionTable.store(game.getZobristKey(), Math.min(draft, TranspositionTable.MAX_DRAFT), score, bound,
+                nodeBestMove);
+    }
+
+    /**
+     * Called at the start of every search, resets the statistics subclasses keep about it, does nothing unless
+     * overridden
+     */
+    protected void resetStatistics() {
+    }
+
     protected abstract boolean isLeaf(IChessGame game, int depth);
 
     protected abstract int getQuality(IChessGame game);
 
-    protected abstract double getPosQuality(IChessGame game);
+    /**
+     * Rates a leaf
+     *
+     * @param game IChessGame leaf to rate
+     * @return int quality of the leaf in centipawns from the view of the maximizing player
+     */
+    protected abstract int getPosQuality(IChessGame game);
+
+    /**
+     * Rates a leaf searched with the given window, ignoring the window unless overridden
+     * <p>
+     * Once the rating is known to be at most alpha or at least beta, any value on that side of the window may be
+     * returned, the search only needs to know which side the leaf is on.
+     * </p>
+     *
+     * @param game  IChessGame leaf to rate
+     * @param alpha int lower bound of the window
+     * @param beta  int upper bound of the window
+     * @return int quality of the leaf in centipawns
+     */
+    protected int getPosQuality(IChessGame game, int alpha, int beta) {
+        return getPosQuality(game);
+    }
 }
@@ -2,13 +2,78 @@ package de.htw.grischa.chess;
 
 
 public class AlphaBetaSearchFixedDepth extends AlphaBetaSearch {
+    /**
+     * Default margin of the lazy evaluation, three pawns in centipawns
+     */
+    public static final int DEFAULT_LAZY_MARGIN = 300;
+    // Stateless, shared by all searches and threads
+    private static final Quality QUALITY = new Quality();
+    // Leaves rated by the fixed part only, negative to always rate the whole position
+    private int lazyMargin = DEFAULT_LAZY_MARGIN;
+    // Leaves rated lazily respectively completely by the last search
+    private long lazyEvaluations = 0;
+    private long fullEvaluations = 0;
+
+    protected void resetStatistics() {
+        lazyEvaluations = 0;
+        fullEvaluations = 0;
+    }
+
     protected int getQuality(IChessGame game) {
         return game.getQuality(maximizingPlayer);
     }
 
-    protected double getPosQuality(IChessGame game) {
-        Quality q = new Quality((ChessBoard) game);
-        return q.getPositionQuality(maximizingPlayer, game.getTurnsMade());
+    protected int getPosQuality(IChessGame game) {
+        fullEvaluations++;
+        return QUALITY.evaluate((IMailboxBoard) game, maximizingPlayer);
+    }
+
+    /**
+     * Rates the fixed part of the leaf first and skips the threat, mobility and king safety terms if the fixed part
+     * is further than the lazy margin outside the window
+     */
+    protected int getPosQuality(IChessGame game, int alpha, int beta) {
+        if (lazyMargin < 0) return getPosQuality(game);
+        IMailboxBoard board = (IMailboxBoard) game;
+        int quality = QUALITY.evaluateFixed(board, maximizingPlayer);
+        if (quality + lazyMargin <= alpha || quality - lazyMargin >= beta) {
+            lazyEvaluations++;
+            return quality;
+        }
+        fullEvaluations++;
+        return quality + QUALITY.evaluateDynamic(board, maximizingPlayer);
+    }
+
+    /**
+     * Sets the margin of the lazy evaluation
+     * <p>
+     * A leaf is rated by {@link Quality#evaluateFixed(IMailboxBoard, Player)} alone if that is at least the margin
+     * below alpha or above beta. Smaller margins skip more leaves but may misjudge positions whose threats,
+     * mobility or king safety outweigh the margin.
+     * </p>
+     *
+     * @param lazyMargin int margin in centipawns, negative to disable lazy evaluation
+     */
+    public void setLazyMargin(int lazyMargin) {
+        this.lazyMargin = lazyMargin;
+    }
+
+    /**
+     * Returns the number of leaves rated without the threat, mobility and king safety terms
+     *
+     * @return long leaves rated lazily by the last search
+     */
+    public long getLazyEvaluations() {
+        return lazyEvaluations;
+    }
+
+    /**
+     * Returns the number of leaves rated completely
+     *
+     * @return long leaves rated completely by the last search
+     */
+    public long getFullEvaluations() {
+        return fullEvaluations;
     }
 
     protected boolean isLeaf(IChessGame game, int depth) {
@@ -1,18 +1,18 @@
 package de.htw.grischa.chess;
 
-import java.util.ArrayList;
-import java.util.TreeMap;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import org.apache.log4j.Logger;
 
 public class AlphaBetaSearchGridResults extends AlphaBetaSearch
 {
 	private final static Logger _log = Logger.getLogger(AlphaBetaSearch.class);
-	private ArrayList<String> sendedGames;
-	private TreeMap<String, Integer> results;
+	private HashSet<Long> sendedGames;
+	private HashMap<Long, Integer> results;
 	
-	public AlphaBetaSearchGridResults(ArrayList<String> sendedGames,
-									  TreeMap<String, Integer> results)
+	public AlphaBetaSearchGridResults(HashSet<Long> sendedGames,
+									  HashMap<Long, Integer> results)
 	{
 		this.sendedGames=sendedGames;
 		this.results=results;
@@ -21,11 +21,12 @@ public class AlphaBetaSearchGridResults extends AlphaBetaSearch
 	@Override
 	protected int getQuality(IChessGame game) 
 	{
-		if(results.containsKey(game.getStringRepresentation())) 
+		Integer result = results.get(game.getZobristKey());
+		if(result != null) 
 		{
 			_log.debug("berechnetes spiel: "+game.getStringRepresentation()+" " +
-					   "errechnete qualit??t: "+results.get(game.getStringRepresentation()));
-			return results.get(game.getStringRepresentation());
+					   "errechnete qualit??t: "+result);
+			return result;
 		}
 		else
 		{
@@ -47,7 +48,7 @@ public class AlphaBetaSearchGridResults extends AlphaBetaSearch
 	@Override
 	protected boolean isLeaf(IChessGame game, int depth)
 	{
-		if(sendedGames.contains(game.getStringRepresentation())) 
+		if(sendedGames.contains(game.getZobristKey())) 
 		{
 			return true;
 		}
@@ -55,8 +56,7 @@ public class AlphaBetaSearchGridResults extends AlphaBetaSearch
 	}
 
 	@Override
-	protected double getPosQuality(IChessGame game) {
-		// TODO Auto-generated method stub
+	protected int getPosQuality(IChessGame game) {
 		return getQuality(game);
 	}
 
@@ -0,0 +1,114 @@
+package de.htw.grischa.chess;
+
+/**
+ * The squares attacked by each player together with the number of pieces attacking them
+ * <p>
+ * A board fills its map once per position on first request and hands out the cached map until the position
+ * changes, so the evaluation, castling and check detection share one scan of the board instead of scanning the
+ * attack rays again for every square they are interested in. Squares are numbered 0-63 like in {@link Move}.
+ * </p>
+ * <p>
+ * Only pieces directly attacking a square are counted, pieces behind them on the same ray are not.
+ * </p>
+ *
+ * @see IMailboxBoard#getAttackMap()
+ */
+public class AttackMap {
+    private final byte[] whiteAttackers = new byte[64];
+    private final byte[] blackAttackers = new byte[64];
+    private long whiteAttacks;
+    private long blackAttacks;
+
+    /**
+     * Removes all attacks
+     */
+    void clear() {
+        for (int square = 0; square < 64; square++) {
+            whiteAttackers[square] = 0;
+            blackAttackers[square] = 0;
+        }
+        whiteAttacks = 0;
+        blackAttacks = 0;
+    }
+
+    /**
+     * Adds the attack of one piece on one square
+     *
+     * @param white  true if the attacking piece is white
+     * @param square int attacked square 0-63
+     */
+    void add(boolean white, int square) {
+        if (white) {
+            whiteAttackers[square]++;
+            whiteAttacks |= 1L << square;
+        } else {
+            blackAttackers[square]++;
+            blackAttacks |= 1L << square;
+        }
+    }
+
+    /**
+     * Adds the attacks of one piece
+     *
+     * @param white   true if the attacking piece is white
+     * @param squares long squares attacked by the piece
+     */
+    void addAll(boolean white, long squares) {
+        byte[] attackers = white ? whiteAttackers : blackAttackers;
+        for (long b = squares; b != 0; b &= b - 1) {
+            attackers[Long.numberOfTrailingZeros(b)]++;
+        }
+        if (white) whiteAttacks |= squares;
+        else blackAttacks |= squares;
+    }
+
+    /**
+     * Returns the squares attacked by a player
+     *
+     * @param white true for the squares attacked by white, false for black
+     * @return long attacked squares, bit 0 = a1
+     */
+    public long getAttacks(boolean white) {
+        return white ? whiteAttacks : blackAttacks;
+    }
+
+    /**
+     * Returns if a square is attacked by white
+     *
+     * @param square int square 0-63
+     * @return true if attacked
+     */
+    public boolean isAttackedByWhite(int square) {
+        return (whiteAttacks & (1L << square)) != 0;
+    }
+
+    /**
+     * Returns if a square is attacked by black
+     *
+     * @param square int square 0-63
+     * @return true if attacked
+     */
+    public boolean isAttackedByBlack(int square) {
+        return (blackAttacks & (1L << square)) != 0;
+    }
+
+    /**
+     * Returns the number of white pieces attacking a square
+     *
+     * @param square int square 0-63
+     * @return int number of attackers
+     */
+    public int getWhiteAttackers(int square) {
+        return whiteAttackers[square];
+    }
+
+    /**
+     * Returns the number of black pieces attacking a square
+     *
+     * @param square int square 0-63
+     * @return int number of attackers
+     */
+    public int getBlackAttackers(int square) {
+        return blackAttackers[square];
+    }
+}
@@ -0,0 +1,1267 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.database.client.DatabaseEntry;
+import org.apache.log4j.Logger;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Chessboard implementation based on bitboards, implements IChessGame
+ * <p>
+ * Every piece type of both colors is kept as a 64 bit occupancy mask, bit 0 is A1, bit 63 is H8. Knights, kings
+ * and pawns look up their targets in precomputed tables, rooks, bishops and queens in magic bitboard tables, so
+ * move generation and attack tests only need a handful of mask operations instead of walking the fields.
+ * </p>
+ * <p>
+ * The board produces the same successors as {@link ChessBoard}, only legal turns, none leaving the own king in
+ * check, and can be used wherever a ChessBoard is used. Which implementation is used is selected at startup by
+ * {@link ChessBoardFactory}.
+ * </p>
+ *
+ * @see de.htw.grischa.chess.IChessGame
+ * @see de.htw.grischa.chess.ChessBoard
+ */
+public class BitboardChessBoard implements IChessGame, IMailboxBoard, Serializable {
+    /**
+     * Logger
+     */
+    private final static Logger log = Logger.getLogger(BitboardChessBoard.class);
+    private static final String[] NAMES = {"x", "", "B", "S", "L", "T", "D", "K", "", "", "", "",
+            "b", "s", "l", "t", "d", "k"};
+    private static final short[] QUALITIES = {0, 0, -1, -3, -3, -5, -9, -100, 0, 0, 0, 0, 1, 3, 3, 5, 9, 100};
+
+    private static final int A1 = 0;
+    private static final int B1 = 1;
+    private static final int C1 = 2;
+    private static final int D1 = 3;
+    private static final int E1 = 4;
+    private static final int F1 = 5;
+    private static final int G1 = 6;
+    private static final int H1 = 7;
+    private static final int A8 = 56;
+    private static final int B8 = 57;
+    private static final int C8 = 58;
+    private static final int D8 = 59;
+    private static final int E8 = 60;
+    private static final int F8 = 61;
+    private static final int G8 = 62;
+    private static final int H8 = 63;
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+    private static final long RANK_1 = 0xffL;
+    private static final long RANK_3 = RANK_1 << 16;
+    private static final long RANK_6 = RANK_1 << 40;
+    private static final long RANK_8 = RANK_1 << 56;
+
+    private static final int WHITE_SHORT_ROCHADE = 1;
+    private static final int WHITE_LONG_ROCHADE = 2;
+    private static final int BLACK_SHORT_ROCHADE = 4;
+    private static final int BLACK_LONG_ROCHADE = 8;
+    private static final int ALL_ROCHADES = 15;
+    // Squares the king passes while castling, which must not be attacked
+    private static final long WHITE_SHORT_ROCHADE_PATH = 0x70L;
+    private static final long WHITE_LONG_ROCHADE_PATH = 0x1cL;
+    private static final long BLACK_SHORT_ROCHADE_PATH = 0x70L << 56;
+    private static final long BLACK_LONG_ROCHADE_PATH = 0x1cL << 56;
+    // Flags of the packed state on the undo stack
+    private static final int WHITE_LOST = 1 << 11;
+    private static final int BLACK_LOST = 1 << 12;
+    private static final int UNDO_STACK_SIZE = 64;
+    // Kinds of turns to generate
+    private static final int CAPTURES = 1;
+    private static final int QUIET_MOVES = 2;
+    private static final int ALL_MOVES = CAPTURES | QUIET_MOVES;
+    // Castling rights kept if a piece moves from or to the square
+    private static final int[] ROCHADE_MASKS = new int[64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_JUMPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1},
+            {-1, 2}};
+    private static final int[][] KING_STEPS = {{0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1}, {-1, -1}, {-1, 0},
+            {-1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    // Squares attacked by a white respectively black pawn standing on the square
+    private static final long[] WHITE_PAWN_ATTACKS = new long[64];
+    private static final long[] BLACK_PAWN_ATTACKS = new long[64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+    // Squares strictly between two squares on a common rank, file or diagonal, 0 if not aligned
+    private static final long[][] BETWEEN = new long[64][64];
+    // Whole rank, file or diagonal through two squares, 0 if not aligned
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_JUMPS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_STEPS);
+            WHITE_PAWN_ATTACKS[square] = stepAttacks(square, new int[][]{{-1, 1}, {1, 1}});
+            BLACK_PAWN_ATTACKS[square] = stepAttacks(square, new int[][]{{-1, -1}, {1, -1}});
+            ROCHADE_MASKS[square] = ALL_ROCHADES;
+        }
+        ROCHADE_MASKS[E1] = ALL_ROCHADES & ~(WHITE_SHORT_ROCHADE | WHITE_LONG_ROCHADE);
+        ROCHADE_MASKS[H1] = ALL_ROCHADES & ~WHITE_SHORT_ROCHADE;
+        ROCHADE_MASKS[A1] = ALL_ROCHADES & ~WHITE_LONG_ROCHADE;
+        ROCHADE_MASKS[E8] = ALL_ROCHADES & ~(BLACK_SHORT_ROCHADE | BLACK_LONG_ROCHADE);
+        ROCHADE_MASKS[H8] = ALL_ROCHADES & ~BLACK_SHORT_ROCHADE;
+        ROCHADE_MASKS[A8] = ALL_ROCHADES & ~BLACK_LONG_ROCHADE;
+
+        // Fixed seed, the tables are the same on every node
+        long[] seed = {0x2545F4914F6CDD1DL};
+        for (int square = 0; square < 64; square++) {
+            ROOK_MASKS[square] = relevantOccupancy(square, ROOK_DIRECTIONS);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            ROOK_ATTACKS[square] = new long[1 << Long.bitCount(ROOK_MASKS[square])];
+            ROOK_MAGICS[square] = findMagic(square, ROOK_MASKS[square], ROOK_ATTACKS[square], ROOK_DIRECTIONS, seed);
+
+            BISHOP_MASKS[square] = relevantOccupancy(square, BISHOP_DIRECTIONS);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            BISHOP_ATTACKS[square] = new long[1 << Long.bitCount(BISHOP_MASKS[square])];
+            BISHOP_MAGICS[square] = findMagic(square, BISHOP_MASKS[square], BISHOP_ATTACKS[square],
+                    BISHOP_DIRECTIONS, seed);
+
+            for (int[][] directions : new int[][][]{ROOK_DIRECTIONS, BISHOP_DIRECTIONS}) {
+                for (int[] direction : directions) {
+                    int[][] back = {{-direction[0], -direction[1]}};
+                    long ray = slidingAttacks(square, 0, new int[][]{direction});
+                    long line = ray | slidingAttacks(square, 0, back) | (1L << square);
+                    for (long b = ray; b != 0; b &= b - 1) {
+                        int target = Long.numberOfTrailingZeros(b);
+                        LINE[square][target] = line;
+                        BETWEEN[square][target] = ray & slidingAttacks(target, 0, back);
+                    }
+                }
+            }
+        }
+    }
+
+    // Occupancy of every piece, indexed by the piece constants of ChessBoard
+    private long[] pieces;
+    private long whitePieces;
+    private long blackPieces;
+    // Piece on every square 0-63
+    private byte[] squares;
+    private Player playerToMakeTurn;
+    private int rochades;
+    private int enPassantSquare = -1;
+    // Turn leading to this board
+    private int lastMove = Move.NO_MOVE;
+    // Zobrist key of the position, updated by every placed and removed piece
+    private long zobristKey;
+    // Sum of the PieceSquareTable values of all pieces, updated like the Zobrist key
+    private int pieceSquareTotal;
+    // Zobrist key of the pawns only, updated like the Zobrist key
+    private long pawnKey;
+    private int heuristicValue;
+    private int round_counter;
+    private boolean WhiteLost = false;
+    private boolean BlackLost = false;
+    private IChessGame parent;
+    // Turns taken back by unmakeMove, previous last move and packed state of every executed turn
+    private transient int[] undoMoves;
+    private transient int[] undoStates;
+    private transient int undoCount = 0;
+    // Lazily built view in the field layout of ChessBoard
+    private transient byte[] fields;
+    private transient boolean fieldsValid = false;
+    // Legality of the turns being generated: king of the player to make turn, squares resolving a check and pieces
+    // pinned to the king
+    private transient int kingSquare;
+    private transient long evasions;
+    private transient long pinned;
+    // Attacks of both players, valid while the Zobrist key equals attackMapKey
+    private transient AttackMap attackMap;
+    private transient long attackMapKey;
+
+    /**
+     * Constructor, empty board with white to move
+     */
+    public BitboardChessBoard() {
+        pieces = new long[ChessBoard.WHITE_KING + 1];
+        squares = new byte[64];
+        playerToMakeTurn = Player.WHITE;
+        rochades = ALL_ROCHADES;
+        round_counter = 0;
+        zobristKey = Zobrist.state(rochades, -1, playerToMakeTurn);
+    }
+
+    /**
+     * Constructor from existing board
+     *
+     * @param oldBoard BitboardChessBoard to copy
+     */
+    private BitboardChessBoard(BitboardChessBoard oldBoard) {
+        this.pieces = oldBoard.pieces.clone();
+        this.whitePieces = oldBoard.whitePieces;
+        this.blackPieces = oldBoard.blackPieces;
+        this.squares = oldBoard.squares.clone();
+        this.playerToMakeTurn = oldBoard.playerToMakeTurn;
+        this.rochades = oldBoard.rochades;
+        this.enPassantSquare = oldBoard.enPassantSquare;
+        this.round_counter = oldBoard.round_counter;
+        this.WhiteLost = oldBoard.WhiteLost;
+        this.BlackLost = oldBoard.BlackLost;
+        this.zobristKey = oldBoard.zobristKey;
+        this.pieceSquareTotal = oldBoard.pieceSquareTotal;
+        this.pawnKey = oldBoard.pawnKey;
+    }
+
+    /**
+     * Provides the standard starting position as BitboardChessBoard
+     *
+     * @return BitboardChessBoard with starting position
+     */
+    public static BitboardChessBoard getStandardChessBoard() {
+        BitboardChessBoard board = new BitboardChessBoard();
+        board.loadFromString(ChessBoard.getStandardChessBoard().getStringRepresentation());
+        return board;
+    }
+
+    /**
+     * Returns the squares attacked by a rook on the given square
+     *
+     * @param square   int square 0-63
+     * @param occupied long occupancy of the board
+     * @return long attacked squares
+     */
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_ATTACKS[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square])
+                >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Returns the squares attacked by a bishop on the given square
+     *
+     * @param square   int square 0-63
+     * @param occupied long occupancy of the board
+     * @return long attacked squares
+     */
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_ATTACKS[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square])
+                >>> BISHOP_SHIFTS[square])];
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int file = (square & 7) + step[0];
+            int rank = (square >>> 3) + step[1];
+            if (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                attacks |= 1L << (rank * 8 + file);
+            }
+        }
+        return attacks;
+    }
+
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int file = (square & 7) + direction[0];
+            int rank = (square >>> 3) + direction[1];
+            while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupied & bit) != 0) break;
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // Squares whose occupancy changes the attacks, the last square of every ray never does
+    private static long relevantOccupancy(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int file = (square & 7) + direction[0];
+            int rank = (square >>> 3) + direction[1];
+            while (file + direction[0] >= 0 && file + direction[0] < 8
+                    && rank + direction[1] >= 0 && rank + direction[1] < 8) {
+                mask |= 1L << (rank * 8 + file);
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Searches a magic number mapping every occupancy of the mask to a collision free table index and fills the
+     * table with the attacks
+     */
+    private static long findMagic(int square, long mask, long[] table, int[][] directions, long[] seed) {
+        int size = table.length;
+        int shift = 64 - Long.bitCount(mask);
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        int[] tried = new int[size];
+        long subset = 0;
+        int n = 0;
+        do {
+            occupancies[n] = subset;
+            attacks[n] = slidingAttacks(square, subset, directions);
+            n++;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        for (int attempt = 1; ; attempt++) {
+            long magic = nextRandom(seed) & nextRandom(seed) & nextRandom(seed);
+            if (Long.bitCount((mask * magic) & 0xff00000000000000L) < 6) continue;
+            boolean collision = false;
+            for (int i = 0; i < n && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (tried[index] != attempt) {
+                    tried[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) return magic;
+        }
+    }
+
+    private static long nextRandom(long[] seed) {
+        long x = seed[0];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        seed[0] = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    private static boolean isWhite(byte piece) {
+        return piece >= ChessBoard.WHITE_PAWN;
+    }
+
+    public Player getPlayerToMakeTurn() {
+        return playerToMakeTurn;
+    }
+
+    /**
+     * Setter playerToMakeTurn
+     *
+     * @param playerToMakeTurn player to set to
+     */
+    public void setPlayerToMakeTurn(Player playerToMakeTurn) {
+        zobristKey ^= getStateKey();
+        this.playerToMakeTurn = playerToMakeTurn;
+        zobristKey ^= getStateKey();
+    }
+
+    /**
+     * Calculates all possible next turns
+     *
+     * @return ArrayList of IChessGame with legal next turns
+     */
+    public ArrayList<IChessGame> getNextTurns() {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = generateMoves(moves);
+        ArrayList<IChessGame> nextTurns = new ArrayList<IChessGame>(count);
+        for (int i = 0; i < count; i++) {
+            BitboardChessBoard board = new BitboardChessBoard(this);
+            board.executeMove(moves[i]);
+            nextTurns.add(board);
+        }
+        return nextTurns;
+    }
+
+    /**
+     * Fills the array with all legal turns of the player to make turn
+     *
+     * @param moves int[] to fill, needs room for {@link Move#MAX_MOVES} turns
+     * @return int number of turns
+     * @see de.htw.grischa.chess.Move
+     */
+    public int generateMoves(int[] moves) {
+        return generate(moves, ALL_MOVES);
+    }
+
+    public int generateCaptures(int[] moves) {
+        return generate(moves, CAPTURES);
+    }
+
+    public int generateQuietMoves(int[] moves) {
+        return generate(moves, QUIET_MOVES);
+    }
+
+    /**
+     * Fills the array with the legal turns of the given kinds
+     * <p>
+     * Checking pieces and pinned pieces are determined once, then every piece only gets the targets resolving a
+     * check and staying on the line of its pin. Only the king needs an attack test per target.
+     * </p>
+     *
+     * @param moves int[] to fill
+     * @param kinds int {@link #CAPTURES}, {@link #QUIET_MOVES} or both
+     * @return int number of turns
+     */
+    private int generate(int[] moves, int kinds) {
+        int count = 0;
+        boolean white = playerToMakeTurn == Player.WHITE;
+        long occupied = whitePieces | blackPieces;
+        long targets = ((kinds & CAPTURES) != 0 ? (white ? blackPieces : whitePieces) : 0)
+                | ((kinds & QUIET_MOVES) != 0 ? ~occupied : 0);
+        byte offset = white ? (byte) 10 : (byte) 0;
+
+        kingSquare = getKing(playerToMakeTurn);
+        evasions = ~0L;
+        pinned = 0;
+        if (kingSquare >= 0) {
+            long checkers = attackers(kingSquare, !white, occupied);
+            if (checkers != 0) {
+                //Double check, only the king may move
+                if ((checkers & (checkers - 1)) != 0) {
+                    return addKingMoves(moves, count, white, targets, occupied);
+                }
+                evasions = checkers | BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+            }
+            pinned = pinnedPieces(white, occupied);
+        }
+        count = addKingMoves(moves, count, white, targets, occupied);
+        targets &= evasions;
+
+        count = generatePawnMoves(moves, count, white, kinds);
+
+        byte piece = (byte) (ChessBoard.BLACK_KNIGHT + offset);
+        for (long b = pieces[piece]; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves, count, from, piece, KNIGHT_ATTACKS[from] & targets & getPinLine(from));
+        }
+        piece = (byte) (ChessBoard.BLACK_BISHOP + offset);
+        for (long b = pieces[piece]; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves, count, from, piece, bishopAttacks(from, occupied) & targets & getPinLine(from));
+        }
+        piece = (byte) (ChessBoard.BLACK_ROOK + offset);
+        for (long b = pieces[piece]; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves, count, from, piece, rookAttacks(from, occupied) & targets & getPinLine(from));
+        }
+        piece = (byte) (ChessBoard.BLACK_QUEEN + offset);
+        for (long b = pieces[piece]; b != 0; b &= b - 1) {
+            int from = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves, count, from, piece,
+                    (rookAttacks(from, occupied) | bishopAttacks(from, occupied)) & targets & getPinLine(from));
+        }
+        if ((kinds & QUIET_MOVES) == 0 || evasions != ~0L) return count;
+        return generateRochades(moves, count, white, occupied);
+    }
+
+    private int addKingMoves(int[] moves, int count, boolean white, long targets, long occupied) {
+        if (kingSquare < 0) return count;
+        byte king = white ? ChessBoard.WHITE_KING : ChessBoard.BLACK_KING;
+        //The king must not hide behind itself from a sliding attacker
+        occupied ^= 1L << kingSquare;
+        for (long b = KING_ATTACKS[kingSquare] & targets; b != 0; b &= b - 1) {
+            int to = Long.numberOfTrailingZeros(b);
+            if (attackers(to, !white, occupied) == 0) {
+                moves[count++] = Move.create(kingSquare, to, king, squares[to], ChessBoard.EMPTY_FIELD, Move.NORMAL);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the pieces of a player pinned to his king by a sliding piece of the opponent
+     */
+    private long pinnedPieces(boolean white, long occupied) {
+        long own = white ? whitePieces : blackPieces;
+        byte offset = white ? (byte) 0 : (byte) 10;
+        long queens = pieces[ChessBoard.BLACK_QUEEN + offset];
+        long snipers = (rookAttacks(kingSquare, 0) & (pieces[ChessBoard.BLACK_ROOK + offset] | queens))
+                | (bishopAttacks(kingSquare, 0) & (pieces[ChessBoard.BLACK_BISHOP + offset] | queens));
+        long result = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long between = BETWEEN[kingSquare][Long.numberOfTrailingZeros(snipers)] & occupied;
+            if (between != 0 && (between & (between - 1)) == 0 && (between & own) != 0) result |= between;
+        }
+        return result;
+    }
+
+    // Squares a piece may move to without leaving its pin
+    private long getPinLine(int from) {
+        return (pinned & (1L << from)) == 0 ? ~0L : LINE[kingSquare][from];
+    }
+
+    private boolean isLegalPawnMove(int from, int to) {
+        return (evasions & (1L << to)) != 0 && (getPinLine(from) & (1L << to)) != 0;
+    }
+
+    // En passant removes two pieces from a line through the king, simply try it
+    private boolean isLegalEnPassant(int move) {
+        if (kingSquare < 0) return true;
+        boolean white = playerToMakeTurn == Player.WHITE;
+        makeMove(move);
+        boolean legal = attackers(kingSquare, !white, whitePieces | blackPieces) == 0;
+        unmakeMove();
+        return legal;
+    }
+
+    private int addMoves(int[] moves, int count, int from, byte piece, long targets) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves[count++] = Move.create(from, to, piece, squares[to], ChessBoard.EMPTY_FIELD, Move.NORMAL);
+        }
+        return count;
+    }
+
+    private int addPawnMoves(int[] moves, int count, long targets, int delta, byte pawn, long promotionRank) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int from = to - delta;
+            byte captured = squares[to];
+            if (!isLegalPawnMove(from, to)) continue;
+            if (((1L << to) & promotionRank) != 0) {
+                int offset = pawn - ChessBoard.BLACK_PAWN;
+                moves[count++] = Move.create(from, to, pawn, captured, ChessBoard.BLACK_QUEEN + offset, Move.NORMAL);
+                moves[count++] = Move.create(from, to, pawn, captured, ChessBoard.BLACK_ROOK + offset, Move.NORMAL);
+                moves[count++] = Move.create(from, to, pawn, captured, ChessBoard.BLACK_BISHOP + offset, Move.NORMAL);
+                moves[count++] = Move.create(from, to, pawn, captured, ChessBoard.BLACK_KNIGHT + offset, Move.NORMAL);
+            } else {
+                moves[count++] = Move.create(from, to, pawn, captured, ChessBoard.EMPTY_FIELD, Move.NORMAL);
+            }
+        }
+        return count;
+    }
+
+    // Promotions belong to the captures
+    private int generatePawnMoves(int[] moves, int count, boolean white, int kinds) {
+        long empty = ~(whitePieces | blackPieces);
+        boolean captures = (kinds & CAPTURES) != 0;
+        boolean quiet = (kinds & QUIET_MOVES) != 0;
+        if (white) {
+            long pawns = pieces[ChessBoard.WHITE_PAWN];
+            long single = (pawns << 8) & empty;
+            if (captures) {
+                count = addPawnMoves(moves, count, ((pawns & ~FILE_A) << 7) & blackPieces, 7,
+                        ChessBoard.WHITE_PAWN, RANK_8);
+                count = addPawnMoves(moves, count, ((pawns & ~FILE_H) << 9) & blackPieces, 9,
+                        ChessBoard.WHITE_PAWN, RANK_8);
+            }
+            long pushes = single & ((captures ? RANK_8 : 0) | (quiet ? ~RANK_8 : 0));
+            count = addPawnMoves(moves, count, pushes, 8, ChessBoard.WHITE_PAWN, RANK_8);
+            for (long b = quiet ? ((single & RANK_3) << 8) & empty : 0; b != 0; b &= b - 1) {
+                int to = Long.numberOfTrailingZeros(b);
+                if (!isLegalPawnMove(to - 16, to)) continue;
+                moves[count++] = Move.create(to - 16, to, ChessBoard.WHITE_PAWN, ChessBoard.EMPTY_FIELD,
+                        ChessBoard.EMPTY_FIELD, Move.DOUBLE_PAWN_PUSH);
+            }
+            if (captures && enPassantSquare >= 0) {
+                for (long b = BLACK_PAWN_ATTACKS[enPassantSquare] & pawns; b != 0; b &= b - 1) {
+                    int move = Move.create(Long.numberOfTrailingZeros(b), enPassantSquare, ChessBoard.WHITE_PAWN,
+                            ChessBoard.BLACK_PAWN, ChessBoard.EMPTY_FIELD, Move.EN_PASSANT);
+                    if (isLegalEnPassant(move)) moves[count++] = move;
+                }
+            }
+        } else {
+            long pawns = pieces[ChessBoard.BLACK_PAWN];
+            long single = (pawns >>> 8) & empty;
+            if (captures) {
+                count = addPawnMoves(moves, count, ((pawns & ~FILE_A) >>> 9) & whitePieces, -9,
+                        ChessBoard.BLACK_PAWN, RANK_1);
+                count = addPawnMoves(moves, count, ((pawns & ~FILE_H) >>> 7) & whitePieces, -7,
+                        ChessBoard.BLACK_PAWN, RANK_1);
+            }
+            long pushes = single & ((captures ? RANK_1 : 0) | (quiet ? ~RANK_1 : 0));
+            count = addPawnMoves(moves, count, pushes, -8, ChessBoard.BLACK_PAWN, RANK_1);
+            for (long b = quiet ? ((single & RANK_6) >>> 8) & empty : 0; b != 0; b &= b - 1) {
+                int to = Long.numberOfTrailingZeros(b);
+                if (!isLegalPawnMove(to + 16, to)) continue;
+                moves[count++] = Move.create(to + 16, to, ChessBoard.BLACK_PAWN, ChessBoard.EMPTY_FIELD,
+                        ChessBoard.EMPTY_FIELD, Move.DOUBLE_PAWN_PUSH);
+            }
+            if (captures && enPassantSquare >= 0) {
+                for (long b = WHITE_PAWN_ATTACKS[enPassantSquare] & pawns; b != 0; b &= b - 1) {
+                    int move = Move.create(Long.numberOfTrailingZeros(b), enPassantSquare, ChessBoard.BLACK_PAWN,
+                            ChessBoard.WHITE_PAWN, ChessBoard.EMPTY_FIELD, Move.EN_PASSANT);
+                    if (isLegalEnPassant(move)) moves[count++] = move;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int generateRochades(int[] moves, int count, boolean white, long occupied) {
+        if (white) {
+            if (squares[E1] != ChessBoard.WHITE_KING) return count;
+            if ((rochades & WHITE_SHORT_ROCHADE) != 0 && squares[H1] == ChessBoard.WHITE_ROOK
+                    && (occupied & ((1L << F1) | (1L << G1))) == 0
+                    && !isAnyAttacked(WHITE_SHORT_ROCHADE_PATH, false)) {
+                moves[count++] = Move.create(E1, G1, ChessBoard.WHITE_KING, ChessBoard.EMPTY_FIELD,
+                        ChessBoard.EMPTY_FIELD, Move.CASTLING);
+            }
+            if ((rochades & WHITE_LONG_ROCHADE) != 0 && squares[A1] == ChessBoard.WHITE_ROOK
+                    && (occupied & ((1L << B1) | (1L << C1) | (1L << D1))) == 0
+                    && !isAnyAttacked(WHITE_LONG_ROCHADE_PATH, false)) {
+                moves[count++] = Move.create(E1, C1, ChessBoard.WHITE_KING, ChessBoard.EMPTY_FIELD,
+                        ChessBoard.EMPTY_FIELD, Move.CASTLING);
+            }
+        } else {
+            if (squares[E8] != ChessBoard.BLACK_KING) return count;
+            if ((rochades & BLACK_SHORT_ROCHADE) != 0 && squares[H8] == ChessBoard.BLACK_ROOK
+                    && (occupied & ((1L << F8) | (1L << G8))) == 0
+                    && !isAnyAttacked(BLACK_SHORT_ROCHADE_PATH, true)) {
+                moves[count++] = Move.create(E8, G8, ChessBoard.BLACK_KING, ChessBoard.EMPTY_FIELD,
+                        ChessBoard.EMPTY_FIELD, Move.CASTLING);
+            }
+            if ((rochades & BLACK_LONG_ROCHADE) != 0 && squares[A8] == ChessBoard.BLACK_ROOK
+                    && (occupied & ((1L << B8) | (1L << C8) | (1L << D8))) == 0
+                    && !isAnyAttacked(BLACK_LONG_ROCHADE_PATH, true)) {
+                moves[count++] = Move.create(E8, C8, ChessBoard.BLACK_KING, ChessBoard.EMPTY_FIELD,
+                        ChessBoard.EMPTY_FIELD, Move.CASTLING);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns if any of the squares is attacked by a player
+     * <p>
+     * Reads the attack map if it is already built for this position, otherwise tests the squares one by one, which
+     * is cheaper than building the whole map for a few squares.
+     * </p>
+     *
+     * @param squares long squares to test
+     * @param byWhite true to test for white attackers, false for black
+     * @return true if at least one square is attacked
+     */
+    private boolean isAnyAttacked(long squares, boolean byWhite) {
+        if (attackMap != null && attackMapKey == zobristKey) return (attackMap.getAttacks(byWhite) & squares) != 0;
+        for (long b = squares; b != 0; b &= b - 1) {
+            if (isSquareAttacked(Long.numberOfTrailingZeros(b), byWhite)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns if a square is attacked by a player
+     *
+     * @param square  int square 0-63
+     * @param byWhite true to test for white attackers, false for black
+     * @return true if attacked
+     */
+    boolean isSquareAttacked(int square, boolean byWhite) {
+        return attackers(square, byWhite, whitePieces | blackPieces) != 0;
+    }
+
+    /**
+     * Returns the pieces of a player attacking a square
+     *
+     * @param square   int square 0-63
+     * @param byWhite  true for the white attackers, false for black
+     * @param occupied long occupancy blocking the sliding pieces
+     * @return long squares of the attackers
+     */
+    private long attackers(int square, boolean byWhite, long occupied) {
+        byte offset = byWhite ? (byte) 10 : (byte) 0;
+        long queens = pieces[ChessBoard.BLACK_QUEEN + offset];
+        return ((byWhite ? BLACK_PAWN_ATTACKS[square] : WHITE_PAWN_ATTACKS[square])
+                & pieces[ChessBoard.BLACK_PAWN + offset])
+                | (KNIGHT_ATTACKS[square] & pieces[ChessBoard.BLACK_KNIGHT + offset])
+                | (KING_ATTACKS[square] & pieces[ChessBoard.BLACK_KING + offset])
+                | (bishopAttacks(square, occupied) & (pieces[ChessBoard.BLACK_BISHOP + offset] | queens))
+                | (rookAttacks(square, occupied) & (pieces[ChessBoard.BLACK_ROOK + offset] | queens));
+    }
+
+    private void putPiece(byte piece, int square) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        if (isWhite(piece)) whitePieces |= bit;
+        else blackPieces |= bit;
+        squares[square] = piece;
+        zobristKey ^= Zobrist.PIECES[piece][square];
+        pieceSquareTotal += PieceSquareTable.VALUES[piece][square];
+        if (piece == ChessBoard.WHITE_PAWN || piece == ChessBoard.BLACK_PAWN) pawnKey ^= Zobrist.PIECES[piece][square];
+    }
+
+    private void removePiece(byte piece, int square) {
+        long bit = ~(1L << square);
+        pieces[piece] &= bit;
+        whitePieces &= bit;
+        blackPieces &= bit;
+        squares[square] = ChessBoard.EMPTY_FIELD;
+        zobristKey ^= Zobrist.PIECES[piece][square];
+        pieceSquareTotal -= PieceSquareTable.VALUES[piece][square];
+        if (piece == ChessBoard.WHITE_PAWN || piece == ChessBoard.BLACK_PAWN) pawnKey ^= Zobrist.PIECES[piece][square];
+    }
+
+    // Part of the Zobrist key not depending on the pieces
+    private long getStateKey() {
+        return Zobrist.state(rochades, enPassantSquare < 0 ? -1 : enPassantSquare & 7, playerToMakeTurn);
+    }
+
+    /**
+     * Executes a legal turn of the player to make turn on this board
+     *
+     * @param move int packed move
+     */
+    private void executeMove(int move) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        byte piece = Move.getPiece(move);
+        byte captured = Move.getCaptured(move);
+        byte promotion = Move.getPromotion(move);
+        int flag = Move.getFlag(move);
+
+        zobristKey ^= getStateKey();
+        if (captured != ChessBoard.EMPTY_FIELD) {
+            if (flag == Move.EN_PASSANT) {
+                removePiece(captured, isWhite(piece) ? to - 8 : to + 8);
+            } else {
+                removePiece(captured, to);
+            }
+            if (captured == ChessBoard.BLACK_KING) BlackLost = true;
+            if (captured == ChessBoard.WHITE_KING) WhiteLost = true;
+        }
+        removePiece(piece, from);
+        putPiece(promotion != ChessBoard.EMPTY_FIELD ? promotion : piece, to);
+
+        if (flag == Move.CASTLING) {
+            switch (to) {
+                case G1:
+                    removePiece(ChessBoard.WHITE_ROOK, H1);
+                    putPiece(ChessBoard.WHITE_ROOK, F1);
+                    break;
+                case C1:
+                    removePiece(ChessBoard.WHITE_ROOK, A1);
+                    putPiece(ChessBoard.WHITE_ROOK, D1);
+                    break;
+                case G8:
+                    removePiece(ChessBoard.BLACK_ROOK, H8);
+                    putPiece(ChessBoard.BLACK_ROOK, F8);
+                    break;
+                case C8:
+                    removePiece(ChessBoard.BLACK_ROOK, A8);
+                    putPiece(ChessBoard.BLACK_ROOK, D8);
+                    break;
+            }
+        }
+
+        rochades &= ROCHADE_MASKS[from] & ROCHADE_MASKS[to];
+        enPassantSquare = flag == Move.DOUBLE_PAWN_PUSH ? (from + to) >>> 1 : -1;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter++;
+        lastMove = move;
+        fieldsValid = false;
+        zobristKey ^= getStateKey();
+    }
+
+    /**
+     * Executes a turn on this board, the turn can be taken back by {@link #unmakeMove()}
+     *
+     * @param move int packed move generated by {@link #generateMoves(int[])}
+     */
+    public void makeMove(int move) {
+        pushUndo();
+        executeMove(move);
+    }
+
+    /**
+     * Passes the turn to the opponent without moving, the null move can be taken back by {@link #unmakeMove()}
+     */
+    public void makeNullMove() {
+        pushUndo();
+        zobristKey ^= getStateKey();
+        enPassantSquare = -1;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter++;
+        lastMove = Move.NO_MOVE;
+        zobristKey ^= getStateKey();
+    }
+
+    /**
+     * Saves the state a turn cannot restore by itself on the undo stack
+     */
+    private void pushUndo() {
+        if (undoMoves == null) {
+            undoMoves = new int[UNDO_STACK_SIZE];
+            undoStates = new int[UNDO_STACK_SIZE];
+        } else if (undoCount == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoCount * 2);
+            undoStates = Arrays.copyOf(undoStates, undoCount * 2);
+        }
+        undoMoves[undoCount] = lastMove;
+        undoStates[undoCount] = rochades | ((enPassantSquare + 1) << 4) | (WhiteLost ? WHITE_LOST : 0)
+                | (BlackLost ? BLACK_LOST : 0);
+        undoCount++;
+    }
+
+    /**
+     * Takes back the last turn executed by {@link #makeMove(int)} or {@link #makeNullMove()}
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No turn to take back");
+        }
+        if (lastMove == Move.NO_MOVE) {
+            unmakeNullMove();
+            return;
+        }
+        int move = lastMove;
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        byte piece = Move.getPiece(move);
+        byte captured = Move.getCaptured(move);
+        int flag = Move.getFlag(move);
+
+        zobristKey ^= getStateKey();
+        if (flag == Move.CASTLING) {
+            switch (to) {
+                case G1:
+                    removePiece(ChessBoard.WHITE_ROOK, F1);
+                    putPiece(ChessBoard.WHITE_ROOK, H1);
+                    break;
+                case C1:
+                    removePiece(ChessBoard.WHITE_ROOK, D1);
+                    putPiece(ChessBoard.WHITE_ROOK, A1);
+                    break;
+                case G8:
+                    removePiece(ChessBoard.BLACK_ROOK, F8);
+                    putPiece(ChessBoard.BLACK_ROOK, H8);
+                    break;
+                case C8:
+                    removePiece(ChessBoard.BLACK_ROOK, D8);
+                    putPiece(ChessBoard.BLACK_ROOK, A8);
+                    break;
+            }
+        }
+        removePiece(squares[to], to);
+        putPiece(piece, from);
+        if (captured != ChessBoard.EMPTY_FIELD) {
+            if (flag == Move.EN_PASSANT) {
+                putPiece(captured, isWhite(piece) ? to - 8 : to + 8);
+            } else {
+                putPiece(captured, to);
+            }
+        }
+
+        undoCount--;
+        int state = undoStates[undoCount];
+        lastMove = undoMoves[undoCount];
+        rochades = state & ALL_ROCHADES;
+        enPassantSquare = ((state >>> 4) & 0x7f) - 1;
+        WhiteLost = (state & WHITE_LOST) != 0;
+        BlackLost = (state & BLACK_LOST) != 0;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter--;
+        fieldsValid = false;
+        zobristKey ^= getStateKey();
+    }
+
+    /**
+     * Takes back a null move, only the player to make turn and the en passant square have changed
+     */
+    private void unmakeNullMove() {
+        zobristKey ^= getStateKey();
+        undoCount--;
+        lastMove = undoMoves[undoCount];
+        enPassantSquare = ((undoStates[undoCount] >>> 4) & 0x7f) - 1;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter--;
+        zobristKey ^= getStateKey();
+    }
+
+    public IChessGame copy() {
+        BitboardChessBoard board = new BitboardChessBoard(this);
+        board.lastMove = this.lastMove;
+        board.heuristicValue = this.heuristicValue;
+        board.parent = this.parent;
+        return board;
+    }
+
+    public void writePosition(ByteBuffer buffer) {
+        PositionCodec.encode(getFields(), playerToMakeTurn, canWhiteShortRochade(), canWhiteLongRochade(),
+                canBlackShortRochade(), canBlackLongRochade(), enPassantSquare, round_counter, buffer);
+    }
+
+    public void readPosition(ByteBuffer buffer) {
+        byte[] view = getFields();
+        int state = PositionCodec.decode(buffer, view);
+        Arrays.fill(pieces, 0L);
+        whitePieces = 0;
+        blackPieces = 0;
+        Arrays.fill(squares, ChessBoard.EMPTY_FIELD);
+        playerToMakeTurn = PositionCodec.getPlayer(state);
+        rochades = (PositionCodec.canRochade(state, true, true) ? WHITE_SHORT_ROCHADE : 0)
+                | (PositionCodec.canRochade(state, true, false) ? WHITE_LONG_ROCHADE : 0)
+                | (PositionCodec.canRochade(state, false, true) ? BLACK_SHORT_ROCHADE : 0)
+                | (PositionCodec.canRochade(state, false, false) ? BLACK_LONG_ROCHADE : 0);
+        enPassantSquare = PositionCodec.getEnPassantSquare(state);
+        round_counter = PositionCodec.getTurnsMade(state);
+        WhiteLost = false;
+        BlackLost = false;
+        lastMove = Move.NO_MOVE;
+        undoCount = 0;
+        zobristKey = getStateKey();
+        pieceSquareTotal = 0;
+        pawnKey = 0;
+        for (int square = 0; square < 64; square++) {
+            byte piece = view[Move.squareToField(square)];
+            if (piece != ChessBoard.EMPTY_FIELD) putPiece(piece, square);
+        }
+        fieldsValid = true;
+    }
+
+    /**
+     * Overwrites this board with the position of another board, reusing the arrays of this board
+     * <p>
+     * Same result as {@link #copy()} without allocating, turns made on this board before can not be taken back
+     * afterwards.
+     * </p>
+     *
+     * @param board BitboardChessBoard to copy
+     * @see SearchArena
+     */
+    void copyFrom(BitboardChessBoard board) {
+        System.arraycopy(board.pieces, 0, this.pieces, 0, this.pieces.length);
+        this.whitePieces = board.whitePieces;
+        this.blackPieces = board.blackPieces;
+        System.arraycopy(board.squares, 0, this.squares, 0, this.squares.length);
+        this.playerToMakeTurn = board.playerToMakeTurn;
+        this.rochades = board.rochades;
+        this.enPassantSquare = board.enPassantSquare;
+        this.round_counter = board.round_counter;
+        this.WhiteLost = board.WhiteLost;
+        this.BlackLost = board.BlackLost;
+        this.zobristKey = board.zobristKey;
+        this.pieceSquareTotal = board.pieceSquareTotal;
+        this.pawnKey = board.pawnKey;
+        this.lastMove = board.lastMove;
+        this.heuristicValue = board.heuristicValue;
+        this.parent = board.parent;
+        this.undoCount = 0;
+        this.fieldsValid = false;
+    }
+
+    /**
+     * Calculates the material of the board for selected player
+     *
+     * @param player to calculated the quality for
+     * @return int quality of the board
+     */
+    public int getQuality(Player player) {
+        int quality = 0;
+        for (byte piece = ChessBoard.BLACK_PAWN; piece <= ChessBoard.WHITE_KING; piece++) {
+            quality += QUALITIES[piece] * Long.bitCount(pieces[piece]);
+        }
+        if (player == Player.BLACK) quality *= -1;
+        return quality;
+    }
+
+    public String getReadableString() {
+        StringBuilder s = new StringBuilder("  ");
+        for (int x = 0; x < 8; x++) {
+            s.append((char) ('A' + x)).append(' ');
+        }
+        s.append('\n');
+        for (int y = 7; y >= 0; y--) {
+            s.append(y + 1).append(' ');
+            for (int x = 0; x < 8; x++) {
+                byte piece = squares[y * 8 + x];
+                s.append(piece == ChessBoard.EMPTY_FIELD ? " " : NAMES[piece]).append(' ');
+            }
+            s.append('\n');
+        }
+        return s.toString();
+    }
+
+    public String getStringRepresentation() {
+        StringBuilder game = new StringBuilder(65);
+        for (int square = 0; square < 64; square++) {
+            game.append(NAMES[squares[square]]);
+        }
+        game.append(playerToMakeTurn == Player.WHITE ? 'w' : 'S');
+        return game.toString();
+    }
+
+    /**
+     * Overwrites this board with a position in the format of {@link #getStringRepresentation()}
+     * <p>
+     * Like {@link #readPosition(ByteBuffer)} the board starts over: turns made before can not be taken back, the
+     * turn counter is 0 and nobody has lost. The format holds neither castling rights nor an en passant square, so
+     * there is no en passant square and the castling rights are kept, callers have to set them by
+     * {@link #setRochade(boolean, boolean, boolean, boolean)} afterwards.
+     * </p>
+     *
+     * @param s String 64 squares from a1 to h8 and the player to move
+     */
+    public void loadFromString(String s) {
+        pieces = new long[ChessBoard.WHITE_KING + 1];
+        whitePieces = 0;
+        blackPieces = 0;
+        squares = new byte[64];
+        enPassantSquare = -1;
+        fieldsValid = false;
+        playerToMakeTurn = s.charAt(64) == 'w' ? Player.WHITE : Player.BLACK;
+        round_counter = 0;
+        WhiteLost = false;
+        BlackLost = false;
+        lastMove = Move.NO_MOVE;
+        undoCount = 0;
+        zobristKey = getStateKey();
+        pieceSquareTotal = 0;
+        pawnKey = 0;
+
+        for (int square = 0; square < 64; square++) {
+            for (byte piece = ChessBoard.BLACK_PAWN; piece <= ChessBoard.WHITE_KING; piece++) {
+                if (NAMES[piece].length() > 0 && NAMES[piece].charAt(0) == s.charAt(square)) {
+                    putPiece(piece, square);
+                    break;
+                }
+            }
+        }
+    }
+
+    public String getHash() {
+        StringBuilder hash = new StringBuilder();
+        int empty = 0;
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] == ChessBoard.EMPTY_FIELD) empty++;
+            else {
+                if (empty >= 2) hash.append(empty).append('m');
+                else if (empty == 1) hash.append('l');
+                empty = 0;
+                hash.append(squares[square]);
+            }
+        }
+        return hash.toString();
+    }
+
+    public IChessGame makeTurn(String turn) throws Exception {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (Move.matches(moves[i], turn)) {
+                BitboardChessBoard board = new BitboardChessBoard(this);
+                board.executeMove(moves[i]);
+                return board;
+            }
+        }
+        throw new Exception(turn + " :Zug nicht in Liste legaler Zuege gefunden;");
+    }
+
+    public int compareTo(IChessGame o) {
+        return this.heuristicValue - o.getHeuristicValue();
+    }
+
+    public int getHeuristicValue() {
+        return heuristicValue;
+    }
+
+    public String getTurnNotation() {
+        if (lastMove == Move.NO_MOVE) return null;
+        return Move.toNotation(lastMove);
+    }
+
+    public int getTurnsMade() {
+        return round_counter;
+    }
+
+    private int getKing(Player player) {
+        long king = pieces[player == Player.WHITE ? ChessBoard.WHITE_KING : ChessBoard.BLACK_KING];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    public GameState getGameState() {
+        if (!this.isLegalBoard()) return GameState.ILLEGAL;
+
+        if (generateMoves(new int[Move.MAX_MOVES]) == 0) {
+            return isInCheck() ? GameState.MATT : GameState.DRAW;
+        }
+        return GameState.LEGAL;
+    }
+
+    public boolean isInCheck() {
+        int kingsSquare = getKing(playerToMakeTurn);
+        if (kingsSquare == -1) return false;
+        if (playerToMakeTurn == Player.WHITE) return getAttackMap().isAttackedByBlack(kingsSquare);
+        return getAttackMap().isAttackedByWhite(kingsSquare);
+    }
+
+    public int getPieceCount(byte piece) {
+        return Long.bitCount(pieces[piece]);
+    }
+
+    public int getPieceSquareTotal() {
+        return pieceSquareTotal;
+    }
+
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    public AttackMap getAttackMap() {
+        if (attackMap != null && attackMapKey == zobristKey) return attackMap;
+        if (attackMap == null) attackMap = new AttackMap();
+        attackMap.clear();
+        long occupied = whitePieces | blackPieces;
+        for (int side = 0; side < 2; side++) {
+            boolean white = side == 0;
+            int offset = white ? 10 : 0;
+            for (long b = pieces[ChessBoard.BLACK_PAWN + offset]; b != 0; b &= b - 1) {
+                int square = Long.numberOfTrailingZeros(b);
+                attackMap.addAll(white, white ? WHITE_PAWN_ATTACKS[square] : BLACK_PAWN_ATTACKS[square]);
+            }
+            for (long b = pieces[ChessBoard.BLACK_KNIGHT + offset]; b != 0; b &= b - 1) {
+                attackMap.addAll(white, KNIGHT_ATTACKS[Long.numberOfTrailingZeros(b)]);
+            }
+            for (long b = pieces[ChessBoard.BLACK_BISHOP + offset] | pieces[ChessBoard.BLACK_QUEEN + offset];
+                 b != 0; b &= b - 1) {
+                attackMap.addAll(white, bishopAttacks(Long.numberOfTrailingZeros(b), occupied));
+            }
+            for (long b = pieces[ChessBoard.BLACK_ROOK + offset] | pieces[ChessBoard.BLACK_QUEEN + offset];
+                 b != 0; b &= b - 1) {
+                attackMap.addAll(white, rookAttacks(Long.numberOfTrailingZeros(b), occupied));
+            }
+            for (long b = pieces[ChessBoard.BLACK_KING + offset]; b != 0; b &= b - 1) {
+                attackMap.addAll(white, KING_ATTACKS[Long.numberOfTrailingZeros(b)]);
+            }
+        }
+        attackMapKey = zobristKey;
+        return attackMap;
+    }
+
+    public boolean isLegalBoard() {
+        Player opponent = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        int kingsSquare = getKing(opponent);
+        if (kingsSquare == -1) return false;
+        return !isSquareAttacked(kingsSquare, playerToMakeTurn == Player.WHITE);
+    }
+
+    public void setRochade(boolean k_Castling, boolean q_Castling, boolean K_Castling, boolean Q_Castling) {
+        zobristKey ^= getStateKey();
+        rochades = (k_Castling ? WHITE_SHORT_ROCHADE : 0) | (q_Castling ? WHITE_LONG_ROCHADE : 0)
+                | (K_Castling ? BLACK_SHORT_ROCHADE : 0) | (Q_Castling ? BLACK_LONG_ROCHADE : 0);
+        zobristKey ^= getStateKey();
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int square) {
+        zobristKey ^= getStateKey();
+        enPassantSquare = square < 0 ? -1 : square;
+        zobristKey ^= getStateKey();
+    }
+
+    public boolean hasWhiteLost() {
+        return WhiteLost;
+    }
+
+    public boolean hasBlackLost() {
+        return BlackLost;
+    }
+
+    /**
+     * Generates database-String for current board including hash, depth and value
+     * <p>
+     * Syntax: Hash#Depth#Value
+     * </p>
+     *
+     * @return Hashed Chessboard String with depth and value
+     * @see de.htw.grischa.chess.ChessBoard#toDatabase(Player, int)
+     */
+    public String toDatabase(Player current, int depth) {
+        String hash = Zobrist.toDatabaseHash(this.zobristKey);
+        return hash + DatabaseEntry.SEGMENTS_DELIMITER + DatabaseEntry.convert(depth, 4) +
+                DatabaseEntry.SEGMENTS_DELIMITER + DatabaseEntry.convert(this.getQuality(current), 4);
+    }
+
+    /**
+     * Generates the same MD5-Hash as {@link ChessBoard#getMD5Hash()}, so both boards share the database
+     *
+     * @return String representation of MD5-Hash from Board
+     */
+    public String getMD5Hash() {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            log.fatal("MD5 not available");
+            return null;
+        }
+        String original = this.getStringRepresentation() + String.valueOf(canWhiteShortRochade()) +
+                String.valueOf(canWhiteLongRochade()) + String.valueOf(canBlackShortRochade()) +
+                String.valueOf(canBlackLongRochade());
+        if (enPassantSquare >= 0) original += enPassantSquare;
+        md.update(original.getBytes());
+        byte[] digest = md.digest();
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest) {
+            String temp = Integer.toHexString((b & 0xff));
+            sb.append(temp.length() == 1 ? DatabaseEntry.convert(0, 2 - temp.length()) + temp : temp);
+        }
+        return sb.toString();
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    @Override
+    public IChessGame getParent() {
+        return this.parent;
+    }
+
+    @Override
+    public void setParent(IChessGame parent) {
+        this.parent = parent;
+    }
+
+    public byte[] getFields() {
+        if (fields == null) {
+            fields = new byte[120];
+            for (int i = 0; i < 120; i++) {
+                fields[i] = ChessBoard.ILLEGAL_FIELD;
+            }
+        }
+        if (!fieldsValid) {
+            for (int square = 0; square < 64; square++) {
+                fields[Move.squareToField(square)] = squares[square];
+            }
+            fieldsValid = true;
+        }
+        return fields;
+    }
+
+    public boolean IsFieldAttackedByWhite(int field) {
+        return isSquareAttacked(Move.fieldToSquare(field), true);
+    }
+
+    public boolean IsFieldAttackedByBlack(int field) {
+        return isSquareAttacked(Move.fieldToSquare(field), false);
+    }
+
+    public boolean canWhiteShortRochade() {
+        return (rochades & WHITE_SHORT_ROCHADE) != 0;
+    }
+
+    public boolean canWhiteLongRochade() {
+        return (rochades & WHITE_LONG_ROCHADE) != 0;
+    }
+
+    public boolean canBlackShortRochade() {
+        return (rochades & BLACK_SHORT_ROCHADE) != 0;
+    }
+
+    public boolean canBlackLongRochade() {
+        return (rochades & BLACK_LONG_ROCHADE) != 0;
+    }
+}
@@ -4,9 +4,11 @@ import de.htw.grischa.chess.database.client.DatabaseEntry;
 import org.apache.log4j.Logger;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Chessboard implementation, implements IChessGame
@@ -21,7 +23,7 @@ import java.util.ArrayList;
  * @version 1.3
  * @see de.htw.grischa.chess.IChessGame
  */
-public class ChessBoard implements IChessGame, Serializable {
+public class ChessBoard implements IChessGame, IMailboxBoard, Serializable {
     public static final byte EMPTY_FIELD = 0;
     public static final byte ILLEGAL_FIELD = -1;
     public static final byte BLACK_PAWN = 2;
@@ -43,24 +45,64 @@ public class ChessBoard implements IChessGame, Serializable {
     private static final String[] NAMES = {"x", "", "B", "S", "L", "T", "D", "K", "", "", "", "",
             "b", "s", "l", "t", "d", "k"};
     private static final short[] QUALITIES = {0, 0, -1, -3, -3, -5, -9, -100, 0, 0, 0, 0, 1, 3, 3, 5, 9, 100};
-    private static final int[] ROOK_DIRECTIONS = {-10, -1, 1, 10};
-    private static final int[] KNIGHT_DIRECTIONS = {-21, -19, -8, 12, 21, 19, 8, -12};
-    private static final int[] BISHOP_DIRECTIONS = {-11, -9, 9, 11};
-    private static final int[] QUEEN_DIRECTIONS = {-11, -10, -9, -1, 1, 9, 10, 11};
+    private static final int[] ROOK_DIRECTIONS = MailboxTables.ROOK_DIRECTIONS;
+    private static final int[] BISHOP_DIRECTIONS = MailboxTables.BISHOP_DIRECTIONS;
+    private static final int[] QUEEN_DIRECTIONS = MailboxTables.QUEEN_DIRECTIONS;
+    private static final int UNDO_STACK_SIZE = 64;
+    // Flags of the packed state on the undo stack
+    private static final int WHITE_SHORT_ROCHADE = 1;
+    private static final int WHITE_LONG_ROCHADE = 2;
+    private static final int BLACK_SHORT_ROCHADE = 4;
+    private static final int BLACK_LONG_ROCHADE = 8;
+    private static final int WHITE_LOST = 1 << 11;
+    private static final int BLACK_LOST = 1 << 12;
+    // Kinds of turns to generate
+    private static final int CAPTURES = 1;
+    private static final int QUIET_MOVES = 2;
+    private static final int ALL_MOVES = CAPTURES | QUIET_MOVES;
+    // Squares the king passes while castling, which must not be attacked, bit 0 = a1
+    private static final long WHITE_SHORT_ROCHADE_PATH = 0x70L;
+    private static final long WHITE_LONG_ROCHADE_PATH = 0x1cL;
+    private static final long BLACK_SHORT_ROCHADE_PATH = 0x70L << 56;
+    private static final long BLACK_LONG_ROCHADE_PATH = 0x1cL << 56;
     public byte[] fields;
     public boolean BlackCanLongRochade;
     public boolean BlackCanShortRochade;
     public boolean WhiteCanLongRochade;
     public boolean WhiteCanShortRochade;
     private Player playerToMakeTurn;
-    private ArrayList<IChessGame> entPassent;
     //private ArrayList<IChessGame> nextTurns;
     private int heuristicValue;
-    private String TurnNotation;
     private int round_counter;
     private boolean WhiteLost = false;
     private boolean BlackLost = false;
     private IChessGame parent;
+    // Field a pawn moves to when capturing en passant, -1 if not possible
+    private int enPassantField = -1;
+    // Turn leading to this board, notation is built on request
+    private int lastMove = Move.NO_MOVE;
+    // Zobrist key of the position, updated by every executed turn
+    private long zobristKey;
+    // Number of pieces of every kind and sum of their PieceSquareTable values, updated like the Zobrist key
+    private int[] pieceCounts;
+    private int pieceSquareTotal;
+    // Zobrist key of the pawns only, updated like the Zobrist key
+    private long pawnKey;
+    // Turns taken back by unmakeMove, previous turn and packed state of every executed turn
+    private transient int[] undoMoves;
+    private transient int[] undoStates;
+    private transient int undoCount = 0;
+    // Legality of the turns being generated, filled by computeLegality
+    private transient int kingField;
+    private transient int checkCount;
+    private transient int checkerField;
+    private transient int checkDirection;
+    private transient int[] pinnedFields;
+    private transient int[] pinDirections;
+    private transient int pinCount;
+    // Attacks of both players, valid while the Zobrist key equals attackMapKey
+    private transient AttackMap attackMap;
+    private transient long attackMapKey;
 
     /**
      * Constructor
@@ -77,9 +119,10 @@ public class ChessBoard implements IChessGame, Serializable {
         BlackCanLongRochade = true;
         BlackCanShortRochade = true;
 
-        entPassent = new ArrayList<IChessGame>();
         //BlackCanRochade=true;
         //WhiteCanRochade=true;
+        zobristKey = computeZobristKey();
+        pieceCounts = new int[WHITE_KING + 1];
     }
 
     /**
@@ -89,20 +132,23 @@ public class ChessBoard implements IChessGame, Serializable {
      */
     private ChessBoard(ChessBoard oldBoard) {
         this.fields = oldBoard.fields.clone();
-        entPassent = new ArrayList<IChessGame>();
 
         this.BlackCanLongRochade = oldBoard.BlackCanLongRochade;
         this.BlackCanShortRochade = oldBoard.BlackCanShortRochade;
         this.WhiteCanLongRochade = oldBoard.WhiteCanLongRochade;
         this.WhiteCanShortRochade = oldBoard.WhiteCanShortRochade;
 
-        this.round_counter = oldBoard.round_counter + 1;
+        this.round_counter = oldBoard.round_counter;
+        this.enPassantField = oldBoard.enPassantField;
 
         this.BlackLost = oldBoard.BlackLost;
         this.WhiteLost = oldBoard.WhiteLost;
 
-        if (oldBoard.playerToMakeTurn == Player.BLACK) playerToMakeTurn = Player.WHITE;
-        else playerToMakeTurn = Player.BLACK;
+        this.playerToMakeTurn = oldBoard.playerToMakeTurn;
+        this.zobristKey = oldBoard.zobristKey;
+        this.pieceCounts = oldBoard.pieceCounts.clone();
+        this.pieceSquareTotal = oldBoard.pieceSquareTotal;
+        this.pawnKey = oldBoard.pawnKey;
     }
 
     /**
@@ -135,6 +181,8 @@ public class ChessBoard implements IChessGame, Serializable {
         board.fields[94] = BLACK_QUEEN;
 
         board.round_counter = 0;
+        board.zobristKey = board.computeZobristKey();
+        board.computePieceTotals();
         return board;
     }
 
@@ -195,6 +243,7 @@ public class ChessBoard implements IChessGame, Serializable {
      */
     public void setPlayerToMakeTurn(Player playerToMakeTurn) {
         this.playerToMakeTurn = playerToMakeTurn;
+        this.zobristKey = computeZobristKey();
     }
 
     /**
@@ -219,6 +268,8 @@ public class ChessBoard implements IChessGame, Serializable {
 
         //*** Figur setzen ***************************************************************
         fields[realPosition] = piece;
+        zobristKey = computeZobristKey();
+        computePieceTotals();
     }
 
 
@@ -347,676 +398,16 @@ public class ChessBoard implements IChessGame, Serializable {
      */
 
     public ArrayList<IChessGame> getNextTurns() {
-        //	if(nextTurns!=null) return nextTurns;
-        if (playerToMakeTurn == Player.WHITE) {
-            return this.makeWhiteMoves();
-        } else {
-            return this.makeBlackMoves();
+        //*** Zuege generieren und fuer jeden Zug ein Brett erstellen ********************
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = this.generateMoves(moves);
+        ArrayList<IChessGame> nextTurns = new ArrayList<IChessGame>(count);
+        for (int i = 0; i < count; i++) {
+            ChessBoard board = new ChessBoard(this);
+            board.executeMove(moves[i]);
+            nextTurns.add(board);
         }
-    }
-
-
-    /************************************************************************************/
-    /************************ Funktion: makeBlackPawnMove *******************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<IChessGame> makeWhiteMoves() {
-        //*** Variablen-Deklaration ******************************************************
-        int field;
-        byte piece;
-        ArrayList<IChessGame> moves;
-
-        //*** Liste initialisieren *******************************************************
-        moves = new ArrayList<IChessGame>();
-
-        //*** F�r alle legalen Felder ****************************************************
-        for (int y = 2; y < 10; y++)
-            for (int x = 1; x < 9; x++) {
-                //*** Feldindex bestimmen ****************************************************
-                field = y * 10 + x;
-
-                //*** Figur bestimmen ********************************************************
-                piece = fields[field];
-
-                //*** Auf Fels ist leer undgueltig und von schwarz besetzt ragieren **********
-                if (piece < WHITE_PAWN) continue;
-
-                //*** Bauern Zug machen ******************************************************
-                if (piece == WHITE_PAWN) {
-                    moves.addAll(this.makeWhitePawnMove(field));
-                    continue;
-                }
-
-                //*** Turm Zug machen ********************************************************
-                if (piece == WHITE_ROOK) {
-                    moves.addAll(this.genericWhiteMoves(field, ROOK_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Laeufer Zug machen *****************************************************
-                if (piece == WHITE_BISHOP) {
-                    moves.addAll(this.genericWhiteMoves(field, BISHOP_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Springer ziehen ********************************************************
-                if (piece == WHITE_KNIGHT) {
-                    moves.addAll(this.whiteSingleMove(field, KNIGHT_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Koenig ziehen **********************************************************
-                if (piece == WHITE_KING) {
-                    moves.addAll(this.whiteSingleMove(field, QUEEN_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Dame ziehen ************************************************************
-                if (piece == WHITE_QUEEN) {
-                    moves.addAll(this.genericWhiteMoves(field, QUEEN_DIRECTIONS, piece));
-                }
-            }
-
-        moves.addAll(entPassent);
-        moves.addAll(this.getWhiteRochade());
-
-        //** Züge merken *******************************************************
-        //nextTurns=moves;
-        //*** Zuege zurueckgeben *********************************************************
-        return moves;
-    }
-
-
-    /************************************************************************************/
-    /************************ Funktion: makeWhitePawnMove *******************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<IChessGame> makeBlackMoves() {
-        //*** Variablen-Deklaration ******************************************************
-        int field;
-        byte piece;
-        ArrayList<IChessGame> moves;
-
-        //*** Liste initialisieren *******************************************************
-        moves = new ArrayList<IChessGame>();
-
-
-        //*** F�r alle legalen Felder ****************************************************
-        for (int y = 2; y < 10; y++)
-            for (int x = 1; x < 9; x++) {
-                //*** Feldindex bestimmen ****************************************************
-                field = y * 10 + x;
-
-                //*** Figur bestimmen ********************************************************
-                piece = fields[field];
-
-                //*** Auf Fels ist leer undgueltig und von wei� besetzt ragieren *************
-                if (piece < BLACK_PAWN && piece >= BLACK_KING) continue;
-
-                //*** Bauern Zug machen ******************************************************
-                if (piece == BLACK_PAWN) {
-                    moves.addAll(this.makeBlackPawnMove(field));
-                    continue;
-                }
-
-                //*** Turm ziehen ************************************************************
-                if (piece == BLACK_ROOK) {
-                    moves.addAll(this.genericBlackMoves(field, ROOK_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Laeufer Zug machen *****************************************************
-                if (piece == BLACK_BISHOP) {
-                    moves.addAll(this.genericBlackMoves(field, BISHOP_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Springer ziehen ********************************************************
-                if (piece == BLACK_KNIGHT) {
-                    moves.addAll(this.blackSingleMove(field, KNIGHT_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Koenig ziehen **********************************************************
-                if (piece == BLACK_KING) {
-                    moves.addAll(this.blackSingleMove(field, QUEEN_DIRECTIONS, piece));
-                    continue;
-                }
-
-                //*** Dame ziehen ************************************************************
-                if (piece == BLACK_QUEEN) {
-                    moves.addAll(this.genericBlackMoves(field, QUEEN_DIRECTIONS, piece));
-                }
-            }
-
-        moves.addAll(entPassent);
-        moves.addAll(this.getBlackRochade());
-
-        //** Züge merken *******************************************************
-        //	nextTurns=moves;
-
-        //*** Zuege zurueckgeben *********************************************************
-        return moves;
-    }
-
-
-    /************************************************************************************/
-    /************************* Funktion: genericWhiteMoves ******************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<ChessBoard> makeBlackPawnMove(int field) {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<ChessBoard> followMoves;
-        ChessBoard board;
-
-        //*** Liste initialisieren *******************************************************
-        followMoves = new ArrayList<ChessBoard>();
-
-        //*** Bauer in vorletzter Reihe **************************************************
-        if (field < 40) {
-            //*** Wurf �berpr�fen ********************************************************
-            if (fields[field - 9] > ChessBoard.BLACK_KING) {
-                board = this.executeMove(field, field - 9, ChessBoard.BLACK_PAWN);
-                //*** Figurentausch durchf�hren ******************************************
-                ChessBoard b;
-                b = board.Clone();
-                b.fields[field - 9] = BLACK_BISHOP;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 9) + "b";
-                followMoves.add(b);
-
-                b = board.Clone();
-                b.fields[field - 9] = BLACK_ROOK;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 9) + "r";
-                followMoves.add(b);
-
-                b = board.Clone();
-                b.fields[field - 9] = BLACK_KNIGHT;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 9) + "n";
-                followMoves.add(b);
-
-                b = board.Clone();
-                b.fields[field - 9] = BLACK_QUEEN;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 9) + "q";
-                followMoves.add(b);
-            }
-
-            //*** Wurf in andere Richtung �berpr�fen *************************************
-            if (fields[field - 11] > ChessBoard.BLACK_KING) {
-                board = this.executeMove(field, field - 11, ChessBoard.BLACK_PAWN);
-                //*** Figurentausch durchf�hren ******************************************
-                ChessBoard b;
-
-                b = board.Clone();
-                b.fields[field - 11] = BLACK_BISHOP;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 11) + "b";
-                followMoves.add(b);
-
-                b = board.Clone();
-                b.fields[field - 11] = BLACK_ROOK;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 11) + "r";
-                followMoves.add(b);
-
-                b = board.Clone();
-                b.fields[field - 11] = BLACK_KNIGHT;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 11) + "n";
-                followMoves.add(b);
-
-                b = board.Clone();
-                b.fields[field - 11] = BLACK_QUEEN;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 11) + "q";
-                followMoves.add(b);
-            }
-
-            //*** Gerade aus Zug pr�fen **************************************************
-            if (fields[field - 10] == ChessBoard.EMPTY_FIELD) {
-                board = this.executeMove(field, field - 10, ChessBoard.BLACK_PAWN);
-                //*** Figurentausch durchf�hren ******************************************
-                ChessBoard b;
-                b = board.Clone();
-                b.fields[field - 10] = BLACK_BISHOP;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 10) + "b";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field - 10] = BLACK_ROOK;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 10) + "r";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field - 10] = BLACK_KNIGHT;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 10) + "n";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field - 10] = BLACK_QUEEN;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field - 10) + "q";
-                followMoves.add(b);
-            } else return followMoves;
-        } else {
-            //*** Wurf �berpr�fen ********************************************************
-            if (fields[field - 9] > ChessBoard.BLACK_KING) {
-                board = this.executeMove(field, field - 9, ChessBoard.BLACK_PAWN);
-                followMoves.add(board);
-            }
-
-            //*** Wurf in andere Richtung �berpr�fen *************************************
-            if (fields[field - 11] > ChessBoard.BLACK_KING) {
-                board = this.executeMove(field, field - 11, ChessBoard.BLACK_PAWN);
-                followMoves.add(board);
-            }
-
-            //*** Gerade aus Zug pr�fen **************************************************
-            if (fields[field - 10] == ChessBoard.EMPTY_FIELD) {
-                board = this.executeMove(field, field - 10, ChessBoard.BLACK_PAWN);
-                followMoves.add(board);
-            } else return followMoves;
-        }
-
-        //*** Wenn gerade aus Zug moeglich war auch doppelt geradeaus pruefen ************
-        if (field / 10 == 8 && fields[field - 20] == ChessBoard.EMPTY_FIELD) {
-            board = this.executeMove(field, field - 20, ChessBoard.BLACK_PAWN);
-
-            //*** En Passent schlagen bearbeiten *****************************************
-            if (fields[field - 19] == ChessBoard.WHITE_PAWN) {
-                ChessBoard newBoard = new ChessBoard(board);
-                newBoard.fields[field - 20] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field - 19] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field - 10] = ChessBoard.WHITE_PAWN;
-                newBoard.TurnNotation = ChessBoard.indexToFieldName(field - 19) +
-                        ChessBoard.indexToFieldName(field - 10);
-                board.entPassent.add(newBoard);
-            }
-            if (fields[field - 21] == ChessBoard.WHITE_PAWN) {
-                ChessBoard newBoard = new ChessBoard(board);
-                newBoard.fields[field - 20] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field - 21] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field - 10] = ChessBoard.WHITE_PAWN;
-                newBoard.TurnNotation = ChessBoard.indexToFieldName(field - 21) +
-                        ChessBoard.indexToFieldName(field - 10);
-                board.entPassent.add(newBoard);
-            }
-
-            followMoves.add(board);
-
-        }
-        //*** Liste zur�ckgeben **********************************************************
-        return followMoves;
-    }
-
-
-    /************************************************************************************/
-    /************************* Funktion: genericBlackMoves ******************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<ChessBoard> makeWhitePawnMove(int field) {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<ChessBoard> followMoves;
-        ChessBoard board;
-
-        //*** Liste initialisieren *******************************************************
-        followMoves = new ArrayList<ChessBoard>();
-
-        //*** Bauer in vorletzter Reihe **************************************************
-        if (field > 79) {
-            //*** Wurf �berpr�fen ********************************************************
-            if (fields[field + 9] > ChessBoard.EMPTY_FIELD && fields[field + 9] < ChessBoard.WHITE_PAWN) {
-                board = this.executeMove(field, field + 9, ChessBoard.WHITE_PAWN);
-                //*** Figurentausch durchf�hren ******************************************
-                ChessBoard b;
-                b = board.Clone();
-                b.fields[field + 9] = WHITE_BISHOP;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 9) + "b";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 9] = WHITE_ROOK;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 9) + "r";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 9] = WHITE_KNIGHT;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 9) + "n";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 9] = WHITE_QUEEN;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 9) + "q";
-                followMoves.add(b);
-            }
-
-            //*** Wurf in andere Richtung �berpr�fen *************************************
-            if (fields[field + 11] > ChessBoard.EMPTY_FIELD && fields[field + 11] < ChessBoard.WHITE_PAWN) {
-                board = this.executeMove(field, field + 11, ChessBoard.WHITE_PAWN);
-                //*** Figurentausch durchf�hren ******************************************
-                ChessBoard b;
-                b = board.Clone();
-                b.fields[field + 11] = WHITE_BISHOP;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 11) + "b";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 11] = WHITE_ROOK;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 11) + "r";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 11] = WHITE_KNIGHT;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 11) + "n";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 11] = WHITE_QUEEN;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 11) + "q";
-                followMoves.add(b);
-            }
-
-            //*** Gerade aus Zug pr�fen **************************************************
-            if (fields[field + 10] == ChessBoard.EMPTY_FIELD) {
-                board = this.executeMove(field, field + 10, ChessBoard.WHITE_PAWN);
-                //*** Figurentausch durchf�hren ******************************************
-                ChessBoard b;
-                b = board.Clone();
-                b.fields[field + 10] = WHITE_BISHOP;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 10) + "b";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 10] = WHITE_ROOK;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 10) + "r";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 10] = WHITE_KNIGHT;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 10) + "n";
-                followMoves.add(b);
-                b = board.Clone();
-                b.fields[field + 10] = WHITE_QUEEN;
-                b.TurnNotation = ChessBoard.indexToFieldName(field) +
-                        ChessBoard.indexToFieldName(field + 10) + "q";
-                followMoves.add(b);
-            } else return followMoves;
-        } else {
-            //*** Wurf �berpr�fen ********************************************************
-            if (fields[field + 9] > EMPTY_FIELD && fields[field + 9] < ChessBoard.WHITE_PAWN) {
-                board = this.executeMove(field, field + 9, ChessBoard.WHITE_PAWN);
-                followMoves.add(board);
-            }
-
-            //*** Wurf in andere Richtung �berpr�fen *************************************
-            if (fields[field + 11] > EMPTY_FIELD && fields[field + 11] < ChessBoard.WHITE_PAWN) {
-                board = this.executeMove(field, field + 11, ChessBoard.WHITE_PAWN);
-                followMoves.add(board);
-            }
-
-            //*** Gerade aus Zug pr�fen **************************************************
-            if (fields[field + 10] == ChessBoard.EMPTY_FIELD) {
-                board = this.executeMove(field, field + 10, ChessBoard.WHITE_PAWN);
-                followMoves.add(board);
-            } else return followMoves;
-        }
-
-        //*** Wenn gerade aus Zug moeglich war auch doppelt geradeaus pruefen ************
-        if (field / 10 == 3 && fields[field + 20] == ChessBoard.EMPTY_FIELD) {
-            board = this.executeMove(field, field + 20, ChessBoard.WHITE_PAWN);
-
-            //*** En Passent schlagen bearbeiten *****************************************
-            if (fields[field + 19] == ChessBoard.BLACK_PAWN) {
-                ChessBoard newBoard = new ChessBoard(board);
-                newBoard.fields[field + 20] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field + 19] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field + 10] = ChessBoard.BLACK_PAWN;
-                newBoard.TurnNotation = ChessBoard.indexToFieldName(field + 19) +
-                        ChessBoard.indexToFieldName(field + 10);
-                board.entPassent.add(newBoard);
-            }
-            if (fields[field + 21] == ChessBoard.BLACK_PAWN) {
-                ChessBoard newBoard = new ChessBoard(board);
-                newBoard.fields[field + 20] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field + 21] = ChessBoard.EMPTY_FIELD;
-                newBoard.fields[field + 10] = ChessBoard.BLACK_PAWN;
-                newBoard.TurnNotation = ChessBoard.indexToFieldName(field + 21) +
-                        ChessBoard.indexToFieldName(field + 10);
-                board.entPassent.add(newBoard);
-            }
-
-            followMoves.add(board);
-        }
-
-        //*** Liste zur�ckgeben **********************************************************
-        return followMoves;
-    }
-
-
-    /************************************************************************************/
-    /************************** Funktion: whiteSingleMove *******************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<ChessBoard> genericWhiteMoves(int field, int[] directions, byte piece) {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<ChessBoard> followMoves;
-        ChessBoard board;
-        int i = 0;
-        int newField;
-
-        //*** Liste initialisieren *******************************************************
-        followMoves = new ArrayList<ChessBoard>();
-
-        //*** F�r alle Richtungen ********************************************************
-        while (i < directions.length) {
-            //*** n�chstes Feld bestimmen ************************************************
-            newField = field + directions[i];
-
-            //*** Solange n�chstes Feld frei ist *****************************************
-            while (fields[newField] == EMPTY_FIELD) {
-                //*** Zug ausf�hren ******************************************************
-                board = this.executeMove(field, newField, piece);
-                followMoves.add(board);
-
-                //*** n�chstes Feld bestimmen ********************************************
-                newField = newField + directions[i];
-            }
-            //*** Neues Feld ist kein leeres Feld mehr und weder illegal noch wei� *******
-            if (fields[newField] != ILLEGAL_FIELD && fields[newField] < WHITE_PAWN) {
-                board = this.executeMove(field, newField, piece);
-                followMoves.add(board);
-            }
-
-            //*** Richtungsz�hler erh�hen ************************************************
-            i++;
-        }
-
-        //*** Liste zur�ckgeben **********************************************************
-        return followMoves;
-    }
-
-
-    /************************************************************************************/
-    /************************* Funktion: blackSingleMove ********************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<ChessBoard> genericBlackMoves(int field, int[] directions, byte piece) {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<ChessBoard> followMoves;
-        ChessBoard board;
-        int i = 0;
-        int newField;
-
-        //*** Liste initialisieren *******************************************************
-        followMoves = new ArrayList<ChessBoard>();
-
-        //*** F�r alle Richtungen ********************************************************
-        while (i < directions.length) {
-            //*** n�chstes Feld bestimmen ************************************************
-            newField = field + directions[i];
-
-            //*** Solange n�chstes Feld frei ist *****************************************
-            while (fields[newField] == EMPTY_FIELD) {
-                //*** Zug ausf�hren ******************************************************
-                board = this.executeMove(field, newField, piece);
-                followMoves.add(board);
-
-                //*** n�chstes Feld bestimmen ********************************************
-                newField = newField + directions[i];
-            }
-            //*** Neues Feld ist kein leeres Feld mehr und weder illegal noch schwarz ****
-            if (fields[newField] > BLACK_KING) {
-                board = this.executeMove(field, newField, piece);
-                followMoves.add(board);
-            }
-
-            //*** Richtungsz�hler erh�hen ************************************************
-            i++;
-        }
-
-        //*** Liste zur�ckgeben **********************************************************
-        return followMoves;
-    }
-
-
-    /************************************************************************************/
-    /*************************** Funktion: executeMove **********************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<ChessBoard> whiteSingleMove(int field, int[] directions, byte piece) {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<ChessBoard> followMoves;
-        ChessBoard board;
-        int i = 0;
-        int newField;
-
-        //*** Liste initialisieren *******************************************************
-        followMoves = new ArrayList<ChessBoard>();
-
-        //*** F�r alle Richtungen ********************************************************
-        while (i < directions.length) {
-            //*** n�chstes Feld bestimmen ************************************************
-            newField = field + directions[i];
-
-            //*** Neues Feld ist kein leeres Feld und weder illegal noch wei� ************
-            if (fields[newField] != ILLEGAL_FIELD && fields[newField] < WHITE_PAWN) {
-                board = this.executeMove(field, newField, piece);
-                followMoves.add(board);
-            }
-
-            //*** Richtungsz�hler erh�hen ************************************************
-            i++;
-        }
-
-        //*** Liste zur�ckgeben **********************************************************
-        return followMoves;
-    }
-
-
-    /************************************************************************************/
-    /*************************** Funktion: getQuality ***********************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ArrayList<ChessBoard> blackSingleMove(int field, int[] directions, byte piece) {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<ChessBoard> followMoves;
-        ChessBoard board;
-        int i = 0;
-        int newField;
-
-        //*** Liste initialisieren *******************************************************
-        followMoves = new ArrayList<ChessBoard>();
-
-        //*** F�r alle Richtungen ********************************************************
-        while (i < directions.length) {
-            //*** n�chstes Feld bestimmen ************************************************
-            newField = field + directions[i];
-
-            //*** Neues Feld ist kein leeres Feld und weder illegal noch schwarz *********
-            if (fields[newField] > BLACK_KING || fields[newField] == EMPTY_FIELD) {
-                board = this.executeMove(field, newField, piece);
-                followMoves.add(board);
-            }
-
-            //*** Richtungsz�hler erh�hen ************************************************
-            i++;
-        }
-
-        //*** Liste zur�ckgeben **********************************************************
-        return followMoves;
-    }
-
-
-    /************************************************************************************/
-    /********************** Funktion: getStringRepresentation ***************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ChessBoard executeMove(int oldField, int newField, byte piece) {
-        //*** Variablen-Deklaration ******************************************************
-        ChessBoard board;
-
-        //*** Zug vornehmen **************************************************************
-        board = new ChessBoard(this);
-        board.fields[oldField] = ChessBoard.EMPTY_FIELD;
-        if (board.fields[newField] == BLACK_KING) board.BlackLost = true;
-        if (board.fields[newField] == WHITE_KING) board.WhiteLost = true;
-        board.fields[newField] = piece;
-        board.TurnNotation = ChessBoard.indexToFieldName(oldField) +
-                ChessBoard.indexToFieldName(newField);
-        //*** Rochade m�glickeite testen *************************************************
-        if (piece == WHITE_ROOK) {
-            if (oldField == 21) board.WhiteCanLongRochade = false;
-            if (oldField == 28) board.WhiteCanShortRochade = false;
-        }
-        if (piece == WHITE_KING) {
-            board.WhiteCanLongRochade = false;
-            board.WhiteCanShortRochade = false;
-        }
-
-        if (piece == BLACK_ROOK) {
-            if (oldField == 91) board.BlackCanLongRochade = false;
-            if (oldField == 98) board.BlackCanShortRochade = false;
-        }
-        if (piece == BLACK_KING) {
-            board.BlackCanLongRochade = false;
-            board.BlackCanShortRochade = false;
-        }
-
-        //*** Brett zurueckgeben *********************************************************
-        return board;
+        return nextTurns;
     }
 
 
@@ -1085,10 +476,27 @@ public class ChessBoard implements IChessGame, Serializable {
      * ********************************************************************************
      */
 
+    /**
+     * Overwrites this board with a position in the format of {@link #getStringRepresentation()}
+     * <p>
+     * Like {@link #readPosition(ByteBuffer)} the board starts over: turns made before can not be taken back, the
+     * turn counter is 0 and nobody has lost. The format holds neither castling rights nor an en passant field, so
+     * there is no en passant field and the castling rights are kept, callers have to set them by
+     * {@link #setRochade(boolean, boolean, boolean, boolean)} afterwards.
+     * </p>
+     *
+     * @param s String 64 fields from a1 to h8 and the player to move
+     */
     public void loadFromString(String s) {
         char[] c = new char[65];
         c = s.toCharArray();
         int j = 0;
+        enPassantField = -1;
+        round_counter = 0;
+        WhiteLost = false;
+        BlackLost = false;
+        lastMove = Move.NO_MOVE;
+        undoCount = 0;
 
         if (c[64] == 'w') {
             playerToMakeTurn = Player.WHITE;
@@ -1157,6 +565,8 @@ public class ChessBoard implements IChessGame, Serializable {
                         break;
                 }
         }
+        zobristKey = computeZobristKey();
+        computePieceTotals();
     }
 
 
@@ -1202,10 +612,13 @@ public class ChessBoard implements IChessGame, Serializable {
      */
 
     public IChessGame makeTurn(String turn) throws Exception {
-        ArrayList<IChessGame> nextTurns = this.getNextTurns();
-        for (int i = 0; i < nextTurns.size(); i++) {
-            if (turn.equals(nextTurns.get(i).getTurnNotation())) {
-                return nextTurns.get(i);
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = this.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (Move.matches(moves[i], turn)) {
+                ChessBoard board = new ChessBoard(this);
+                board.executeMove(moves[i]);
+                return board;
             }
         }
         throw new Exception(turn + " :Zug nicht in Liste legaler Z�ge gefunden;");
@@ -1238,109 +651,18 @@ public class ChessBoard implements IChessGame, Serializable {
     /************************************************************************************/
     /****************************** Funktion: indexToFieldName ***************************/
 
-    /**
-     * ********************************************************************************
-     */
-
-    public boolean equals(ChessBoard board) {
-        for (int i = 0; i < this.fields.length; i++) {
-            if (board.fields[i] != this.fields[i]) return false;
-        }
-        if (this.playerToMakeTurn != board.playerToMakeTurn) return false;
-
-        return true;
-    }
-
-
-    /************************************************************************************/
-    /******************************* Funktion: Clone ************************************/
-
-    /**
-     * ********************************************************************************
-     */
-
-    private ChessBoard Clone() {
-        ChessBoard board = new ChessBoard();
-        board.fields = this.fields.clone();
-        board.playerToMakeTurn = this.playerToMakeTurn;
-
-        board.BlackCanLongRochade = this.BlackCanLongRochade;
-        board.BlackCanShortRochade = this.BlackCanShortRochade;
-        board.WhiteCanLongRochade = this.WhiteCanLongRochade;
-        board.WhiteCanShortRochade = this.WhiteCanShortRochade;
-
-        board.entPassent = new ArrayList<IChessGame>();
-        board.entPassent.addAll(this.entPassent);
-        return board;
-    }
-
-
-    /************************************************************************************/
-    /************************** Funktion: getWhiteRochade *******************************/
-    /**
-     * ********************************************************************************
-     */
-
-    ArrayList<IChessGame> getWhiteRochade() {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<IChessGame> rochadeList;
-        int field;
-
-        //*** Liste initialisieren *******************************************************
-        rochadeList = new ArrayList<IChessGame>();
-
-        //*** Testen ob kurze Rochade m�glich ********************************************
-        if (WhiteCanShortRochade) {
-            //*** Wenn Felder zwischen Turm und K�nig leer und Turm da ********************
-            if (fields[26] == EMPTY_FIELD && fields[27] == EMPTY_FIELD && fields[28] == WHITE_ROOK) {
-                field = 25;
-                //*** Testen ob ein Feld angegriffen wird ********************************
-                while (field < 28 && !IsFieldAttackedByBlack(field)) {
-                    field++;
-                }
-                //*** Wenn kein Feld angegriffen wurde ***********************************
-                if (field == 28) {
-                    //*** Rochieren ******************************************************
-                    ChessBoard b = this.Clone();
-                    b.fields[26] = ChessBoard.WHITE_ROOK;
-                    b.fields[27] = ChessBoard.WHITE_KING;
-                    b.fields[25] = ChessBoard.EMPTY_FIELD;
-                    b.fields[28] = ChessBoard.EMPTY_FIELD;
-                    b.TurnNotation = "e1g1";
-                    b.WhiteCanLongRochade = false;
-                    b.WhiteCanShortRochade = false;
-                    b.playerToMakeTurn = Player.BLACK;
-                    rochadeList.add(b);
-                }
-            }
-        }
-        if (WhiteCanLongRochade) {
-            //*** Wenn Felder zwischen Turm und K�nig leer und Turm da ************************
-            if (fields[24] == EMPTY_FIELD && fields[23] == EMPTY_FIELD && fields[22] == EMPTY_FIELD && fields[21] == WHITE_ROOK) {
-                field = 25;
-                //*** Testen ob ein Feld angegriffen wird ********************************
-                while (field > 22 && !IsFieldAttackedByBlack(field)) {
-                    field--;
-                }
-                //*** Wenn kein Feld angegriffen wurde ***********************************
-                if (field == 22) {
-                    //*** Rochieren ******************************************************
-                    ChessBoard b = this.Clone();
-                    b.fields[24] = ChessBoard.WHITE_ROOK;
-                    b.fields[23] = ChessBoard.WHITE_KING;
-                    b.fields[25] = ChessBoard.EMPTY_FIELD;
-                    b.fields[21] = ChessBoard.EMPTY_FIELD;
-                    b.TurnNotation = "e1c1";
-                    b.WhiteCanLongRochade = false;
-                    b.WhiteCanShortRochade = false;
-                    b.playerToMakeTurn = Player.BLACK;
-                    rochadeList.add(b);
-                }
-            }
+    /**
+     * ********************************************************************************
+     */
+
+    public boolean equals(ChessBoard board) {
+        for (int i = 0; i < this.fields.length; i++) {
+            if (board.fields[i] != this.fields[i]) return false;
         }
+        if (this.playerToMakeTurn != board.playerToMakeTurn) return false;
+        if (this.enPassantField != board.enPassantField) return false;
 
-        //*** Liste zur�ckgeben **********************************************************
-        return rochadeList;
+        return true;
     }
 
 
@@ -1353,34 +675,37 @@ public class ChessBoard implements IChessGame, Serializable {
     public boolean IsFieldAttackedByBlack(int field) {
         //*** Variablen-Deklaration ******************************************************
         byte piece;
-        int u;
 
         //*** Testen ob Bauer werfen kann ************************************************
         if (fields[field + 9] == BLACK_PAWN || fields[field + 11] == BLACK_PAWN) return true;
 
         //*** Testen ob Springer werfen kann *********************************************
-        for (int i = 0; i < KNIGHT_DIRECTIONS.length; i++) {
-            if (fields[field + KNIGHT_DIRECTIONS[i]] == BLACK_KNIGHT) return true;
+        for (int target : MailboxTables.KNIGHT_TARGETS[field]) {
+            if (fields[target] == BLACK_KNIGHT) return true;
         }
 
         //*** Turm Richtungen testen *****************************************************
-        for (int i = 0; i < ROOK_DIRECTIONS.length; i++) {
-            u = 1;
-            while ((piece = fields[field + ROOK_DIRECTIONS[i] * u]) == EMPTY_FIELD) u++;
-            //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ********************
-            if (piece == BLACK_QUEEN || piece == BLACK_ROOK) return true;
-            //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ********************
-            if (piece == BLACK_KING && u == 1) return true;
+        for (int[] ray : MailboxTables.ROOK_RAYS[field]) {
+            for (int u = 0; u < ray.length; u++) {
+                if ((piece = fields[ray[u]]) == EMPTY_FIELD) continue;
+                //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ****************
+                if (piece == BLACK_QUEEN || piece == BLACK_ROOK) return true;
+                //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ****************
+                if (piece == BLACK_KING && u == 0) return true;
+                break;
+            }
         }
 
         //*** Turm Richtungen testen *****************************************************
-        for (int i = 0; i < ChessBoard.BISHOP_DIRECTIONS.length; i++) {
-            u = 1;
-            while ((piece = fields[field + BISHOP_DIRECTIONS[i] * u]) == EMPTY_FIELD) u++;
-            //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ********************
-            if (piece == BLACK_QUEEN || piece == BLACK_BISHOP) return true;
-            //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ********************
-            if (piece == BLACK_KING && u == 1) return true;
+        for (int[] ray : MailboxTables.BISHOP_RAYS[field]) {
+            for (int u = 0; u < ray.length; u++) {
+                if ((piece = fields[ray[u]]) == EMPTY_FIELD) continue;
+                //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ****************
+                if (piece == BLACK_QUEEN || piece == BLACK_BISHOP) return true;
+                //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ****************
+                if (piece == BLACK_KING && u == 0) return true;
+                break;
+            }
         }
 
         //*** Default: false *************************************************************
@@ -1388,76 +713,6 @@ public class ChessBoard implements IChessGame, Serializable {
     }
 
 
-    /************************************************************************************/
-    /************************** Funktion: getBlackRochade *******************************/
-    /**
-     * ********************************************************************************
-     */
-
-    ArrayList<IChessGame> getBlackRochade() {
-        //*** Variablen-Deklaration ******************************************************
-        ArrayList<IChessGame> rochadeList;
-        ChessBoard b;
-        int field;
-
-        //*** Liste initialisieren *******************************************************
-        rochadeList = new ArrayList<IChessGame>();
-
-        //*** Testen ob kurze Rochade m�glich ********************************************
-        if (BlackCanShortRochade) {
-            //*** Wenn Felder zwischen Turm und K�nig leer und Turm da **********************
-            if (fields[96] == EMPTY_FIELD && fields[97] == EMPTY_FIELD && fields[98] == BLACK_ROOK) {
-                field = 95;
-                //*** Testen ob ein Feld angegriffen wird ********************************
-                while (field < 98 && !IsFieldAttackedByWhite(field)) {
-                    field++;
-                }
-                //*** Wenn kein Feld angegriffen wurde ***********************************
-                if (field == 98) {
-                    //*** Rochieren ******************************************************
-                    b = this.Clone();
-                    b.fields[96] = ChessBoard.BLACK_ROOK;
-                    b.fields[97] = ChessBoard.BLACK_KING;
-                    b.fields[95] = ChessBoard.EMPTY_FIELD;
-                    b.fields[98] = ChessBoard.EMPTY_FIELD;
-                    b.TurnNotation = "e8g8";
-                    b.BlackCanLongRochade = false;
-                    b.BlackCanShortRochade = false;
-                    b.playerToMakeTurn = Player.WHITE;
-                    rochadeList.add(b);
-                }
-            }
-        }
-        if (BlackCanLongRochade) {
-            //*** Wenn Felder zwischen Turm und K�nig leer und Turm da **********************
-            if (fields[94] == EMPTY_FIELD && fields[93] == EMPTY_FIELD && fields[92] == EMPTY_FIELD && fields[91] == BLACK_ROOK) {
-                field = 95;
-                //*** Testen ob ein Feld angegriffen wird ********************************
-                while (field > 92 && !IsFieldAttackedByWhite(field)) {
-                    field--;
-                }
-                //*** Wenn kein Feld angegriffen wurde ***********************************
-                if (field == 92) {
-                    //*** Rochieren ******************************************************
-                    b = this.Clone();
-                    b.fields[94] = ChessBoard.BLACK_ROOK;
-                    b.fields[93] = ChessBoard.BLACK_KING;
-                    b.fields[95] = ChessBoard.EMPTY_FIELD;
-                    b.fields[91] = ChessBoard.EMPTY_FIELD;
-                    b.TurnNotation = "e8c8";
-                    b.BlackCanLongRochade = false;
-                    b.BlackCanShortRochade = false;
-                    b.playerToMakeTurn = Player.WHITE;
-                    rochadeList.add(b);
-                }
-            }
-        }
-
-        //*** Liste zur�ckgeben **********************************************************
-        return rochadeList;
-    }
-
-
     /************************************************************************************/
     /*********************** Funktion: IsFieldAttackedByWhite ***************************/
     /**
@@ -1467,34 +722,37 @@ public class ChessBoard implements IChessGame, Serializable {
     public boolean IsFieldAttackedByWhite(int field) {
         //*** Variablen-Deklaration ******************************************************
         byte piece;
-        int u;
 
         //*** Testen ob Bauer werfen kann ************************************************
         if (fields[field - 9] == WHITE_PAWN || fields[field - 11] == WHITE_PAWN) return true;
 
         //*** Testen ob Springer werfen kann *********************************************
-        for (int i = 0; i < KNIGHT_DIRECTIONS.length; i++) {
-            if (fields[field + KNIGHT_DIRECTIONS[i]] == WHITE_KNIGHT) return true;
+        for (int target : MailboxTables.KNIGHT_TARGETS[field]) {
+            if (fields[target] == WHITE_KNIGHT) return true;
         }
 
         //*** Turm Richtungen testen *****************************************************
-        for (int i = 0; i < ROOK_DIRECTIONS.length; i++) {
-            u = 1;
-            while ((piece = fields[field + ROOK_DIRECTIONS[i] * u]) == EMPTY_FIELD) u++;
-            //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ********************
-            if (piece == WHITE_QUEEN || piece == WHITE_ROOK) return true;
-            //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ********************
-            if (piece == WHITE_KING && u == 1) return true;
+        for (int[] ray : MailboxTables.ROOK_RAYS[field]) {
+            for (int u = 0; u < ray.length; u++) {
+                if ((piece = fields[ray[u]]) == EMPTY_FIELD) continue;
+                //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ****************
+                if (piece == WHITE_QUEEN || piece == WHITE_ROOK) return true;
+                //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ****************
+                if (piece == WHITE_KING && u == 0) return true;
+                break;
+            }
         }
 
         //*** Turm Richtungen testen *****************************************************
-        for (int i = 0; i < ChessBoard.BISHOP_DIRECTIONS.length; i++) {
-            u = 1;
-            while ((piece = fields[field + BISHOP_DIRECTIONS[i] * u]) == EMPTY_FIELD) u++;
-            //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ********************
-            if (piece == WHITE_QUEEN || piece == WHITE_BISHOP) return true;
-            //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ********************
-            if (piece == WHITE_KING && u == 1) return true;
+        for (int[] ray : MailboxTables.BISHOP_RAYS[field]) {
+            for (int u = 0; u < ray.length; u++) {
+                if ((piece = fields[ray[u]]) == EMPTY_FIELD) continue;
+                //*** Wenn in Sicht von Turm oder Dame - wird angegriffen ****************
+                if (piece == WHITE_QUEEN || piece == WHITE_BISHOP) return true;
+                //*** Wenn K�nig nur eins weit weg ist - wird angegriffen ****************
+                if (piece == WHITE_KING && u == 0) return true;
+                break;
+            }
         }
 
         //*** Default: false *************************************************************
@@ -1539,7 +797,8 @@ public class ChessBoard implements IChessGame, Serializable {
 
 
     public String getTurnNotation() {
-        return this.TurnNotation;
+        if (this.lastMove == Move.NO_MOVE) return null;
+        return Move.toNotation(this.lastMove);
     }
 
 
@@ -1566,58 +825,99 @@ public class ChessBoard implements IChessGame, Serializable {
 
 
     public GameState getGameState() {
-        //*** variablen initialisieren *****************************************
-        int kingsField;
-        ChessBoard nextTurn;
-        ArrayList<IChessGame> nextGames = new ArrayList<IChessGame>();
-        boolean isKingAttacked = false;
-        boolean hasEscape = false;
-
-        //*** Prüfen ob Stellung legal ist ***********************************************
+        //*** Pruefen ob Stellung legal ist **********************************************
         if (!this.isLegalBoard()) return GameState.ILLEGAL;
 
-        //** Dafür sorgen dass nachfolge stellung bekannt sind *****************
-        nextGames = this.getNextTurns();
+        //*** Ohne legalen Zug ist es Matt oder Patt *************************************
+        if (this.generateMoves(new int[Move.MAX_MOVES]) == 0) {
+            return this.isInCheck() ? GameState.MATT : GameState.DRAW;
+        }
 
-        //*** Wenn keine Nachfolgebretter existieren ist draw ****************************
-        if (nextGames.size() == 0) return GameState.DRAW;
+        //*** Default legal **************************************************************
+        return GameState.LEGAL;
+    }
 
-        //*** Auf MAtt und Draw weiter prüfen ********************************************
+    public boolean isInCheck() {
+        int kingsField = this.getKing(playerToMakeTurn);
+        if (kingsField == -1) return false;
+        int square = Move.fieldToSquare(kingsField);
+        if (playerToMakeTurn == Player.WHITE) return this.getAttackMap().isAttackedByBlack(square);
+        return this.getAttackMap().isAttackedByWhite(square);
+    }
 
-        //*** Prüfen ob der König angegriffen wird ***************************************
-        if (playerToMakeTurn == Player.WHITE) {
-            if (IsFieldAttackedByBlack(this.getKing(Player.WHITE)))
-                isKingAttacked = true;
-        } else {
-            if (IsFieldAttackedByWhite(this.getKing(Player.BLACK)))
-                isKingAttacked = true;
+    /**
+     * Returns the attacks of both players, scanning the board only once per position
+     *
+     * @return AttackMap of the current position, must not be modified
+     */
+    public AttackMap getAttackMap() {
+        if (attackMap != null && attackMapKey == zobristKey) return attackMap;
+        if (attackMap == null) attackMap = new AttackMap();
+        attackMap.clear();
+        for (int field = 21; field < 99; field++) {
+            byte piece = fields[field];
+            if (piece <= EMPTY_FIELD) continue;
+            boolean white = piece >= WHITE_PAWN;
+            switch (piece % 10) {
+                case BLACK_PAWN:
+                    addAttack(white, white ? field + 9 : field - 9);
+                    addAttack(white, white ? field + 11 : field - 11);
+                    break;
+                case BLACK_KNIGHT:
+                    for (int target : MailboxTables.KNIGHT_TARGETS[field]) {
+                        attackMap.add(white, Move.fieldToSquare(target));
+                    }
+                    break;
+                case BLACK_KING:
+                    for (int target : MailboxTables.KING_TARGETS[field]) {
+                        attackMap.add(white, Move.fieldToSquare(target));
+                    }
+                    break;
+                case BLACK_BISHOP:
+                    addRayAttacks(white, MailboxTables.BISHOP_RAYS[field]);
+                    break;
+                case BLACK_ROOK:
+                    addRayAttacks(white, MailboxTables.ROOK_RAYS[field]);
+                    break;
+                default:
+                    addRayAttacks(white, MailboxTables.QUEEN_RAYS[field]);
+            }
         }
+        attackMapKey = zobristKey;
+        return attackMap;
+    }
 
-        //*** Prüfe alle Felder ************************************************
-        for (int i = 0; i < nextGames.size(); i++) {
-            //*** nachfolger bestimmen *****************************************
-            nextTurn = (ChessBoard) (nextGames.get(i));
-
-            //*** KönigsFeld des Nachfolgers besorgen **************************
-            kingsField = nextTurn.getKing(this.playerToMakeTurn);
+    /**
+     * Returns if any of the squares is attacked by a player
+     * <p>
+     * Reads the attack map if it is already built for this position, otherwise tests the squares one by one, which
+     * is cheaper than building the whole map for a few squares.
+     * </p>
+     *
+     * @param squares long squares to test, bit 0 = a1
+     * @param byWhite true to test for white attackers, false for black
+     * @return true if at least one square is attacked
+     */
+    private boolean isAnyAttacked(long squares, boolean byWhite) {
+        if (attackMap != null && attackMapKey == zobristKey) return (attackMap.getAttacks(byWhite) & squares) != 0;
+        for (long b = squares; b != 0; b &= b - 1) {
+            int field = Move.squareToField(Long.numberOfTrailingZeros(b));
+            if (byWhite ? IsFieldAttackedByWhite(field) : IsFieldAttackedByBlack(field)) return true;
+        }
+        return false;
+    }
 
-            //*** Wenn der König schon weg ist weiter ************************************
-            if (kingsField == -1) continue;
+    private void addAttack(boolean white, int field) {
+        if (fields[field] != ILLEGAL_FIELD) attackMap.add(white, Move.fieldToSquare(field));
+    }
 
-            //*** Wenn das KönigsFeld nicht vom Gegner angegriffen gibts ein escape
-            if (this.playerToMakeTurn == Player.WHITE) {
-                if (!nextTurn.IsFieldAttackedByBlack(kingsField)) hasEscape = true;
-            } else {
-                if (!nextTurn.IsFieldAttackedByWhite(kingsField)) hasEscape = true;
+    private void addRayAttacks(boolean white, int[][] rays) {
+        for (int[] ray : rays) {
+            for (int target : ray) {
+                attackMap.add(white, Move.fieldToSquare(target));
+                if (fields[target] != EMPTY_FIELD) break;
             }
         }
-
-        //*** Auswerten ******************************************************************
-        if (isKingAttacked && !hasEscape) return GameState.MATT;
-        if (!hasEscape) return GameState.DRAW;
-
-        //*** DEfault legal **************************************************************
-        return GameState.LEGAL;
     }
 
 
@@ -1648,6 +948,7 @@ public class ChessBoard implements IChessGame, Serializable {
         BlackCanShortRochade = K_Castling;
         WhiteCanLongRochade = q_Castling;
         WhiteCanShortRochade = k_Castling;
+        zobristKey = computeZobristKey();
     }
 
 
@@ -1696,22 +997,19 @@ public class ChessBoard implements IChessGame, Serializable {
      * Syntax: Hash#Depth#Value
      * </p>
      *
-     * @return Hashed Chessboard String with depth and value, null if MD5 missing
-     * http://www.avajava.com/tutorials/lessons/how-do-i-generate-an-md5-digest-for-a-string.html</a>
+     * @return Hashed Chessboard String with depth and value
+     * @see Zobrist#toDatabaseHash(long)
      */
     public String toDatabase(Player current, int depth) {
-        String hash = this.getMD5Hash();
-        if (hash == null || hash.length() == 0) {
-            return null;
-        }
+        String hash = Zobrist.toDatabaseHash(this.zobristKey);
         return hash + DatabaseEntry.SEGMENTS_DELIMITER + DatabaseEntry.convert(depth, 4) +
                 DatabaseEntry.SEGMENTS_DELIMITER + DatabaseEntry.convert(this.getQuality(current), 4);
     }
 
     /**
-     * Convert the chessboard to a database string containing figures, player and castling
+     * Convert the chessboard to a database string containing figures, player, castling and en passant square
      * <p>
-     * MD5(Board+Active Player+WSR+WLR+BSR+BLR)
+     * MD5(Board+Active Player+WSR+WLR+BSR+BLR), followed by the en passant square 0-63 if there is one
      * </p>
      *
      * @return String representation of MD5-Hash from Board
@@ -1729,6 +1027,7 @@ public class ChessBoard implements IChessGame, Serializable {
         String original = this.getStringRepresentation() + String.valueOf(this.WhiteCanShortRochade) +
                 String.valueOf(this.WhiteCanLongRochade) + String.valueOf(this.BlackCanShortRochade) +
                 String.valueOf(this.BlackCanLongRochade);
+        if (enPassantField >= 0) original += getEnPassantSquare();
         md.update(original.getBytes());
         byte[] digest = md.digest();
         StringBuilder sb = new StringBuilder();
@@ -1769,4 +1068,679 @@ public class ChessBoard implements IChessGame, Serializable {
     public void setParent(IChessGame parent) {
         this.parent = parent;
     }
+
+    /**
+     * Fills the array with all legal turns of the player to make turn
+     *
+     * @param moves int[] to fill, needs room for {@link Move#MAX_MOVES} turns
+     * @return int number of turns
+     * @see de.htw.grischa.chess.Move
+     */
+    public int generateMoves(int[] moves) {
+        return generate(moves, ALL_MOVES);
+    }
+
+    public int generateCaptures(int[] moves) {
+        return generate(moves, CAPTURES);
+    }
+
+    public int generateQuietMoves(int[] moves) {
+        return generate(moves, QUIET_MOVES);
+    }
+
+    /**
+     * Fills the array with the legal turns of the given kinds
+     * <p>
+     * Checks and pins are determined once by {@link #computeLegality(boolean)}, so only turns resolving a check
+     * and keeping pinned pieces on the line of their pin are generated. Only the king needs an attack test per
+     * target.
+     * </p>
+     *
+     * @param moves int[] to fill
+     * @param kinds int {@link #CAPTURES}, {@link #QUIET_MOVES} or both
+     * @return int number of turns
+     */
+    private int generate(int[] moves, int kinds) {
+        boolean white = playerToMakeTurn == Player.WHITE;
+        int count = 0;
+        byte piece;
+
+        this.computeLegality(white);
+        for (int field = 21; field < 99; field++) {
+            piece = fields[field];
+            if (piece <= EMPTY_FIELD || (piece >= WHITE_PAWN) != white) continue;
+            //*** Bei Doppelschach darf nur der Koenig ziehen ****************************
+            if (checkCount > 1 && piece % 10 != BLACK_KING) continue;
+            switch (piece % 10) {
+                case BLACK_PAWN:
+                    count = addPawnMoves(moves, count, field, piece, kinds);
+                    break;
+                case BLACK_KNIGHT:
+                    count = addKnightMoves(moves, count, field, piece, kinds);
+                    break;
+                case BLACK_BISHOP:
+                    count = addSlidingMoves(moves, count, field, piece, BISHOP_DIRECTIONS,
+                            MailboxTables.BISHOP_RAYS[field], kinds);
+                    break;
+                case BLACK_ROOK:
+                    count = addSlidingMoves(moves, count, field, piece, ROOK_DIRECTIONS,
+                            MailboxTables.ROOK_RAYS[field], kinds);
+                    break;
+                case BLACK_QUEEN:
+                    count = addSlidingMoves(moves, count, field, piece, QUEEN_DIRECTIONS,
+                            MailboxTables.QUEEN_RAYS[field], kinds);
+                    break;
+                case BLACK_KING:
+                    count = addKingMoves(moves, count, field, piece, kinds);
+                    break;
+            }
+        }
+        if ((kinds & QUIET_MOVES) == 0 || checkCount > 0) return count;
+        return addRochades(moves, count, white);
+    }
+
+    /**
+     * Finds the king of the player to make turn, the pieces checking it and the own pieces pinned to it
+     *
+     * @param white true if white is to make turn
+     */
+    private void computeLegality(boolean white) {
+        byte piece;
+        int field;
+        int ownField;
+
+        kingField = this.getKing(playerToMakeTurn);
+        checkCount = 0;
+        pinCount = 0;
+        if (kingField < 0) return;
+        if (pinnedFields == null) {
+            pinnedFields = new int[8];
+            pinDirections = new int[8];
+        }
+
+        //*** Linien vom Koenig aus nach Schach und Fesselungen absuchen *****************
+        int[][] rays = MailboxTables.QUEEN_RAYS[kingField];
+        for (int i = 0; i < rays.length; i++) {
+            int direction = QUEEN_DIRECTIONS[i];
+            boolean straight = direction == 1 || direction == -1 || direction == 10 || direction == -10;
+            ownField = -1;
+            field = -1;
+            piece = EMPTY_FIELD;
+            for (int target : rays[i]) {
+                piece = fields[target];
+                if (piece == EMPTY_FIELD) continue;
+                if ((piece >= WHITE_PAWN) == white && ownField < 0) {
+                    ownField = target;
+                    continue;
+                }
+                field = target;
+                break;
+            }
+            if (field < 0 || !isOpponent(piece, white)) continue;
+            if (piece % 10 != BLACK_QUEEN && piece % 10 != (straight ? BLACK_ROOK : BLACK_BISHOP)) continue;
+            if (ownField < 0) {
+                checkCount++;
+                checkerField = field;
+                checkDirection = direction;
+            } else {
+                pinnedFields[pinCount] = ownField;
+                pinDirections[pinCount++] = direction;
+            }
+        }
+
+        //*** Schach durch Springer und Bauern *******************************************
+        for (int target : MailboxTables.KNIGHT_TARGETS[kingField]) {
+            if (fields[target] == (white ? BLACK_KNIGHT : WHITE_KNIGHT)) {
+                checkCount++;
+                checkerField = target;
+                checkDirection = 0;
+            }
+        }
+        for (int direction = 9; direction <= 11; direction += 2) {
+            field = white ? kingField + direction : kingField - direction;
+            if (fields[field] == (white ? BLACK_PAWN : WHITE_PAWN)) {
+                checkCount++;
+                checkerField = field;
+                checkDirection = 0;
+            }
+        }
+    }
+
+    /**
+     * Checks if a turn of the piece on a field resolves a check and keeps a pin
+     *
+     * @param from      int field of the moving piece, not the king
+     * @param to        int target field
+     * @param direction int step of the turn, for a pinned piece it needs to be the direction of the pin
+     * @return true if the turn is legal
+     */
+    private boolean isLegal(int from, int to, int direction) {
+        for (int i = 0; i < pinCount; i++) {
+            if (pinnedFields[i] == from && direction != pinDirections[i] && direction != -pinDirections[i]) {
+                return false;
+            }
+        }
+        if (checkCount == 0 || to == checkerField) return true;
+        if (checkDirection == 0) return false;
+        //*** Schach durch Dazwischenziehen aufheben *************************************
+        for (int field = kingField + checkDirection; field != checkerField; field += checkDirection) {
+            if (field == to) return true;
+        }
+        return false;
+    }
+
+    private int addKingMoves(int[] moves, int count, int field, byte king, int kinds) {
+        boolean white = king == WHITE_KING;
+        int from = Move.fieldToSquare(field);
+        //*** Koenig vom Brett nehmen, damit er sich nicht selbst deckt ******************
+        fields[field] = EMPTY_FIELD;
+        for (int newField : MailboxTables.KING_TARGETS[field]) {
+            byte target = fields[newField];
+            if (target == EMPTY_FIELD ? (kinds & QUIET_MOVES) == 0
+                    : !isOpponent(target, white) || (kinds & CAPTURES) == 0) continue;
+            if (white ? IsFieldAttackedByBlack(newField) : IsFieldAttackedByWhite(newField)) continue;
+            moves[count++] = Move.create(from, Move.fieldToSquare(newField), king, target, EMPTY_FIELD, Move.NORMAL);
+        }
+        fields[field] = king;
+        return count;
+    }
+
+    private static boolean isOpponent(byte piece, boolean white) {
+        return piece > EMPTY_FIELD && (piece >= WHITE_PAWN) != white;
+    }
+
+    private int addKnightMoves(int[] moves, int count, int field, byte piece, int kinds) {
+        boolean white = piece >= WHITE_PAWN;
+        int from = Move.fieldToSquare(field);
+        for (int newField : MailboxTables.KNIGHT_TARGETS[field]) {
+            byte target = fields[newField];
+            if ((target == EMPTY_FIELD ? (kinds & QUIET_MOVES) != 0
+                    : isOpponent(target, white) && (kinds & CAPTURES) != 0)
+                    && isLegal(field, newField, newField - field)) {
+                moves[count++] = Move.create(from, Move.fieldToSquare(newField), piece, target, EMPTY_FIELD,
+                        Move.NORMAL);
+            }
+        }
+        return count;
+    }
+
+    private int addSlidingMoves(int[] moves, int count, int field, byte piece, int[] directions, int[][] rays,
+                                int kinds) {
+        boolean white = piece >= WHITE_PAWN;
+        boolean quiet = (kinds & QUIET_MOVES) != 0;
+        int from = Move.fieldToSquare(field);
+        for (int i = 0; i < rays.length; i++) {
+            for (int newField : rays[i]) {
+                byte target = fields[newField];
+                if (target == EMPTY_FIELD) {
+                    if (quiet && isLegal(field, newField, directions[i])) {
+                        moves[count++] = Move.create(from, Move.fieldToSquare(newField), piece, EMPTY_FIELD,
+                                EMPTY_FIELD, Move.NORMAL);
+                    }
+                    continue;
+                }
+                if ((kinds & CAPTURES) != 0 && isOpponent(target, white) && isLegal(field, newField, directions[i])) {
+                    moves[count++] = Move.create(from, Move.fieldToSquare(newField), piece, target, EMPTY_FIELD,
+                            Move.NORMAL);
+                }
+                break;
+            }
+        }
+        return count;
+    }
+
+    private int addPawnMoves(int[] moves, int count, int field, byte pawn, int kinds) {
+        boolean white = pawn == WHITE_PAWN;
+        boolean captures = (kinds & CAPTURES) != 0;
+        int direction = white ? 10 : -10;
+        int from = Move.fieldToSquare(field);
+        int newField = field + direction;
+        //*** Umwandlungen zaehlen zu den Schlagzuegen ***********************************
+        boolean promotion = newField > 90 || newField < 29;
+
+        if (captures && isOpponent(fields[newField - 1], white)
+                && isLegal(field, newField - 1, newField - 1 - field)) {
+            count = addPawnMove(moves, count, from, newField - 1, pawn, fields[newField - 1]);
+        }
+        if (captures && isOpponent(fields[newField + 1], white)
+                && isLegal(field, newField + 1, newField + 1 - field)) {
+            count = addPawnMove(moves, count, from, newField + 1, pawn, fields[newField + 1]);
+        }
+        if (fields[newField] == EMPTY_FIELD) {
+            if ((promotion ? captures : (kinds & QUIET_MOVES) != 0) && isLegal(field, newField, direction)) {
+                count = addPawnMove(moves, count, from, newField, pawn, EMPTY_FIELD);
+            }
+            //*** Doppelschritt aus der Grundreihe ***************************************
+            if ((kinds & QUIET_MOVES) != 0 && field / 10 == (white ? 3 : 8)
+                    && fields[newField + direction] == EMPTY_FIELD
+                    && isLegal(field, newField + direction, direction)) {
+                moves[count++] = Move.create(from, Move.fieldToSquare(newField + direction), pawn, EMPTY_FIELD,
+                        EMPTY_FIELD, Move.DOUBLE_PAWN_PUSH);
+            }
+        }
+        if (captures && (enPassantField == newField - 1 || enPassantField == newField + 1)) {
+            int move = Move.create(from, Move.fieldToSquare(enPassantField), pawn, white ? BLACK_PAWN : WHITE_PAWN,
+                    EMPTY_FIELD, Move.EN_PASSANT);
+            if (isLegalEnPassant(move, white)) moves[count++] = move;
+        }
+        return count;
+    }
+
+    /**
+     * En passant removes two pieces from a line through the king, so the turn is simply tried
+     */
+    private boolean isLegalEnPassant(int move, boolean white) {
+        if (kingField < 0) return true;
+        this.makeMove(move);
+        boolean legal = white ? !IsFieldAttackedByBlack(kingField) : !IsFieldAttackedByWhite(kingField);
+        this.unmakeMove();
+        return legal;
+    }
+
+    private int addPawnMove(int[] moves, int count, int from, int newField, byte pawn, byte captured) {
+        int to = Move.fieldToSquare(newField);
+        //*** Bauer erreicht die letzte Reihe ********************************************
+        if (newField > 90 || newField < 29) {
+            int offset = pawn - BLACK_PAWN;
+            moves[count++] = Move.create(from, to, pawn, captured, BLACK_QUEEN + offset, Move.NORMAL);
+            moves[count++] = Move.create(from, to, pawn, captured, BLACK_ROOK + offset, Move.NORMAL);
+            moves[count++] = Move.create(from, to, pawn, captured, BLACK_BISHOP + offset, Move.NORMAL);
+            moves[count++] = Move.create(from, to, pawn, captured, BLACK_KNIGHT + offset, Move.NORMAL);
+        } else {
+            moves[count++] = Move.create(from, to, pawn, captured, EMPTY_FIELD, Move.NORMAL);
+        }
+        return count;
+    }
+
+    private int addRochades(int[] moves, int count, boolean white) {
+        if (white) {
+            if (fields[25] != WHITE_KING) return count;
+            if (WhiteCanShortRochade && fields[26] == EMPTY_FIELD && fields[27] == EMPTY_FIELD
+                    && fields[28] == WHITE_ROOK
+                    && !isAnyAttacked(WHITE_SHORT_ROCHADE_PATH, false)) {
+                moves[count++] = Move.create(Move.fieldToSquare(25), Move.fieldToSquare(27), WHITE_KING,
+                        EMPTY_FIELD, EMPTY_FIELD, Move.CASTLING);
+            }
+            if (WhiteCanLongRochade && fields[24] == EMPTY_FIELD && fields[23] == EMPTY_FIELD
+                    && fields[22] == EMPTY_FIELD && fields[21] == WHITE_ROOK
+                    && !isAnyAttacked(WHITE_LONG_ROCHADE_PATH, false)) {
+                moves[count++] = Move.create(Move.fieldToSquare(25), Move.fieldToSquare(23), WHITE_KING,
+                        EMPTY_FIELD, EMPTY_FIELD, Move.CASTLING);
+            }
+        } else {
+            if (fields[95] != BLACK_KING) return count;
+            if (BlackCanShortRochade && fields[96] == EMPTY_FIELD && fields[97] == EMPTY_FIELD
+                    && fields[98] == BLACK_ROOK
+                    && !isAnyAttacked(BLACK_SHORT_ROCHADE_PATH, true)) {
+                moves[count++] = Move.create(Move.fieldToSquare(95), Move.fieldToSquare(97), BLACK_KING,
+                        EMPTY_FIELD, EMPTY_FIELD, Move.CASTLING);
+            }
+            if (BlackCanLongRochade && fields[94] == EMPTY_FIELD && fields[93] == EMPTY_FIELD
+                    && fields[92] == EMPTY_FIELD && fields[91] == BLACK_ROOK
+                    && !isAnyAttacked(BLACK_LONG_ROCHADE_PATH, true)) {
+                moves[count++] = Move.create(Move.fieldToSquare(95), Move.fieldToSquare(93), BLACK_KING,
+                        EMPTY_FIELD, EMPTY_FIELD, Move.CASTLING);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Executes a turn on this board, the turn can be taken back by {@link #unmakeMove()}
+     *
+     * @param move int packed move generated by {@link #generateMoves(int[])}
+     */
+    public void makeMove(int move) {
+        pushUndo();
+        executeMove(move);
+    }
+
+    /**
+     * Passes the turn to the opponent without moving, the null move can be taken back by {@link #unmakeMove()}
+     */
+    public void makeNullMove() {
+        pushUndo();
+        long key = zobristKey ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn);
+        enPassantField = -1;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter++;
+        lastMove = Move.NO_MOVE;
+        zobristKey = key ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn);
+    }
+
+    /**
+     * Saves the state a turn cannot restore by itself on the undo stack
+     */
+    private void pushUndo() {
+        if (undoMoves == null) {
+            undoMoves = new int[UNDO_STACK_SIZE];
+            undoStates = new int[UNDO_STACK_SIZE];
+        } else if (undoCount == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoCount * 2);
+            undoStates = Arrays.copyOf(undoStates, undoCount * 2);
+        }
+        undoMoves[undoCount] = lastMove;
+        undoStates[undoCount] = getRochades() | ((enPassantField + 1) << 4) | (WhiteLost ? WHITE_LOST : 0)
+                | (BlackLost ? BLACK_LOST : 0);
+        undoCount++;
+    }
+
+    /**
+     * Executes a legal turn of the player to make turn on this board
+     *
+     * @param move int packed move
+     */
+    private void executeMove(int move) {
+        int from = Move.squareToField(Move.getFrom(move));
+        int to = Move.squareToField(Move.getTo(move));
+        byte piece = Move.getPiece(move);
+        byte captured = Move.getCaptured(move);
+        byte promotion = Move.getPromotion(move);
+        int flag = Move.getFlag(move);
+        long key = zobristKey ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn)
+                ^ Zobrist.PIECES[piece][Move.getFrom(move)]
+                ^ Zobrist.PIECES[promotion != EMPTY_FIELD ? promotion : piece][Move.getTo(move)];
+
+        if (captured == BLACK_KING) BlackLost = true;
+        if (captured == WHITE_KING) WhiteLost = true;
+        pieceSquareTotal += PieceSquareTable.VALUES[promotion != EMPTY_FIELD ? promotion : piece][Move.getTo(move)]
+                - PieceSquareTable.VALUES[piece][Move.getFrom(move)];
+        if (promotion != EMPTY_FIELD) {
+            pieceCounts[piece]--;
+            pieceCounts[promotion]++;
+        }
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnKey ^= Zobrist.PIECES[piece][Move.getFrom(move)];
+            if (promotion == EMPTY_FIELD) pawnKey ^= Zobrist.PIECES[piece][Move.getTo(move)];
+        }
+        if (captured != EMPTY_FIELD) {
+            int capturedSquare = Move.fieldToSquare(
+                    flag == Move.EN_PASSANT ? (piece == WHITE_PAWN ? to - 10 : to + 10) : to);
+            key ^= Zobrist.PIECES[captured][capturedSquare];
+            pieceSquareTotal -= PieceSquareTable.VALUES[captured][capturedSquare];
+            pieceCounts[captured]--;
+            if (captured == WHITE_PAWN || captured == BLACK_PAWN) pawnKey ^= Zobrist.PIECES[captured][capturedSquare];
+        }
+        if (flag == Move.EN_PASSANT) fields[piece == WHITE_PAWN ? to - 10 : to + 10] = EMPTY_FIELD;
+        fields[from] = EMPTY_FIELD;
+        fields[to] = promotion != EMPTY_FIELD ? promotion : piece;
+        if (flag == Move.CASTLING) {
+            key ^= moveRook(to, false);
+        }
+
+        //*** Rochade Moeglichkeiten anpassen ********************************************
+        if (from == 25 || to == 25) {
+            WhiteCanShortRochade = false;
+            WhiteCanLongRochade = false;
+        }
+        if (from == 95 || to == 95) {
+            BlackCanShortRochade = false;
+            BlackCanLongRochade = false;
+        }
+        if (from == 21 || to == 21) WhiteCanLongRochade = false;
+        if (from == 28 || to == 28) WhiteCanShortRochade = false;
+        if (from == 91 || to == 91) BlackCanLongRochade = false;
+        if (from == 98 || to == 98) BlackCanShortRochade = false;
+
+        enPassantField = flag == Move.DOUBLE_PAWN_PUSH ? (from + to) / 2 : -1;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter++;
+        lastMove = move;
+        zobristKey = key ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn);
+    }
+
+    /**
+     * Moves the rook of a castling with the king moved to the given field
+     *
+     * @param kingsField int field of the king after castling
+     * @param undo       true to move the rook back to its corner
+     * @return long Zobrist key of the rook on both fields
+     */
+    private long moveRook(int kingsField, boolean undo) {
+        byte rook = kingsField < 90 ? WHITE_ROOK : BLACK_ROOK;
+        int corner = kingsField % 10 == 7 ? kingsField + 1 : kingsField - 2;
+        int target = kingsField % 10 == 7 ? kingsField - 1 : kingsField + 1;
+        fields[undo ? target : corner] = EMPTY_FIELD;
+        fields[undo ? corner : target] = rook;
+        int moved = PieceSquareTable.VALUES[rook][Move.fieldToSquare(target)]
+                - PieceSquareTable.VALUES[rook][Move.fieldToSquare(corner)];
+        pieceSquareTotal += undo ? -moved : moved;
+        return Zobrist.PIECES[rook][Move.fieldToSquare(corner)] ^ Zobrist.PIECES[rook][Move.fieldToSquare(target)];
+    }
+
+    /**
+     * Takes back the last turn executed by {@link #makeMove(int)} or {@link #makeNullMove()}
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No turn to take back");
+        }
+        if (lastMove == Move.NO_MOVE) {
+            unmakeNullMove();
+            return;
+        }
+        int move = lastMove;
+        int from = Move.squareToField(Move.getFrom(move));
+        int to = Move.squareToField(Move.getTo(move));
+        byte piece = Move.getPiece(move);
+        byte captured = Move.getCaptured(move);
+        int flag = Move.getFlag(move);
+        long key = zobristKey ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn)
+                ^ Zobrist.PIECES[piece][Move.getFrom(move)] ^ Zobrist.PIECES[fields[to]][Move.getTo(move)];
+        pieceSquareTotal += PieceSquareTable.VALUES[piece][Move.getFrom(move)]
+                - PieceSquareTable.VALUES[fields[to]][Move.getTo(move)];
+        if (fields[to] != piece) {
+            pieceCounts[fields[to]]--;
+            pieceCounts[piece]++;
+        }
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnKey ^= Zobrist.PIECES[piece][Move.getFrom(move)];
+            if (fields[to] == piece) pawnKey ^= Zobrist.PIECES[piece][Move.getTo(move)];
+        }
+
+        if (flag == Move.CASTLING) {
+            key ^= moveRook(to, true);
+        }
+        fields[from] = piece;
+        if (flag == Move.EN_PASSANT) {
+            fields[to] = EMPTY_FIELD;
+            fields[piece == WHITE_PAWN ? to - 10 : to + 10] = captured;
+            key ^= Zobrist.PIECES[captured][Move.fieldToSquare(piece == WHITE_PAWN ? to - 10 : to + 10)];
+            pieceSquareTotal += PieceSquareTable.VALUES[captured][Move.fieldToSquare(
+                    piece == WHITE_PAWN ? to - 10 : to + 10)];
+            pieceCounts[captured]++;
+            pawnKey ^= Zobrist.PIECES[captured][Move.fieldToSquare(piece == WHITE_PAWN ? to - 10 : to + 10)];
+        } else {
+            fields[to] = captured;
+            if (captured != EMPTY_FIELD) {
+                key ^= Zobrist.PIECES[captured][Move.getTo(move)];
+                pieceSquareTotal += PieceSquareTable.VALUES[captured][Move.getTo(move)];
+                pieceCounts[captured]++;
+                if (captured == WHITE_PAWN || captured == BLACK_PAWN) {
+                    pawnKey ^= Zobrist.PIECES[captured][Move.getTo(move)];
+                }
+            }
+        }
+
+        undoCount--;
+        int state = undoStates[undoCount];
+        lastMove = undoMoves[undoCount];
+        WhiteCanShortRochade = (state & WHITE_SHORT_ROCHADE) != 0;
+        WhiteCanLongRochade = (state & WHITE_LONG_ROCHADE) != 0;
+        BlackCanShortRochade = (state & BLACK_SHORT_ROCHADE) != 0;
+        BlackCanLongRochade = (state & BLACK_LONG_ROCHADE) != 0;
+        enPassantField = ((state >>> 4) & 0x7f) - 1;
+        WhiteLost = (state & WHITE_LOST) != 0;
+        BlackLost = (state & BLACK_LOST) != 0;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter--;
+        zobristKey = key ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn);
+    }
+
+    /**
+     * Takes back a null move, only the player to make turn and the en passant field have changed
+     */
+    private void unmakeNullMove() {
+        long key = zobristKey ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn);
+        undoCount--;
+        lastMove = undoMoves[undoCount];
+        enPassantField = ((undoStates[undoCount] >>> 4) & 0x7f) - 1;
+        playerToMakeTurn = playerToMakeTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        round_counter--;
+        zobristKey = key ^ Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn);
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Calculates the Zobrist key of the position from scratch
+     * <p>
+     * Needed whenever the position was set up without executing turns, writing {@link #fields} or the castling
+     * flags directly is not tracked by the key.
+     * </p>
+     *
+     * @return long key of the position
+     */
+    private long computeZobristKey() {
+        long key = Zobrist.state(getRochades(), getEnPassantFile(), playerToMakeTurn);
+        for (int square = 0; square < 64; square++) {
+            byte piece = fields[Move.squareToField(square)];
+            if (piece > EMPTY_FIELD) key ^= Zobrist.PIECES[piece][square];
+        }
+        return key;
+    }
+
+    /**
+     * Counts the pieces, sums up their {@link PieceSquareTable} values and calculates the pawn key from scratch
+     * <p>
+     * Needed whenever pieces were placed without executing turns, like {@link #computeZobristKey()}.
+     * </p>
+     */
+    private void computePieceTotals() {
+        Arrays.fill(pieceCounts, 0);
+        pieceSquareTotal = 0;
+        pawnKey = 0;
+        for (int square = 0; square < 64; square++) {
+            byte piece = fields[Move.squareToField(square)];
+            if (piece > EMPTY_FIELD) {
+                pieceCounts[piece]++;
+                pieceSquareTotal += PieceSquareTable.VALUES[piece][square];
+                if (piece == WHITE_PAWN || piece == BLACK_PAWN) pawnKey ^= Zobrist.PIECES[piece][square];
+            }
+        }
+    }
+
+    public int getPieceCount(byte piece) {
+        return pieceCounts[piece];
+    }
+
+    public int getPieceSquareTotal() {
+        return pieceSquareTotal;
+    }
+
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    private int getRochades() {
+        return (WhiteCanShortRochade ? WHITE_SHORT_ROCHADE : 0) | (WhiteCanLongRochade ? WHITE_LONG_ROCHADE : 0)
+                | (BlackCanShortRochade ? BLACK_SHORT_ROCHADE : 0) | (BlackCanLongRochade ? BLACK_LONG_ROCHADE : 0);
+    }
+
+    private int getEnPassantFile() {
+        return enPassantField < 0 ? -1 : enPassantField % 10 - 1;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantField < 0 ? -1 : Move.fieldToSquare(enPassantField);
+    }
+
+    public void setEnPassantSquare(int square) {
+        this.enPassantField = square < 0 ? -1 : Move.squareToField(square);
+        this.zobristKey = computeZobristKey();
+    }
+
+    public IChessGame copy() {
+        ChessBoard board = new ChessBoard(this);
+        board.lastMove = this.lastMove;
+        board.heuristicValue = this.heuristicValue;
+        board.parent = this.parent;
+        return board;
+    }
+
+    public void writePosition(ByteBuffer buffer) {
+        PositionCodec.encode(fields, playerToMakeTurn, WhiteCanShortRochade, WhiteCanLongRochade, BlackCanShortRochade,
+                BlackCanLongRochade, getEnPassantSquare(), round_counter, buffer);
+    }
+
+    public void readPosition(ByteBuffer buffer) {
+        int state = PositionCodec.decode(buffer, fields);
+        this.playerToMakeTurn = PositionCodec.getPlayer(state);
+        this.WhiteCanShortRochade = PositionCodec.canRochade(state, true, true);
+        this.WhiteCanLongRochade = PositionCodec.canRochade(state, true, false);
+        this.BlackCanShortRochade = PositionCodec.canRochade(state, false, true);
+        this.BlackCanLongRochade = PositionCodec.canRochade(state, false, false);
+        int enPassantSquare = PositionCodec.getEnPassantSquare(state);
+        this.enPassantField = enPassantSquare < 0 ? -1 : Move.squareToField(enPassantSquare);
+        this.round_counter = PositionCodec.getTurnsMade(state);
+        this.WhiteLost = false;
+        this.BlackLost = false;
+        this.lastMove = Move.NO_MOVE;
+        this.undoCount = 0;
+        this.zobristKey = computeZobristKey();
+        computePieceTotals();
+    }
+
+    /**
+     * Overwrites this board with the position of another board, reusing the arrays of this board
+     * <p>
+     * Same result as {@link #copy()} without allocating, turns made on this board before can not be taken back
+     * afterwards.
+     * </p>
+     *
+     * @param board ChessBoard to copy
+     * @see SearchArena
+     */
+    void copyFrom(ChessBoard board) {
+        System.arraycopy(board.fields, 0, this.fields, 0, this.fields.length);
+        this.BlackCanLongRochade = board.BlackCanLongRochade;
+        this.BlackCanShortRochade = board.BlackCanShortRochade;
+        this.WhiteCanLongRochade = board.WhiteCanLongRochade;
+        this.WhiteCanShortRochade = board.WhiteCanShortRochade;
+        this.round_counter = board.round_counter;
+        this.enPassantField = board.enPassantField;
+        this.BlackLost = board.BlackLost;
+        this.WhiteLost = board.WhiteLost;
+        this.playerToMakeTurn = board.playerToMakeTurn;
+        this.zobristKey = board.zobristKey;
+        System.arraycopy(board.pieceCounts, 0, this.pieceCounts, 0, this.pieceCounts.length);
+        this.pieceSquareTotal = board.pieceSquareTotal;
+        this.pawnKey = board.pawnKey;
+        this.lastMove = board.lastMove;
+        this.heuristicValue = board.heuristicValue;
+        this.parent = board.parent;
+        this.undoCount = 0;
+    }
+
+    public byte[] getFields() {
+        return fields;
+    }
+
+    public boolean canWhiteShortRochade() {
+        return WhiteCanShortRochade;
+    }
+
+    public boolean canWhiteLongRochade() {
+        return WhiteCanLongRochade;
+    }
+
+    public boolean canBlackShortRochade() {
+        return BlackCanShortRochade;
+    }
+
+    public boolean canBlackLongRochade() {
+        return BlackCanLongRochade;
+    }
 }
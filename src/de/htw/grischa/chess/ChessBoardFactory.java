@@ -0,0 +1,92 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.database.GDBRunner;
+import org.apache.log4j.Logger;
+
+import java.io.FileInputStream;
+import java.util.Properties;
+
+/**
+ * Creates the chessboards used by client and worker nodes
+ * <p>
+ * The implementation is selected once at startup by the property <code>grischa.board</code> of the properties
+ * file, either <code>mailbox</code> for {@link ChessBoard} or <code>bitboard</code> for
+ * {@link BitboardChessBoard}. Falls back to {@link ChessBoard} if the property or the file is missing.
+ * </p>
+ */
+public class ChessBoardFactory {
+    /**
+     * Name of the property selecting the board implementation
+     */
+    public static final String PROPERTY = "grischa.board";
+    private final static Logger log = Logger.getLogger(ChessBoardFactory.class);
+    private static BoardType boardType;
+
+    private ChessBoardFactory() {
+    }
+
+    /**
+     * Returns the board implementation in use, reads the properties file on first call
+     *
+     * @return BoardType in use
+     */
+    public static synchronized BoardType getBoardType() {
+        if (boardType == null) {
+            boardType = BoardType.MAILBOX;
+            try {
+                Properties properties = new Properties();
+                FileInputStream propertiesFile = new FileInputStream(GDBRunner.properties);
+                properties.load(propertiesFile);
+                propertiesFile.close();
+                String value = properties.getProperty(PROPERTY);
+                if (value != null) {
+                    boardType = BoardType.valueOf(value.trim().toUpperCase());
+                }
+            } catch (Exception e) {
+                log.error("Could not detect board settings from properties file, using " + boardType);
+            }
+            log.info("Using " + boardType + " chessboard");
+        }
+        return boardType;
+    }
+
+    /**
+     * Overrides the board implementation read from the properties file
+     *
+     * @param type BoardType to use from now on
+     */
+    public static synchronized void setBoardType(BoardType type) {
+        boardType = type;
+    }
+
+    /**
+     * Creates an empty board with white to move
+     *
+     * @return IChessGame empty board
+     */
+    public static IChessGame newChessBoard() {
+        if (getBoardType() == BoardType.BITBOARD) {
+            return new BitboardChessBoard();
+        }
+        return new ChessBoard();
+    }
+
+    /**
+     * Provides the standard starting position
+     *
+     * @return IChessGame with starting position
+     */
+    public static IChessGame getStandardChessBoard() {
+        if (getBoardType() == BoardType.BITBOARD) {
+            return BitboardChessBoard.getStandardChessBoard();
+        }
+        return ChessBoard.getStandardChessBoard();
+    }
+
+    /**
+     * Available board implementations
+     */
+    public enum BoardType {
+        MAILBOX, BITBOARD
+    }
+}
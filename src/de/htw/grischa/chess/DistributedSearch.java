@@ -1,7 +1,8 @@
 package de.htw.grischa.chess;
 
 import java.util.ArrayList;
-import java.util.TreeMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -17,7 +18,7 @@ import de.htw.grischa.registry.GWorkerNodeRegistry;
 public class DistributedSearch {
     private final static Logger LOG = Logger.getLogger(DistributedSearch.class);
     private IChessGame mNextGame;
-    private TreeMap<String, Integer> mResultset;
+    private HashMap<Long, Integer> mResultset;
     private Player mMaxPlayer;
     private IChessGame mGame;
     private ExecutorService mExecutorService = null;
@@ -27,7 +28,7 @@ public class DistributedSearch {
     }
 
     public void getAlphaBetaTurn(IChessGame game, long wait) {
-        mResultset = new TreeMap<String, Integer>();
+        mResultset = new HashMap<Long, Integer>();
         mMaxPlayer = game.getPlayerToMakeTurn();
         mGame = game; // Assign the game it's needed in the collectJobResults() method.
 
@@ -37,7 +38,7 @@ public class DistributedSearch {
 
         // Create a task dispatcher for each game move. If none or not enough nodes available
         // compute move locally.
-        ArrayList<String> gamesAsString = new ArrayList<String>();
+        HashSet<Long> gameKeys = new HashSet<Long>();
         for (int i = 0; i < gamesToCompute.size(); i++) {
             if (i >= nodes.size()) {
                 this.computeLocally(gamesToCompute.get(i));
@@ -55,7 +56,7 @@ public class DistributedSearch {
 
         // TODO - laurence: maybe it is a better idea to put this into AlphaBetaSearchGridResults?
         for (int i = 0; i < gamesToCompute.size(); i++) {
-            gamesAsString.add(gamesToCompute.get(i).getStringRepresentation());
+            gameKeys.add(gamesToCompute.get(i).getZobristKey());
         }
 
         // Give the nodes some time to compute their tasks if any node is available else use local
@@ -72,7 +73,7 @@ public class DistributedSearch {
 
         // Do the final search for the best move using the results form the nodes (or if no or not
         // nodes available local computed results) to get the best move.
-        AlphaBetaSearchGridResults abs = new AlphaBetaSearchGridResults(gamesAsString, mResultset);
+        AlphaBetaSearchGridResults abs = new AlphaBetaSearchGridResults(gameKeys, mResultset);
         abs.getAlphaBetaTurn(0, game);
         this.mNextGame = abs.nextGame;
     }
@@ -104,11 +105,11 @@ public class DistributedSearch {
             Integer result = Integer.valueOf((String) tmp);
 
             GTask task = (GTask) receptor.getTask();
-            String currentGame = task.getChessGame().getStringRepresentation();
-            if ((currentGame.getBytes())[64] == mGame.getStringRepresentation().getBytes()[64]) {
-                mResultset.put(currentGame, result);
+            IChessGame currentGame = task.getChessGame();
+            if (currentGame.getPlayerToMakeTurn() == mGame.getPlayerToMakeTurn()) {
+                mResultset.put(currentGame.getZobristKey(), result);
             } else {
-                mResultset.put(currentGame, result * (-1));
+                mResultset.put(currentGame.getZobristKey(), result * (-1));
             }
         }
     }
@@ -155,12 +156,12 @@ public class DistributedSearch {
         // Wenn spieler für den gerechnet wird dran ist
         if (game.getPlayerToMakeTurn() == mMaxPlayer) {
             value = abs.getAlphaBetaTurn(0, game);
-            this.mResultset.put(game.getStringRepresentation(), value);
+            this.mResultset.put(game.getZobristKey(), value);
         } else { // Wenn Gegner dran ist
             value = abs.getAlphaBetaTurn(1, game);
             // Bewertung -> Vorzeichen vertauschen
             value = value * (-1);
-            this.mResultset.put(game.getStringRepresentation(), value);
+            this.mResultset.put(game.getZobristKey(), value);
         }
     }
 }
@@ -20,16 +20,23 @@ public class GridGameManager {
     }
 
     public void init() {
-        this.board = ChessBoard.getStandardChessBoard();
+        this.board = ChessBoardFactory.getStandardChessBoard();
     }
 
     public void init(String board, boolean k_Castling, boolean q_Castling, boolean K_Castling,
             boolean Q_Castling) {
-        this.board = new ChessBoard();
+        init(board, k_Castling, q_Castling, K_Castling, Q_Castling, -1);
+    }
+
+    public void init(String board, boolean k_Castling, boolean q_Castling, boolean K_Castling,
+            boolean Q_Castling, int enPassantSquare) {
+        this.board = ChessBoardFactory.newChessBoard();
         this.board.loadFromString(board);
 
         // Rochade noch moeglich oder nicht
         this.board.setRochade(k_Castling, q_Castling, K_Castling, Q_Castling);
+        // En passant Feld des letzten Doppelschritts
+        this.board.setEnPassantSquare(enPassantSquare);
     }
 
     public boolean opponentTurn(String turn) throws Exception {
@@ -0,0 +1,59 @@
+package de.htw.grischa.chess;
+
+import java.util.Arrays;
+
+/**
+ * History heuristic: how often a quiet turn caused a cutoff, indexed by the moving piece and the target square
+ * <p>
+ * Every cutoff adds the square of the remaining depth, so cutoffs near the root weigh more than those near the
+ * leaves. Quiet turns are tried in the order of their history. The table belongs to the {@link SearchArena} of a
+ * thread and is kept between searches, {@link #age()} halves all counts so recent searches dominate.
+ * </p>
+ */
+public class HistoryTable {
+    // Counts are halved before any of them can exceed this
+    private static final int MAX_COUNT = 1 << 24;
+    private final int[] counts = new int[(ChessBoard.WHITE_KING + 1) * 64];
+
+    /**
+     * Records a cutoff
+     *
+     * @param move  int packed quiet turn causing the cutoff
+     * @param draft int remaining depth of the node
+     */
+    public void add(int move, int draft) {
+        int index = index(move);
+        counts[index] += draft * draft;
+        if (counts[index] >= MAX_COUNT) age();
+    }
+
+    /**
+     * Returns the history of a turn
+     *
+     * @param move int packed turn
+     * @return int weighted number of cutoffs
+     */
+    public int get(int move) {
+        return counts[index(move)];
+    }
+
+    /**
+     * Halves all counts
+     */
+    public void age() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] >>= 1;
+        }
+    }
+
+    /**
+     * Forgets all counts
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    private static int index(int move) {
+        return Move.getPiece(move) << 6 | Move.getTo(move);
+    }
+}
@@ -1,5 +1,6 @@
 package de.htw.grischa.chess;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 /**
@@ -40,6 +41,24 @@ public interface IChessGame extends Comparable<IChessGame> {
      */
     public String getStringRepresentation();
 
+    /**
+     * Writes the position in the binary format of {@link PositionCodec}, including castling rights, en passant
+     * square and number of turns made
+     *
+     * @param buffer ByteBuffer to write {@link PositionCodec#SIZE} bytes to
+     */
+    public void writePosition(ByteBuffer buffer);
+
+    /**
+     * Loads a position written by {@link #writePosition(ByteBuffer)}
+     * <p>
+     * Turns made before can not be taken back afterwards.
+     * </p>
+     *
+     * @param buffer ByteBuffer to read {@link PositionCodec#SIZE} bytes from
+     */
+    public void readPosition(ByteBuffer buffer);
+
     /**
      * Returns player to make turn
      *
@@ -54,6 +73,74 @@ public interface IChessGame extends Comparable<IChessGame> {
      */
     public ArrayList<IChessGame> getNextTurns();
 
+    /**
+     * Fills the array with the legal turns of the player to make turn
+     * <p>
+     * Turns are packed into ints as described in {@link Move} and can be executed by {@link #makeMove(int)}. No turn
+     * leaves the own king in check, so a position without turns is check mate if {@link #isInCheck()}, else a
+     * draw.
+     * </p>
+     *
+     * @param moves int[] to fill, needs room for {@link Move#MAX_MOVES} turns
+     * @return int number of turns written to the array
+     */
+    public int generateMoves(int[] moves);
+
+    /**
+     * Fills the array with the legal captures and promotions of the player to make turn
+     * <p>
+     * Together with {@link #generateQuietMoves(int[])} this yields the same turns as {@link #generateMoves(int[])}.
+     * </p>
+     *
+     * @param moves int[] to fill, needs room for {@link Move#MAX_MOVES} turns
+     * @return int number of turns written to the array
+     */
+    public int generateCaptures(int[] moves);
+
+    /**
+     * Fills the array with the legal turns of the player to make turn neither capturing nor promoting
+     *
+     * @param moves int[] to fill, needs room for {@link Move#MAX_MOVES} turns
+     * @return int number of turns written to the array
+     * @see #generateCaptures(int[])
+     */
+    public int generateQuietMoves(int[] moves);
+
+    /**
+     * Executes a turn generated by {@link #generateMoves(int[])} on this board
+     * <p>
+     * The board is changed in place, the turn can be taken back by {@link #unmakeMove()}.
+     * </p>
+     *
+     * @param move int packed move
+     */
+    public void makeMove(int move);
+
+    /**
+     * Passes the turn to the opponent without moving, as used by null move pruning
+     * <p>
+     * Must not be called while in check. The null move is taken back by {@link #unmakeMove()} like a turn.
+     * </p>
+     */
+    public void makeNullMove();
+
+    /**
+     * Takes back the last turn executed by {@link #makeMove(int)} or {@link #makeNullMove()}
+     *
+     * @throws IllegalStateException if no turn was executed since the position was set up, the board is unchanged
+     */
+    public void unmakeMove();
+
+    /**
+     * Returns an independent copy of the board
+     * <p>
+     * Turns executed on the copy do not change this board. The copy can not take back turns made before copying.
+     * </p>
+     *
+     * @return IChessGame copy of the board
+     */
+    public IChessGame copy();
+
     /**
      * Calculates the current quality of the game for selected player
      *
@@ -119,6 +206,13 @@ public interface IChessGame extends Comparable<IChessGame> {
      */
     public boolean isLegalBoard();
 
+    /**
+     * Returns if the king of the player to make turn is attacked
+     *
+     * @return true if in check
+     */
+    public boolean isInCheck();
+
     /**
      * Returns the status of the board:
      * <p>
@@ -139,8 +233,29 @@ public interface IChessGame extends Comparable<IChessGame> {
      */
     public void setRochade(boolean k_Castling, boolean q_Castling, boolean K_Castling, boolean Q_Castling);
 
+    /**
+     * Returns the square a pawn can be captured en passant on
+     * <p>
+     * Set by every double pawn push and cleared by every other turn.
+     * </p>
+     *
+     * @return int square 0-63 (a1 = 0, h8 = 63) passed by the pawn, -1 if none
+     */
+    public int getEnPassantSquare();
+
+    /**
+     * Sets the square a pawn can be captured en passant on, e.g. read from a FEN
+     *
+     * @param square int square 0-63 (a1 = 0, h8 = 63) passed by the pawn, -1 if none
+     */
+    public void setEnPassantSquare(int square);
+
     /**
      * Returns if white has lost the game
+     * <p>
+     * Only set if the king got captured, which legal turns never do. Use {@link #getGameState()} to detect the end
+     * of a game.
+     * </p>
      *
      * @return boolean true if white has lost
      */
@@ -150,6 +265,7 @@ public interface IChessGame extends Comparable<IChessGame> {
      * Returns if black has lost the game
      *
      * @return boolean true if black has lost
+     * @see #hasWhiteLost()
      */
     public boolean hasBlackLost();
 
@@ -164,11 +280,26 @@ public interface IChessGame extends Comparable<IChessGame> {
 
     /**
      * Generates a MD5-Hash of this board to identify in database
+     * <p>
+     * Expensive, use {@link #getZobristKey()} wherever a key of the position is needed.
+     * </p>
      *
      * @return String hash length 32
      */
     public String getMD5Hash();
 
+    /**
+     * Returns the 64 bit Zobrist key of the position
+     * <p>
+     * The key covers the pieces, the player to make turn, the castling rights and the file of the en passant
+     * square. It is kept up to date by every turn, so reading it costs nothing.
+     * </p>
+     *
+     * @return long key of the position
+     * @see Zobrist
+     */
+    public long getZobristKey();
+
     /**
      * Return the parent off the game
      * <p>
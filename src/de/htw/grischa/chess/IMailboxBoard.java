@@ -0,0 +1,114 @@
+package de.htw.grischa.chess;
+
+/**
+ * Read access to a position in the 10x12 field layout of {@link ChessBoard}
+ * <p>
+ * The evaluation in {@link Quality} works on this view, so it can rate every board implementation
+ * regardless of how the board stores its position internally.
+ * </p>
+ *
+ * @see ChessBoard#fields
+ */
+public interface IMailboxBoard {
+
+    /**
+     * Returns the 120 fields of the board, indexed like {@link ChessBoard#fields}
+     * <p>
+     * The array must not be modified by the caller.
+     * </p>
+     *
+     * @return byte[] fields holding the piece constants of {@link ChessBoard}
+     */
+    public byte[] getFields();
+
+    /**
+     * Returns if a field is attacked by a white piece
+     *
+     * @param field int field index
+     * @return true if attacked
+     */
+    public boolean IsFieldAttackedByWhite(int field);
+
+    /**
+     * Returns if a field is attacked by a black piece
+     *
+     * @param field int field index
+     * @return true if attacked
+     */
+    public boolean IsFieldAttackedByBlack(int field);
+
+    /**
+     * Returns the attacks of both players
+     * <p>
+     * Computed once per position and cached, prefer it to {@link #IsFieldAttackedByWhite(int)} and
+     * {@link #IsFieldAttackedByBlack(int)} when asking for many squares.
+     * </p>
+     *
+     * @return AttackMap of the current position, must not be modified
+     */
+    public AttackMap getAttackMap();
+
+    /**
+     * Returns the number of pieces of a kind on the board
+     *
+     * @param piece byte piece constant of {@link ChessBoard}
+     * @return int number of pieces
+     */
+    public int getPieceCount(byte piece);
+
+    /**
+     * Returns the sum of the material and piece square values of all pieces
+     * <p>
+     * Kept up to date by every executed and taken back turn.
+     * </p>
+     *
+     * @return int total in centipawns from the view of white
+     */
+    public int getPieceSquareTotal();
+
+    /**
+     * Returns the Zobrist key of the pawns only
+     * <p>
+     * The XOR of the {@link Zobrist} numbers of all pawns on their squares, kept up to date by every executed and
+     * taken back turn. Positions with the same pawn structure share the key.
+     * </p>
+     *
+     * @return long pawn key, 0 without pawns
+     */
+    public long getPawnKey();
+
+    /**
+     * Returns the number of turns made since the start of the game
+     *
+     * @return int turns made
+     */
+    public int getTurnsMade();
+
+    /**
+     * Returns if white may still castle king side
+     *
+     * @return true if short castling is allowed
+     */
+    public boolean canWhiteShortRochade();
+
+    /**
+     * Returns if white may still castle queen side
+     *
+     * @return true if long castling is allowed
+     */
+    public boolean canWhiteLongRochade();
+
+    /**
+     * Returns if black may still castle king side
+     *
+     * @return true if short castling is allowed
+     */
+    public boolean canBlackShortRochade();
+
+    /**
+     * Returns if black may still castle queen side
+     *
+     * @return true if long castling is allowed
+     */
+    public boolean canBlackLongRochade();
+}
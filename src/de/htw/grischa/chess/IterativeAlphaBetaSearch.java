@@ -18,6 +18,20 @@ import java.util.concurrent.LinkedBlockingQueue;
  * <p>
  * Goes down the Breadth-first search and searches every second ply for best move
  * </p>
+ * <p>
+ * The search deepens until its time or node budget is used up, {@link #stop()} is called or {@link #MAX_DEPTH} is
+ * reached. Running out of budget or being stopped aborts the running iteration cooperatively within about a
+ * thousand nodes. {@link #getValue()} and {@link #bestTurn} always hold the answer of the last completed iteration,
+ * replaced by the best turn of an aborted iteration if that searched at least one successor completely.
+ * </p>
+ * <p>
+ * By default every iteration runs as principal variation search within an aspiration window around the value of
+ * the previous iteration; a value outside the window widens it on that side and searches again. Both can be switched
+ * off to compare the time to depth with the plain min/max search. The principal variation search also prunes by null
+ * moves, reduces late quiet turns, prunes at the frontier and skips losing captures close to the horizon by default,
+ * each of which can be switched off on its own. Both forms rate the horizon by a quiescence search with a budget of
+ * {@link #DEFAULT_QUIESCENCE_NODES} nodes.
+ * </p>
  * <h3>Version History</h3>
  * <ul>
  * <li> 0.1 - 04/10 - Heim - Initial Version </li>
@@ -34,14 +48,51 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class IterativeAlphaBetaSearch implements Runnable {
     //looger
     private final static Logger log = Logger.getLogger(IterativeAlphaBetaSearch.class);
+    // Size of the transposition table in megabytes
+    private final static int TRANSPOSITION_TABLE_SIZE_MB = 32;
+    // Shared by the searches of all tasks and threads of the node, positions recur between tasks
+    private final static TranspositionTable transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_SIZE_MB);
+    /**
+     * Deepest iteration searched
+     */
+    public final static int MAX_DEPTH = 64;
+    /**
+     * Default half width of the aspiration window, half a pawn in centipawns
+     */
+    public final static int DEFAULT_ASPIRATION_WINDOW = 50;
+    /**
+     * Default node budget of the quiescence search at every node of the horizon
+     */
+    public final static int DEFAULT_QUIESCENCE_NODES = 64;
     // Current game (board) to search the best move for
     private final IChessGame game;
     // Player to be maximized
     private final Player maximizingPlayer;
+    // Time the search may take in milliseconds, 0 for no limit
+    private final long timeBudget;
+    // Nodes the search may visit over all iterations, 0 for no limit
+    private final long nodeBudget;
     // Best turn calculated by Alpha-Beta-Search
-    public IChessGame bestTurn;
+    public volatile IChessGame bestTurn;
     //Current value of the board calculated
-    private int value;
+    private volatile int value;
+    // Depth of the last completed iteration, -1 if none
+    private volatile int completedDepth = -1;
+    // Set by stop(), checked before every iteration
+    private volatile boolean stopRequested = false;
+    // Search of the running iteration, null before the first one
+    private volatile AlphaBetaSearchFixedDepth search;
+    // Negamax principal variation search instead of min/max
+    private boolean principalVariationSearch = true;
+    // Half width of the aspiration window, 0 to search every iteration with the full window
+    private int aspirationWindow = DEFAULT_ASPIRATION_WINDOW;
+    // Selective search of the principal variation search
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean frontierPruning = true;
+    private boolean exchangePruning = true;
+    // Nodes the quiescence search of a horizon node may expand, 0 to rate the horizon statically
+    private int quiescenceNodeLimit = DEFAULT_QUIESCENCE_NODES;
 
     /**
      * Constructor extracting player to maximize from game
@@ -49,8 +100,7 @@ public class IterativeAlphaBetaSearch implements Runnable {
      * @param game IChessGame board to calculate the best move
      */
     public IterativeAlphaBetaSearch(IChessGame game) {
-        this.game = game;
-        this.maximizingPlayer = game.getPlayerToMakeTurn();
+        this(game, game.getPlayerToMakeTurn());
     }
 
     /**
@@ -60,19 +110,121 @@ public class IterativeAlphaBetaSearch implements Runnable {
      * @param maximizingPlayer Player to maximize
      */
     public IterativeAlphaBetaSearch(IChessGame game, Player maximizingPlayer) {
+        this(game, maximizingPlayer, 0, 0);
+    }
+
+    /**
+     * Constructor given explicit player to maximize and the budget of the search
+     *
+     * @param game             IChessGame board to calculate the best move
+     * @param maximizingPlayer Player to maximize
+     * @param timeBudget       long time the search may take in milliseconds, 0 to search until stopped
+     * @param nodeBudget       long nodes the search may visit over all iterations, 0 for no limit
+     */
+    public IterativeAlphaBetaSearch(IChessGame game, Player maximizingPlayer, long timeBudget, long nodeBudget) {
         this.game = game;
         this.maximizingPlayer = maximizingPlayer;
+        this.timeBudget = timeBudget;
+        this.nodeBudget = nodeBudget;
     }
 
     /**
      * Getter value
      *
-     * @return int value
+     * @return int value of the last completed iteration or of the best turn of an aborted one
      */
     public int getValue() {
         return value;
     }
 
+    /**
+     * Returns the depth of the last completed iteration
+     *
+     * @return int depth, -1 if no iteration completed yet
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Selects the form of the search, must be called before {@link #run()}
+     *
+     * @param principalVariationSearch boolean true for negamax principal variation search, false for min/max
+     */
+    public void setPrincipalVariationSearch(boolean principalVariationSearch) {
+        this.principalVariationSearch = principalVariationSearch;
+    }
+
+    /**
+     * Sets the aspiration window, must be called before {@link #run()}
+     *
+     * @param aspirationWindow int half width of the window in centipawns, 0 to always search with the full window
+     */
+    public void setAspirationWindow(int aspirationWindow) {
+        this.aspirationWindow = aspirationWindow;
+    }
+
+    /**
+     * Switches null move pruning of the principal variation search, must be called before {@link #run()}
+     *
+     * @param nullMovePruning boolean true to prune by null moves
+     * @see AlphaBetaSearch#setNullMovePruning(boolean)
+     */
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    /**
+     * Switches late move reductions of the principal variation search, must be called before {@link #run()}
+     *
+     * @param lateMoveReductions boolean true to reduce late quiet turns
+     * @see AlphaBetaSearch#setLateMoveReductions(boolean)
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * Switches futility pruning, reverse futility pruning and razoring of the principal variation search, must be
+     * called before {@link #run()}
+     *
+     * @param frontierPruning boolean true to prune at the frontier
+     * @see AlphaBetaSearch#setFrontierPruning(boolean)
+     */
+    public void setFrontierPruning(boolean frontierPruning) {
+        this.frontierPruning = frontierPruning;
+    }
+
+    /**
+     * Switches pruning of captures losing material in the principal variation search, must be called before
+     * {@link #run()}
+     *
+     * @param exchangePruning boolean true to prune losing captures
+     * @see AlphaBetaSearch#setExchangePruning(boolean)
+     */
+    public void setExchangePruning(boolean exchangePruning) {
+        this.exchangePruning = exchangePruning;
+    }
+
+    /**
+     * Sets the node budget of the quiescence search at the horizon, must be called before {@link #run()}
+     *
+     * @param quiescenceNodeLimit int nodes expanded per horizon node, 0 to rate the horizon by the static evaluation
+     * @see AlphaBetaSearch#setQuiescenceNodeLimit(int)
+     */
+    public void setQuiescenceNodeLimit(int quiescenceNodeLimit) {
+        this.quiescenceNodeLimit = quiescenceNodeLimit;
+    }
+
+    /**
+     * Ends the search as soon as possible, keeping the answer of the last iteration, may be called from any thread
+     */
+    public void stop() {
+        stopRequested = true;
+        AlphaBetaSearchFixedDepth running = search;
+        if (running != null) running.stop();
+    }
+
     /**
      * threading through runnable interface
      * run method containing breadth-first-search
@@ -89,6 +241,7 @@ public class IterativeAlphaBetaSearch implements Runnable {
         BlockingQueue<DatabaseEntry> queue = null;
         CommitThread worker;
         int depth;
+        int bestMove = Move.NO_MOVE;
         AlphaBetaSearchFixedDepth abp;
 
         try {
@@ -126,28 +279,99 @@ public class IterativeAlphaBetaSearch implements Runnable {
         } else {
             log.trace("This is a non databased search run");
         }
-        while (true) {
-            abp = new AlphaBetaSearchFixedDepth();
-            abp.setUseDB(useDB);
+        //One search for all iterations, its boards and turn lists are recycled by the SearchArena of this thread
+        abp = new AlphaBetaSearchFixedDepth();
+        abp.setUseDB(useDB);
+        abp.setTranspositionTable(transpositionTable);
+        abp.setPrincipalVariationSearch(principalVariationSearch);
+        abp.setNullMovePruning(nullMovePruning);
+        abp.setLateMoveReductions(lateMoveReductions);
+        abp.setFrontierPruning(frontierPruning);
+        abp.setExchangePruning(exchangePruning);
+        abp.setQuiescenceNodeLimit(quiescenceNodeLimit);
+        long searchStart = System.nanoTime();
+        if (timeBudget > 0) {
+            abp.setDeadline(searchStart + timeBudget * 1000000L);
+        }
+        long nodes = 0;
+        search = abp;
+        while (!stopRequested && depth <= MAX_DEPTH) {
+            //Try the best move of the last iteration first
+            abp.setHashMove(bestMove);
             if (depth > 3 && useDB) {
                 abp.setQueue(queue);
                 abp.setFileSearch(fileSearch);
             }
             long startTime = System.nanoTime();
-            value = abp.getAlphaBetaTurn(depth, game, fileSearch);
+            //Aspiration window around the value of the last iteration
+            int delta = aspirationWindow;
+            int alpha = AlphaBetaSearch.MIN_INT;
+            int beta = AlphaBetaSearch.MAX_INT;
+            if (aspirationWindow > 0 && completedDepth > 0) {
+                alpha = Math.max(AlphaBetaSearch.MIN_INT, value - delta);
+                beta = Math.min(AlphaBetaSearch.MAX_INT, value + delta);
+            }
+            int iterationValue;
+            int researches = 0;
+            while (true) {
+                if (nodeBudget > 0) {
+                    abp.setNodeLimit(Math.max(1, nodeBudget - nodes));
+                }
+                iterationValue = abp.getAlphaBetaTurn(depth, game, fileSearch, alpha, beta);
+                nodes += abp.getNodes();
+                if (abp.isAborted()) {
+                    break;
+                }
+                //Widen the window on the failing side, starting from the turn found
+                if (iterationValue <= alpha && alpha > AlphaBetaSearch.MIN_INT) {
+                    delta *= 4;
+                    alpha = Math.max(AlphaBetaSearch.MIN_INT, iterationValue - delta);
+                } else if (iterationValue >= beta && beta < AlphaBetaSearch.MAX_INT) {
+                    delta *= 4;
+                    beta = Math.min(AlphaBetaSearch.MAX_INT, iterationValue + delta);
+                    abp.setHashMove(abp.getBestMove());
+                } else {
+                    break;
+                }
+                researches++;
+            }
             long endTime = System.nanoTime();
+            long duration = ((endTime - startTime) / 1000000 );
+            if (abp.isAborted()) {
+                //Keep the last iteration unless the aborted one found a turn searched completely, a value at most
+                //alpha only bounds the turns searched so far
+                if (abp.getBestMove() != Move.NO_MOVE && iterationValue > alpha) {
+                    bestTurn = abp.nextGame;
+                    value = iterationValue;
+                }
+                log.info("Breadth-first search aborted at depth " + depth + " after " + duration + " ms, "
+                        + nodes + " nodes");
+                break;
+            }
             //Mark best move
             bestTurn = abp.nextGame;
-            long duration = ((endTime - startTime) / 1000000 );
+            bestMove = abp.getBestMove();
+            value = iterationValue;
+            completedDepth = depth;
+            log.info("Breadth-first depth: " + depth + " Value: " + value + " calculation duration: " + duration + " ms");
+            log.debug("Leaves rated lazily: " + abp.getLazyEvaluations() + " completely: " + abp.getFullEvaluations());
+            log.debug("Nodes: " + abp.getNodes() + " cutoffs: " + abp.getCutoffs() + " on first turn: "
+                    + (abp.getCutoffs() == 0 ? 0 : abp.getFirstMoveCutoffs() * 100 / abp.getCutoffs()) + "%"
+                    + " aspiration researches: " + researches + " null window researches: " + abp.getResearches());
+            log.debug("Null moves: " + abp.getNullMoves() + " failing high: " + abp.getNullMoveCutoffs()
+                    + " reduced turns: " + abp.getReducedMoves() + " searched again: " + abp.getReductionResearches());
+            log.debug("Futility pruned turns: " + abp.getFutilityPrunes() + " reverse futility: "
+                    + abp.getReverseFutilityPrunes() + " razored: " + abp.getRazorPrunes() + " losing captures: "
+                    + abp.getExchangePrunes());
+            log.debug("Quiescence nodes: " + abp.getQuiescenceNodes() + " delta pruned captures: "
+                    + abp.getDeltaPrunes());
             //Search two plies deeper
             depth += 2;
-            log.info("Breadth-first depth: " + depth + " Value: " + value + " calculation duration: " + duration + " ms");
-            // original value 40
-            if (depth > 5) {
-                log.info("Breadth-first search terminated due to maximum depth of 5");
+            if (nodeBudget > 0 && nodes >= nodeBudget) {
                 break;
             }
         }
+        log.debug("Breadth-first search finished after " + (System.nanoTime() - searchStart) / 1000000 + " ms");
     }
 }
 
@@ -0,0 +1,84 @@
+package de.htw.grischa.chess;
+
+/**
+ * Targets of the pieces on every field of the 10x12 layout of {@link ChessBoard}, built once at class load
+ * <p>
+ * A ray lists the fields a sliding piece passes in one direction, nearest first, up to the edge of the board. The
+ * jump tables list the fields a knight or king reaches. Fields of the border are left out of every table and have
+ * no targets themselves, so walking a table needs neither multiplying direction offsets nor checking for the
+ * border.
+ * </p>
+ */
+final class MailboxTables {
+    static final int[] ROOK_DIRECTIONS = {-10, -1, 1, 10};
+    static final int[] KNIGHT_DIRECTIONS = {-21, -19, -8, 12, 21, 19, 8, -12};
+    static final int[] BISHOP_DIRECTIONS = {-11, -9, 9, 11};
+    static final int[] QUEEN_DIRECTIONS = {-11, -10, -9, -1, 1, 9, 10, 11};
+
+    /**
+     * Rays of a rook, indexed by the field and the index of the direction in {@link #ROOK_DIRECTIONS}
+     */
+    static final int[][][] ROOK_RAYS = new int[120][][];
+    /**
+     * Rays of a bishop, indexed by the field and the index of the direction in {@link #BISHOP_DIRECTIONS}
+     */
+    static final int[][][] BISHOP_RAYS = new int[120][][];
+    /**
+     * Rays of a queen, indexed by the field and the index of the direction in {@link #QUEEN_DIRECTIONS}
+     */
+    static final int[][][] QUEEN_RAYS = new int[120][][];
+    /**
+     * Fields reached by a knight, indexed by the field
+     */
+    static final int[][] KNIGHT_TARGETS = new int[120][];
+    /**
+     * Fields reached by a king, indexed by the field
+     */
+    static final int[][] KING_TARGETS = new int[120][];
+
+    static {
+        for (int field = 0; field < 120; field++) {
+            ROOK_RAYS[field] = rays(field, ROOK_DIRECTIONS);
+            BISHOP_RAYS[field] = rays(field, BISHOP_DIRECTIONS);
+            QUEEN_RAYS[field] = rays(field, QUEEN_DIRECTIONS);
+            KNIGHT_TARGETS[field] = jumps(field, KNIGHT_DIRECTIONS);
+            KING_TARGETS[field] = jumps(field, QUEEN_DIRECTIONS);
+        }
+    }
+
+    private MailboxTables() {
+    }
+
+    private static boolean isOnBoard(int field) {
+        return field >= 21 && field <= 98 && field % 10 != 0 && field % 10 != 9;
+    }
+
+    private static int[][] rays(int field, int[] directions) {
+        int[][] rays = new int[isOnBoard(field) ? directions.length : 0][];
+        for (int i = 0; i < rays.length; i++) {
+            int length = 0;
+            for (int target = field + directions[i]; isOnBoard(target); target += directions[i]) {
+                length++;
+            }
+            rays[i] = new int[length];
+            for (int u = 0; u < length; u++) {
+                rays[i][u] = field + directions[i] * (u + 1);
+            }
+        }
+        return rays;
+    }
+
+    private static int[] jumps(int field, int[] directions) {
+        if (!isOnBoard(field)) return new int[0];
+        int count = 0;
+        for (int direction : directions) {
+            if (isOnBoard(field + direction)) count++;
+        }
+        int[] targets = new int[count];
+        count = 0;
+        for (int direction : directions) {
+            if (isOnBoard(field + direction)) targets[count++] = field + direction;
+        }
+        return targets;
+    }
+}
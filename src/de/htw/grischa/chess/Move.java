@@ -0,0 +1,192 @@
+package de.htw.grischa.chess;
+
+/**
+ * Helper for moves packed into a single int
+ * <p>
+ * Squares are numbered 0-63 starting from A1, B1, ... , H8. Pieces use the byte constants of
+ * {@link ChessBoard}. Layout of the packed int:
+ * </p>
+ * <pre>
+ * bits  0- 5 from square
+ * bits  6-11 to square
+ * bits 12-16 moving piece
+ * bits 17-21 captured piece, {@link ChessBoard#EMPTY_FIELD} if none
+ * bits 22-26 promotion piece, {@link ChessBoard#EMPTY_FIELD} if none
+ * bits 27-29 flag, one of {@link #NORMAL}, {@link #DOUBLE_PAWN_PUSH}, {@link #EN_PASSANT}, {@link #CASTLING}
+ * </pre>
+ * <p>
+ * {@link #NO_MOVE} (0) never describes a real move.
+ * </p>
+ */
+public final class Move {
+    /**
+     * Not a move
+     */
+    public static final int NO_MOVE = 0;
+    /**
+     * Plain move or capture
+     */
+    public static final int NORMAL = 0;
+    /**
+     * Pawn moving two fields from its starting row
+     */
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    /**
+     * Pawn capturing en passant, the captured pawn is not on the to square
+     */
+    public static final int EN_PASSANT = 2;
+    /**
+     * King move of a castling, the rook move is implied
+     */
+    public static final int CASTLING = 3;
+    /**
+     * Maximum number of pseudo legal turns of any reachable position, size of move arrays
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final int SQUARE_MASK = 0x3f;
+    private static final int PIECE_MASK = 0x1f;
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 17;
+    private static final int PROMOTION_SHIFT = 22;
+    private static final int FLAG_SHIFT = 27;
+    // Letter appended to the notation of a promotion, indexed by the promotion piece modulo 10
+    private static final char[] PROMOTION_LETTERS = {' ', ' ', ' ', 'n', 'b', 'r', 'q', ' '};
+    // Square of every field index, saves the division on the hot paths of the boards
+    private static final int[] FIELD_SQUARES = new int[120];
+
+    static {
+        for (int field = 0; field < FIELD_SQUARES.length; field++) {
+            FIELD_SQUARES[field] = (field / 10 - 2) * 8 + field % 10 - 1;
+        }
+    }
+
+    private Move() {
+    }
+
+    /**
+     * Packs a move into an int
+     *
+     * @param from      int square the piece is moved from
+     * @param to        int square the piece is moved to
+     * @param piece     byte moving piece
+     * @param captured  byte captured piece or {@link ChessBoard#EMPTY_FIELD}
+     * @param promotion byte piece the pawn is promoted to or {@link ChessBoard#EMPTY_FIELD}
+     * @param flag      int special move flag
+     * @return int packed move
+     */
+    public static int create(int from, int to, int piece, int captured, int promotion, int flag) {
+        return from | (to << TO_SHIFT) | (piece << PIECE_SHIFT) | (captured << CAPTURED_SHIFT)
+                | (promotion << PROMOTION_SHIFT) | (flag << FLAG_SHIFT);
+    }
+
+    public static int getFrom(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int getTo(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    public static byte getPiece(int move) {
+        return (byte) ((move >>> PIECE_SHIFT) & PIECE_MASK);
+    }
+
+    public static byte getCaptured(int move) {
+        return (byte) ((move >>> CAPTURED_SHIFT) & PIECE_MASK);
+    }
+
+    public static byte getPromotion(int move) {
+        return (byte) ((move >>> PROMOTION_SHIFT) & PIECE_MASK);
+    }
+
+    public static int getFlag(int move) {
+        return move >>> FLAG_SHIFT;
+    }
+
+    /**
+     * Returns if the move captures a piece, en passant included
+     *
+     * @param move int packed move
+     * @return true if a piece is captured
+     */
+    public static boolean isCapture(int move) {
+        return getCaptured(move) != ChessBoard.EMPTY_FIELD;
+    }
+
+    /**
+     * Returns if the move promotes a pawn
+     *
+     * @param move int packed move
+     * @return true if a pawn is promoted
+     */
+    public static boolean isPromotion(int move) {
+        return getPromotion(move) != ChessBoard.EMPTY_FIELD;
+    }
+
+    /**
+     * Converts a square 0-63 to its name, e.g. 12 to e2
+     *
+     * @param square int square
+     * @return String field name
+     */
+    public static String squareToName(int square) {
+        return String.valueOf((char) ('a' + (square & 7))) + (char) ('1' + (square >>> 3));
+    }
+
+    /**
+     * Converts a square 0-63 to the field index used by {@link ChessBoard#fields}
+     *
+     * @param square int square
+     * @return int field index
+     */
+    public static int squareToField(int square) {
+        return (square >>> 3) * 10 + (square & 7) + 21;
+    }
+
+    /**
+     * Converts a field index used by {@link ChessBoard#fields} to a square 0-63
+     *
+     * @param field int field index
+     * @return int square
+     */
+    public static int fieldToSquare(int field) {
+        return FIELD_SQUARES[field];
+    }
+
+    /**
+     * Returns the move in turn notation as used by {@link IChessGame#getTurnNotation()}
+     * <p>
+     * Format d2d4, promotions get the lower case piece letter appended, e.g. e7e8q
+     * </p>
+     *
+     * @param move int packed move
+     * @return String turn notation
+     */
+    public static String toNotation(int move) {
+        String notation = squareToName(getFrom(move)) + squareToName(getTo(move));
+        if (isPromotion(move)) {
+            return notation + PROMOTION_LETTERS[getPromotion(move) % 10];
+        }
+        return notation;
+    }
+
+    /**
+     * Returns if the turn notation describes the move, without building the notation of the move
+     *
+     * @param move int packed move
+     * @param turn String turn notation, e.g. d2d4 or e7e8q
+     * @return true if the turn is the move
+     * @see #toNotation(int)
+     */
+    public static boolean matches(int move, String turn) {
+        int from = getFrom(move);
+        int to = getTo(move);
+        boolean promotion = isPromotion(move);
+        return turn.length() == (promotion ? 5 : 4)
+                && turn.charAt(0) == 'a' + (from & 7) && turn.charAt(1) == '1' + (from >>> 3)
+                && turn.charAt(2) == 'a' + (to & 7) && turn.charAt(3) == '1' + (to >>> 3)
+                && (!promotion || turn.charAt(4) == PROMOTION_LETTERS[getPromotion(move) % 10]);
+    }
+}
@@ -0,0 +1,254 @@
+package de.htw.grischa.chess;
+
+/**
+ * Hands out the turns of a position in stages, generating every stage only when the previous one is used up
+ * <p>
+ * The hash move comes first, then the captures and promotions ordered by MVV-LVA (most valuable victim, least
+ * valuable attacker), then the two killer turns of the ply, then the quiet turns ordered by their
+ * {@link HistoryTable history}, and last the captures losing material by {@link StaticExchange static exchange
+ * evaluation}, which is only asked for captures of a piece cheaper than the capturing one. A search hitting a cutoff
+ * on one of the first turns never generates the remaining stages. The hash move and the killers are only handed out
+ * if the position actually allows them and are skipped in their regular stage. Every stage is ordered lazily,
+ * picking the best remaining turn on each call.
+ * </p>
+ * <p>
+ * An iterator is reused for every node of one ply, so the killers it keeps are the quiet turns causing the last
+ * cutoffs at this ply. The board has to be in the position given to {@link #reset(IChessGame, int)} whenever
+ * {@link #next()} is called, which is the case if every turn is taken back before asking for the next one.
+ * </p>
+ */
+public class MoveIterator {
+    private static final int STAGE_HASH_MOVE = 0;
+    private static final int STAGE_CAPTURES = 1;
+    private static final int STAGE_KILLERS = 2;
+    private static final int STAGE_QUIET_MOVES = 3;
+    private static final int STAGE_BAD_CAPTURES = 4;
+    private static final int STAGE_DONE = 5;
+    // Score of the captures losing material, below that of every other capture
+    private static final int BAD_CAPTURE = -(1 << 20);
+
+    private final int[] captures = new int[Move.MAX_MOVES];
+    private final int[] captureScores = new int[Move.MAX_MOVES];
+    private final int[] quietMoves = new int[Move.MAX_MOVES];
+    private final int[] quietScores = new int[Move.MAX_MOVES];
+    private final int[] killers = new int[2];
+    private final HistoryTable history;
+    private IChessGame game;
+    private int hashMove;
+    private int stage;
+    // Number of generated turns of a stage, -1 if not generated yet
+    private int captureCount;
+    private int quietCount;
+    private int index;
+    // Index of the first capture losing material, handed out after the quiet turns
+    private int badCaptureIndex;
+    // Killers handed out in the killer stage, skipped in the quiet stage
+    private int firstKiller;
+    private int secondKiller;
+    // Hand out the captures not losing material only, see resetCaptures
+    private boolean capturesOnly;
+
+    /**
+     * Creates an iterator with a history of its own
+     */
+    public MoveIterator() {
+        this(new HistoryTable());
+    }
+
+    /**
+     * Creates an iterator ordering the quiet turns by the given history
+     *
+     * @param history HistoryTable shared by the iterators of all plies of a thread
+     */
+    public MoveIterator(HistoryTable history) {
+        this.history = history;
+    }
+
+    /**
+     * Starts handing out the turns of a position
+     *
+     * @param game     IChessGame position to hand out the turns for
+     * @param hashMove int turn to try first, {@link Move#NO_MOVE} if none
+     */
+    public void reset(IChessGame game, int hashMove) {
+        this.game = game;
+        this.hashMove = hashMove;
+        this.stage = STAGE_HASH_MOVE;
+        this.captureCount = -1;
+        this.quietCount = -1;
+        this.index = 0;
+        this.firstKiller = Move.NO_MOVE;
+        this.secondKiller = Move.NO_MOVE;
+        this.capturesOnly = false;
+    }
+
+    /**
+     * Starts handing out the captures and promotions of a position only, leaving out the captures losing material
+     * <p>
+     * Used by the quiescence search, which neither tries quiet turns nor exchanges it would lose.
+     * </p>
+     *
+     * @param game IChessGame position to hand out the captures for
+     */
+    public void resetCaptures(IChessGame game) {
+        reset(game, Move.NO_MOVE);
+        this.stage = STAGE_CAPTURES;
+        this.capturesOnly = true;
+    }
+
+    /**
+     * Returns the next turn
+     *
+     * @return int packed turn, {@link Move#NO_MOVE} if all turns are handed out
+     */
+    @SuppressWarnings("fallthrough")
+    public int next() {
+        int move;
+        switch (stage) {
+            case STAGE_HASH_MOVE:
+                stage = STAGE_CAPTURES;
+                if (hashMove != Move.NO_MOVE && isPossible(hashMove)) return hashMove;
+                hashMove = Move.NO_MOVE;
+                // fall through
+            case STAGE_CAPTURES:
+                if (captureCount < 0) captureCount = game.generateCaptures(captures);
+                if (index == 0) scoreCaptures();
+                while (index < captureCount) {
+                    move = pickBest(captures, captureScores, captureCount);
+                    // The remaining captures lose material, they follow the quiet turns
+                    if (captureScores[index - 1] < 0) {
+                        index--;
+                        break;
+                    }
+                    if (move != hashMove) return move;
+                }
+                if (capturesOnly) {
+                    stage = STAGE_DONE;
+                    return Move.NO_MOVE;
+                }
+                badCaptureIndex = index;
+                stage = STAGE_KILLERS;
+                index = 0;
+                // fall through
+            case STAGE_KILLERS:
+                while (index < killers.length) {
+                    move = killers[index++];
+                    if (move != Move.NO_MOVE && move != hashMove && isPossible(move)) {
+                        if (firstKiller == Move.NO_MOVE) firstKiller = move;
+                        else secondKiller = move;
+                        return move;
+                    }
+                }
+                stage = STAGE_QUIET_MOVES;
+                index = 0;
+                // fall through
+            case STAGE_QUIET_MOVES:
+                if (quietCount < 0) quietCount = game.generateQuietMoves(quietMoves);
+                if (index == 0) scoreQuietMoves();
+                while (index < quietCount) {
+                    move = pickBest(quietMoves, quietScores, quietCount);
+                    if (move != hashMove && move != firstKiller && move != secondKiller) return move;
+                }
+                stage = STAGE_BAD_CAPTURES;
+                index = badCaptureIndex;
+                // fall through
+            case STAGE_BAD_CAPTURES:
+                while (index < captureCount) {
+                    move = pickBest(captures, captureScores, captureCount);
+                    if (move != hashMove) return move;
+                }
+                stage = STAGE_DONE;
+                // fall through
+            default:
+                return Move.NO_MOVE;
+        }
+    }
+
+    /**
+     * Records a quiet turn causing a cutoff at the current position as killer of the ply and in the history
+     *
+     * @param move  int packed quiet turn
+     * @param draft int remaining depth of the node
+     */
+    public void addCutoff(int move, int draft) {
+        if (move != killers[0]) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        history.add(move, draft);
+    }
+
+    /**
+     * Returns the MVV-LVA score of a capture or promotion
+     *
+     * @param move int packed capture or promotion
+     * @return int score, higher for more valuable victims and promotions and less valuable attackers
+     */
+    static int getCaptureScore(int move) {
+        int gain = Math.abs(PieceSquareTable.MATERIAL[Move.getCaptured(move)])
+                + Math.abs(PieceSquareTable.MATERIAL[Move.getPromotion(move)]);
+        return gain * 8 - Move.getPiece(move) % 10;
+    }
+
+    private void scoreCaptures() {
+        IMailboxBoard board = game instanceof IMailboxBoard ? (IMailboxBoard) game : null;
+        for (int i = 0; i < captureCount; i++) {
+            int move = captures[i];
+            captureScores[i] = getCaptureScore(move);
+            // Taking a piece at least as valuable as the capturing one never loses material
+            if (board != null && !Move.isPromotion(move) && isCheaper(Move.getCaptured(move), Move.getPiece(move))) {
+                int exchange = StaticExchange.evaluate(board, move);
+                if (exchange < 0) captureScores[i] = BAD_CAPTURE + exchange;
+            }
+        }
+    }
+
+    private static boolean isCheaper(byte piece, byte other) {
+        return Math.abs(PieceSquareTable.MATERIAL[piece]) < Math.abs(PieceSquareTable.MATERIAL[other]);
+    }
+
+    private void scoreQuietMoves() {
+        for (int i = 0; i < quietCount; i++) {
+            quietScores[i] = history.get(quietMoves[i]);
+        }
+    }
+
+    /**
+     * Moves the best remaining turn to the current index and hands it out, a selection sort done step by step
+     */
+    private int pickBest(int[] moves, int[] scores, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        scores[index] = score;
+        index++;
+        return move;
+    }
+
+    /**
+     * Checks if the position allows the turn by generating the stage the turn belongs to
+     */
+    private boolean isPossible(int move) {
+        int[] moves;
+        int count;
+        if (Move.isCapture(move) || Move.isPromotion(move)) {
+            if (captureCount < 0) captureCount = game.generateCaptures(captures);
+            moves = captures;
+            count = captureCount;
+        } else {
+            if (quietCount < 0) quietCount = game.generateQuietMoves(quietMoves);
+            moves = quietMoves;
+            count = quietCount;
+        }
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+package de.htw.grischa.chess;
+
+/**
+ * Hash table remembering the rating of pawn structures already rated
+ * <p>
+ * The pawns rarely change between the leaves of a search, so most evaluations find their pawn structure here and
+ * skip the pawn analysis. Every slot holds the pawn key XOR the score and the score itself, so the table can be
+ * shared by all search threads without locking: a slot torn by two threads writing at the same time no longer
+ * matches its key and is treated as a miss.
+ * </p>
+ *
+ * @see IMailboxBoard#getPawnKey()
+ */
+public class PawnHashTable {
+    /**
+     * Returned by {@link #get(long)} if the pawn structure is not known
+     */
+    public static final int MISSING = Integer.MIN_VALUE;
+    private final long[] slots;
+    private final int mask;
+
+    /**
+     * Creates a table of the given size
+     *
+     * @param sizeMB int size in megabytes, rounded down to a power of two slots
+     */
+    public PawnHashTable(int sizeMB) {
+        long entries = Math.max(1L, ((long) sizeMB << 20) / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.slots = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up the rating of a pawn structure
+     *
+     * @param pawnKey long pawn key of the position
+     * @return int score, {@link #MISSING} if not known
+     */
+    public int get(long pawnKey) {
+        int index = ((int) pawnKey & mask) << 1;
+        long data = slots[index + 1];
+        // An empty slot matches the key 0 of a board without pawns, whose score 0 is right
+        if ((slots[index] ^ data) == pawnKey) return (int) data;
+        return MISSING;
+    }
+
+    /**
+     * Stores the rating of a pawn structure, replacing the previous entry of the slot
+     *
+     * @param pawnKey long pawn key of the position
+     * @param score   int score of the pawn structure
+     */
+    public void put(long pawnKey, int score) {
+        int index = ((int) pawnKey & mask) << 1;
+        long data = score;
+        slots[index] = pawnKey ^ data;
+        slots[index + 1] = data;
+    }
+}
@@ -0,0 +1,59 @@
+package de.htw.grischa.chess;
+
+/**
+ * Material and piece square values forming the fixed part of the evaluation
+ * <p>
+ * The value of a piece only depends on the piece and its square: its material, the points for standing in or
+ * around the center and the penalty of a knight on the edge. Every board keeps the sum over all its pieces up to
+ * date while executing and taking back turns, just like the Zobrist key, so {@link Quality} gets this part in
+ * constant time instead of walking the board.
+ * </p>
+ * <p>
+ * Values are centipawns from the view of white, like every rating of {@link Quality}.
+ * </p>
+ *
+ * @see IMailboxBoard#getPieceSquareTotal()
+ */
+public final class PieceSquareTable {
+    /**
+     * Material of the pieces in centipawns from the view of white, indexed by the piece constants of
+     * {@link ChessBoard}
+     */
+    static final short[] MATERIAL = {0, 0, -100, -300, -320, -550, -980, -10000, 0, 0, 0, 0, 100, 300, 320, 550, 980,
+            10000};
+    /**
+     * Values of the pieces, indexed by the piece constants of {@link ChessBoard} and the square 0-63
+     */
+    static final int[][] VALUES = new int[ChessBoard.WHITE_KING + 1][64];
+
+    private static final int CENTER = 50;
+    private static final int CENTER_RING = 25;
+    private static final int KNIGHT_ON_EDGE = -40;
+
+    static {
+        for (int piece = ChessBoard.BLACK_PAWN; piece <= ChessBoard.WHITE_KING; piece++) {
+            if (piece > ChessBoard.BLACK_KING && piece < ChessBoard.WHITE_PAWN) continue;
+            int sign = piece >= ChessBoard.WHITE_PAWN ? 1 : -1;
+            for (int square = 0; square < 64; square++) {
+                int x = square & 7;
+                int y = square >> 3;
+                int value = MATERIAL[piece] + sign * center(x, y);
+                if ((piece == ChessBoard.BLACK_KNIGHT || piece == ChessBoard.WHITE_KNIGHT)
+                        && (x == 0 || x == 7 || y == 0 || y == 7)) {
+                    value += sign * KNIGHT_ON_EDGE;
+                }
+                VALUES[piece][square] = value;
+            }
+        }
+    }
+
+    private PieceSquareTable() {
+    }
+
+    // Points of the 4 center squares and the 12 squares around them
+    private static int center(int x, int y) {
+        if (x >= 3 && x <= 4 && y >= 3 && y <= 4) return CENTER;
+        if (x >= 2 && x <= 5 && y >= 2 && y <= 5) return CENTER_RING;
+        return 0;
+    }
+}
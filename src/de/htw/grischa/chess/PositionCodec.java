@@ -0,0 +1,204 @@
+package de.htw.grischa.chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format of a position, {@link #SIZE} bytes per position
+ * <p>
+ * Layout:
+ * </p>
+ * <ul>
+ * <li>8 bytes: occupied squares, bit 0 = a1</li>
+ * <li>16 bytes: one 4 bit code per occupied square in ascending order, high nibble first; black pieces use their
+ * constant of {@link ChessBoard}, white pieces their constant minus 4</li>
+ * <li>1 byte: bit 0 set if black is to move, bits 1-4 castling rights (white short, white long, black short, black
+ * long)</li>
+ * <li>1 byte: en passant square 0-63, -1 if none</li>
+ * <li>2 bytes: number of turns made, unsigned</li>
+ * </ul>
+ * <p>
+ * Encoding and decoding only touch the given buffer and board, so positions can be sent and stored without
+ * creating any objects. {@link #toHex(IChessGame)} and {@link #fromHex(String, IChessGame)} wrap the format for
+ * text based transports like the JSON of a task.
+ * </p>
+ *
+ * @see IChessGame#writePosition(ByteBuffer)
+ * @see IChessGame#readPosition(ByteBuffer)
+ */
+public final class PositionCodec {
+    /**
+     * Number of bytes of an encoded position
+     */
+    public static final int SIZE = 28;
+    private static final int MAX_PIECES = 32;
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int WHITE_SHORT_ROCHADE = 2;
+    private static final int WHITE_LONG_ROCHADE = 4;
+    private static final int BLACK_SHORT_ROCHADE = 8;
+    private static final int BLACK_LONG_ROCHADE = 16;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes a position given in the field layout of {@link ChessBoard}
+     *
+     * @param fields          byte[] 120 fields
+     * @param player          Player to make turn
+     * @param whiteShort      true if white may castle king side
+     * @param whiteLong       true if white may castle queen side
+     * @param blackShort      true if black may castle king side
+     * @param blackLong       true if black may castle queen side
+     * @param enPassantSquare int square 0-63, -1 if none
+     * @param turnsMade       int number of turns made
+     * @param buffer          ByteBuffer to write {@link #SIZE} bytes to
+     * @throws IllegalArgumentException if there are more than 32 pieces on the board
+     */
+    static void encode(byte[] fields, Player player, boolean whiteShort, boolean whiteLong, boolean blackShort,
+                       boolean blackLong, int enPassantSquare, int turnsMade, ByteBuffer buffer) {
+        long occupied = 0;
+        for (int square = 0; square < 64; square++) {
+            if (fields[Move.squareToField(square)] > ChessBoard.EMPTY_FIELD) occupied |= 1L << square;
+        }
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("More than " + MAX_PIECES + " pieces on the board");
+        }
+        buffer.putLong(occupied);
+        int pieces = 0;
+        int code = 0;
+        for (long b = occupied; b != 0; b &= b - 1) {
+            byte piece = fields[Move.squareToField(Long.numberOfTrailingZeros(b))];
+            code = code << 4 | (piece >= ChessBoard.WHITE_PAWN ? piece - 4 : piece);
+            if (++pieces % 2 == 0) {
+                buffer.put((byte) code);
+                code = 0;
+            }
+        }
+        if (pieces % 2 != 0) buffer.put((byte) (code << 4));
+        for (int i = (pieces + 1) / 2; i < MAX_PIECES / 2; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.put((byte) ((player == Player.BLACK ? BLACK_TO_MOVE : 0) | (whiteShort ? WHITE_SHORT_ROCHADE : 0)
+                | (whiteLong ? WHITE_LONG_ROCHADE : 0) | (blackShort ? BLACK_SHORT_ROCHADE : 0)
+                | (blackLong ? BLACK_LONG_ROCHADE : 0)));
+        buffer.put((byte) enPassantSquare);
+        buffer.putShort((short) Math.min(turnsMade, 0xffff));
+    }
+
+    /**
+     * Reads the pieces of a position into the field layout of {@link ChessBoard}
+     * <p>
+     * The remaining state is returned packed, use {@link #getPlayer(int)}, {@link #canRochade(int, boolean, boolean)},
+     * {@link #getEnPassantSquare(int)} and {@link #getTurnsMade(int)} to unpack it.
+     * </p>
+     *
+     * @param buffer ByteBuffer to read {@link #SIZE} bytes from
+     * @param fields byte[] 120 fields to fill, the border fields are left untouched
+     * @return int packed state
+     */
+    static int decode(ByteBuffer buffer, byte[] fields) {
+        long occupied = buffer.getLong();
+        for (int square = 0; square < 64; square++) {
+            fields[Move.squareToField(square)] = ChessBoard.EMPTY_FIELD;
+        }
+        int pieces = 0;
+        int code = 0;
+        for (long b = occupied; b != 0; b &= b - 1) {
+            if (pieces++ % 2 == 0) code = buffer.get() & 0xff;
+            else code <<= 4;
+            int piece = (code >>> 4) & 0x0f;
+            fields[Move.squareToField(Long.numberOfTrailingZeros(b))] =
+                    (byte) (piece >= ChessBoard.WHITE_PAWN - 4 ? piece + 4 : piece);
+        }
+        buffer.position(buffer.position() + MAX_PIECES / 2 - (pieces + 1) / 2);
+        int flags = buffer.get() & 0xff;
+        int enPassantSquare = buffer.get();
+        int turnsMade = buffer.getShort() & 0xffff;
+        return flags | (enPassantSquare + 1) << 8 | turnsMade << 16;
+    }
+
+    /**
+     * Returns the player to make turn of a decoded state
+     *
+     * @param state int packed state returned by {@link #decode(ByteBuffer, byte[])}
+     * @return Player to make turn
+     */
+    static Player getPlayer(int state) {
+        return (state & BLACK_TO_MOVE) != 0 ? Player.BLACK : Player.WHITE;
+    }
+
+    /**
+     * Returns a castling right of a decoded state
+     *
+     * @param state int packed state returned by {@link #decode(ByteBuffer, byte[])}
+     * @param white true for the rights of white
+     * @param kingSide true for king side castling
+     * @return true if castling is allowed
+     */
+    static boolean canRochade(int state, boolean white, boolean kingSide) {
+        int right = white ? (kingSide ? WHITE_SHORT_ROCHADE : WHITE_LONG_ROCHADE)
+                : (kingSide ? BLACK_SHORT_ROCHADE : BLACK_LONG_ROCHADE);
+        return (state & right) != 0;
+    }
+
+    /**
+     * Returns the en passant square of a decoded state
+     *
+     * @param state int packed state returned by {@link #decode(ByteBuffer, byte[])}
+     * @return int square 0-63, -1 if none
+     */
+    static int getEnPassantSquare(int state) {
+        return ((state >>> 8) & 0xff) - 1;
+    }
+
+    /**
+     * Returns the number of turns made of a decoded state
+     *
+     * @param state int packed state returned by {@link #decode(ByteBuffer, byte[])}
+     * @return int number of turns made
+     */
+    static int getTurnsMade(int state) {
+        return state >>> 16;
+    }
+
+    /**
+     * Encodes a position as {@link #SIZE} * 2 lower case hex digits
+     *
+     * @param game IChessGame to encode
+     * @return String hex digits
+     */
+    public static String toHex(IChessGame game) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        game.writePosition(buffer);
+        char[] hex = new char[SIZE * 2];
+        for (int i = 0; i < SIZE; i++) {
+            int b = buffer.get(i) & 0xff;
+            hex[i * 2] = HEX_DIGITS[b >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[b & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Loads a position encoded by {@link #toHex(IChessGame)}
+     *
+     * @param hex  String hex digits
+     * @param game IChessGame to load the position into
+     * @throws IllegalArgumentException if the string is not an encoded position
+     */
+    public static void fromHex(String hex, IChessGame game) {
+        if (hex.length() != SIZE * 2) {
+            throw new IllegalArgumentException("Not an encoded position: " + hex);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) throw new IllegalArgumentException("Not an encoded position: " + hex);
+            buffer.put((byte) (high << 4 | low));
+        }
+        buffer.flip();
+        game.readPosition(buffer);
+    }
+}
@@ -1,78 +1,67 @@
 package de.htw.grischa.chess;
 
-import java.awt.*;
-import java.util.ArrayList;
-
+/**
+ * Evaluation of a position, the positional quality used by the search
+ * <p>
+ * All ratings are integral centipawns, a pawn is worth 100.
+ * </p>
+ * <p>
+ * An instance holds no state of the position it rates: all tables are immutable and {@link #evaluate(IMailboxBoard,
+ * Player)} allocates nothing, so one instance can be shared by any number of search threads. The only shared
+ * mutable part is the {@link PawnHashTable}, which is lock-free.
+ * </p>
+ */
 public class Quality {
 
-    private static final short[] POS_QUALITIES = {0, 0, -10, -30, -32, -55, -98, -1000, 0, 0, 0,
-            0, 10, 30, 32, 55, 98, 1000};
-    private static final int[] ROOK_DIRECTIONS = {-10, -1, 1, 10};
-    // private static final int[] KNIGHT_DIRECTIONS = { -21, -19, -8, 12, 21, 19, 8, -12 };
-    private static final int[] BISHOP_DIRECTIONS = {-11, -9, 9, 11};
-    private static final int[] QUEEN_DIRECTIONS = {-11, -10, -9, -1, 1, 9, 10, 11};
     // *** Konstanten-Definition **********************************************************
-    private static byte EMPTYFIELD;
-    private static byte ILLEGALFIELD;
-    private static byte BLACK_PAWN;
-    private static byte BLACK_ROOK;
-    private static byte BLACK_KNIGHT;
-    private static byte BLACK_BISHOP;
-    private static byte BLACK_QUEEN;
-    private static byte BLACK_KING;
-    private static byte WHITE_PAWN;
-    private static byte WHITE_ROOK;
-    private static byte WHITE_KNIGHT;
-    private static byte WHITE_BISHOP;
-    private static byte WHITE_QUEEN;
-    private static byte WHITE_KING;
-    private static int points_2_bishops = 5;
-    private static int points_knight_on_edge = -4;
-    private static int points_pawn_in_a_row = -3;
-    private static int points_pawn_isolated = -3;
-    private static int points_pawn_backward = -3;
-    private static int points_pawn_rows_moved = 2;
-    // private static int points_pawn_in_middle = 2;
-    private static int points_castle = 5;
-    private static double KING_THREATENED_FACTOR = 0.992;
-    private static double THREATENED_FACTOR = 0.91;
-    public byte[] fields;
-    private Player player = null;
-    private ChessBoard board = null;
-    private boolean BlackCanLongRochade;
-    private boolean BlackCanShortRochade;
-    private boolean WhiteCanLongRochade;
-    private boolean WhiteCanShortRochade;
-
-    public Quality(ChessBoard board) {
-        this.board = board;
-        this.fields = board.fields;
-
-        BlackCanLongRochade = board.BlackCanLongRochade;
-        BlackCanShortRochade = board.BlackCanShortRochade;
-        WhiteCanLongRochade = board.WhiteCanLongRochade;
-        WhiteCanShortRochade = board.WhiteCanShortRochade;
-
-        EMPTYFIELD = ChessBoard.EMPTY_FIELD;
-        ILLEGALFIELD = ChessBoard.ILLEGAL_FIELD;
-
-        BLACK_PAWN = ChessBoard.BLACK_PAWN;
-        BLACK_ROOK = ChessBoard.BLACK_ROOK;
-        BLACK_KNIGHT = ChessBoard.BLACK_KNIGHT;
-        BLACK_BISHOP = ChessBoard.BLACK_BISHOP;
-        BLACK_QUEEN = ChessBoard.BLACK_QUEEN;
-        BLACK_KING = ChessBoard.BLACK_KING;
-
-        WHITE_PAWN = ChessBoard.WHITE_PAWN;
-        WHITE_ROOK = ChessBoard.WHITE_ROOK;
-        WHITE_KNIGHT = ChessBoard.WHITE_KNIGHT;
-        WHITE_BISHOP = ChessBoard.WHITE_BISHOP;
-        WHITE_QUEEN = ChessBoard.WHITE_QUEEN;
-        WHITE_KING = ChessBoard.WHITE_KING;
+    private static final byte EMPTYFIELD = ChessBoard.EMPTY_FIELD;
+    private static final byte BLACK_PAWN = ChessBoard.BLACK_PAWN;
+    private static final byte BLACK_ROOK = ChessBoard.BLACK_ROOK;
+    private static final byte BLACK_BISHOP = ChessBoard.BLACK_BISHOP;
+    private static final byte BLACK_QUEEN = ChessBoard.BLACK_QUEEN;
+    private static final byte BLACK_KING = ChessBoard.BLACK_KING;
+    private static final byte WHITE_PAWN = ChessBoard.WHITE_PAWN;
+    private static final byte WHITE_ROOK = ChessBoard.WHITE_ROOK;
+    private static final byte WHITE_BISHOP = ChessBoard.WHITE_BISHOP;
+    private static final byte WHITE_QUEEN = ChessBoard.WHITE_QUEEN;
+    private static final byte WHITE_KING = ChessBoard.WHITE_KING;
+    // *** Punkte in Centipawns ************************************************************
+    private static final int points_2_bishops = 50;
+    private static final int points_pawn_in_a_row = -30;
+    private static final int points_pawn_isolated = -30;
+    private static final int points_pawn_backward = -30;
+    private static final int points_pawn_rows_moved = 20;
+    // private static int points_pawn_in_middle = 20;
+    private static final int points_castle = 50;
+    private static final int points_queen_moved_early = -80;
+    private static final int points_mobility = 10;
+    private static final int points_king_field_attacked = -30;
+    // Bedrohte Figur verliert 25% des Materials, das der Gegner beim Abtausch gewinnt, der Koenig im Schach 80
+    private static final int HANGING_PERCENT = 25;
+    private static final int points_king_threatened = -80;
+    // Bits per rank or file when counting pawns in an int
+    private static final int COUNT_BITS = 4;
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+    private final PawnHashTable pawnTable;
+
+    /**
+     * Constructor with a pawn hash table of 1 MB
+     */
+    public Quality() {
+        this(1);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pawnTableSizeMB int size of the pawn hash table in megabytes
+     */
+    public Quality(int pawnTableSizeMB) {
+        this.pawnTable = new PawnHashTable(pawnTableSizeMB);
     }
 
     /************************************************************************************/
-    /*************************** Funktion: getPositionQuality ***************************/
+    /******************************* Funktion: evaluate *********************************/
     /**
      * ********************************************************************************
      */
@@ -82,218 +71,125 @@ public class Quality {
      * Figur wird bedroht Springer am Rand L??uferpaar vorhanden Bauer doppelt, isoliert,
      * r??ckst??ndig, in der Mitte des Schachbretts Turm, L??ufer, Dame kann n Felder gehen Rochade
      * m??glich
+     * 
+     * Material, Zentrum und Springer am Rand fuehrt das Brett als laufende Summe mit, siehe PieceSquareTable
+     */
+
+    /**
+     * Rates a position
+     *
+     * @param board  IMailboxBoard position to rate
+     * @param player Player to rate the position for
+     * @return int quality in centipawns, positive if the position is good for the player
      */
-    public double getPositionQuality(Player player, int round_counter) {
+    public int evaluate(IMailboxBoard board, Player player) {
+        return evaluateFixed(board, player) + evaluateDynamic(board, player);
+    }
+
+    /**
+     * Rates the part of a position the board keeps up to date or the pawn hash table caches
+     * <p>
+     * Material, piece square values, bishop pair, castling rights and pawn structure, usually without walking the
+     * board. A search may take this part alone as the rating of a position far outside its window, as the terms of
+     * {@link #evaluateDynamic(IMailboxBoard, Player)} rarely change the result by more than a few pawns.
+     * </p>
+     *
+     * @param board  IMailboxBoard position to rate
+     * @param player Player to rate the position for
+     * @return int quality in centipawns, positive if the position is good for the player
+     */
+    public int evaluateFixed(IMailboxBoard board, Player player) {
+        int quality = board.getPieceSquareTotal();
+
+        // Laeuferpaar
+        if (board.getPieceCount(BLACK_BISHOP) >= 2)
+            quality += -points_2_bishops;
+        if (board.getPieceCount(WHITE_BISHOP) >= 2)
+            quality += points_2_bishops;
+
+        quality += castle_quality(board, player);
+        quality += pawnsQuality(board, board.getFields());
+
+        // *** Aus Sicht von Schwarz Qualitaets Vorzeichen aendern *************************
+        return player == Player.BLACK ? -quality : quality;
+    }
+
+    /**
+     * Rates threatened pieces, mobility, development of the queen and king safety, walking the whole board
+     *
+     * @param board  IMailboxBoard position to rate
+     * @param player Player to rate the position for
+     * @return int quality in centipawns, positive if the position is good for the player
+     */
+    public int evaluateDynamic(IMailboxBoard board, Player player) {
         // *** Variablen-Deklaration ******************************************************
+        byte[] fields = board.getFields();
+        AttackMap attacks = board.getAttackMap();
+        boolean opening = board.getTurnsMade() < 10;
         int field;
-        double quality = 0;
-        double temp_quality = 0;
-        this.player = player;
-        int black_Bishops = 0;
-        int white_Bishops = 0;
-        ArrayList<Point> blackPawns = new ArrayList<Point>();
-        ArrayList<Point> whitePawns = new ArrayList<Point>();
+        byte piece;
+        int quality = 0;
 
         // *** Fuer alle legalen Felder ****************************************************
         for (int y = 2; y < 10; y++)
             for (int x = 1; x < 9; x++) {
                 // *** Feldindex bestimmen ****************************************************
                 field = y * 10 + x;
-                temp_quality = 0;
+                piece = fields[field];
 
                 // *** Bei leerem oder ungueltigem Feld naechstes Feld ************************
-                if (fields[field] <= EMPTYFIELD)
+                if (piece <= EMPTYFIELD)
                     continue;
 
                 // *** Qualitaet anhand Figur und Position verfeinern *************************
 
-                // Figur wird bedroht * 0,91
-                // Weiss an der Reihe
-                temp_quality = threatenedQuality(field);
-
-                // *** zentrum
-                if (fields[field] >= BLACK_PAWN && fields[field] <= BLACK_KING) {
-                    temp_quality += -PointsCenter(field);
-                } else {
-                    temp_quality += PointsCenter(field);
-                }
-
-                // Laeufer
-                if (fields[field] == BLACK_BISHOP) {
-                    if (black_Bishops == 1)
-                        temp_quality += -points_2_bishops;
-                    black_Bishops++;
-                    if (round_counter >= 10)
-                        temp_quality += -long_move_quality(field, BISHOP_DIRECTIONS);
-                    quality += temp_quality;
-                    continue;
-                }
-
-                if (fields[field] == WHITE_BISHOP) {
-                    if (white_Bishops == 1)
-                        temp_quality += points_2_bishops;
-                    white_Bishops++;
-                    if (round_counter >= 10)
-                        temp_quality += long_move_quality(field, BISHOP_DIRECTIONS);
-                    quality += temp_quality;
-                    continue;
-                }
-
-                // Springer
-                if (fields[field] == BLACK_KNIGHT) {
-                    if (y == 2 || y == 9 || x == 1 || x == 8) {
-                        temp_quality += -points_knight_on_edge;
-                    }
-                    quality += temp_quality;
-                    continue;
-                }
-
-                // Springer
-                if (fields[field] == WHITE_KNIGHT) {
-                    if (y == 2 || y == 9 || x == 1 || x == 8) {
-                        temp_quality += points_knight_on_edge;
-                    }
-                    quality += temp_quality;
-                    continue;
-                }
-
-                // Bauern
-                if (fields[field] == BLACK_PAWN || fields[field] == WHITE_PAWN) {
-                    // temp_quality += pawn_quality(field, y);
-                    // quality += temp_quality;
-                    if (fields[field] == BLACK_PAWN) {
-                        blackPawns.add(new Point(x, y));
-                    } else {
-                        whitePawns.add(new Point(x, y));
-                    }
-                    quality += temp_quality;
-                    continue;
-                }
-
-                if (fields[field] == BLACK_ROOK) {
-                    if (round_counter >= 10)
-                        temp_quality += -long_move_quality(field, ROOK_DIRECTIONS);
-                    quality += temp_quality;
-                    continue;
-                }
-
-                if (fields[field] == WHITE_ROOK) {
-                    if (round_counter >= 10)
-                        temp_quality += long_move_quality(field, ROOK_DIRECTIONS);
-                    quality += temp_quality;
-                    continue;
-                }
-
-                if (fields[field] == BLACK_QUEEN) {
-                    if (round_counter >= 10)
-                        temp_quality += -long_move_quality(field, QUEEN_DIRECTIONS);
+                // Figur wird bedroht
+                quality += threatenedQuality(board, attacks, piece, field);
+
+                if (piece == BLACK_BISHOP) {
+                    if (!opening)
+                        quality += -long_move_quality(fields, MailboxTables.BISHOP_RAYS[field]);
+                } else if (piece == WHITE_BISHOP) {
+                    if (!opening)
+                        quality += long_move_quality(fields, MailboxTables.BISHOP_RAYS[field]);
+                } else if (piece == BLACK_ROOK) {
+                    if (!opening)
+                        quality += -long_move_quality(fields, MailboxTables.ROOK_RAYS[field]);
+                } else if (piece == WHITE_ROOK) {
+                    if (!opening)
+                        quality += long_move_quality(fields, MailboxTables.ROOK_RAYS[field]);
+                } else if (piece == BLACK_QUEEN) {
+                    if (!opening)
+                        quality += -long_move_quality(fields, MailboxTables.QUEEN_RAYS[field]);
                     else if (field != 94)
-                        temp_quality += 8;
-                    quality += temp_quality;
-                    continue;
-                }
-
-                if (fields[field] == WHITE_QUEEN) {
-                    if (round_counter >= 10)
-                        temp_quality += long_move_quality(field, QUEEN_DIRECTIONS);
+                        quality += -points_queen_moved_early;
+                } else if (piece == WHITE_QUEEN) {
+                    if (!opening)
+                        quality += long_move_quality(fields, MailboxTables.QUEEN_RAYS[field]);
                     else if (field != 24)
-                        temp_quality += -8;
-                    quality += temp_quality;
-                    continue;
+                        quality += points_queen_moved_early;
+                } else if (piece == BLACK_KING) {
+                    quality += blackKingSafe(attacks, field);
+                } else if (piece == WHITE_KING) {
+                    quality += whiteKingSafe(attacks, field);
                 }
-
-                if (fields[field] == BLACK_KING) {
-                    temp_quality += blackKingSafe(field);
-                    quality += temp_quality;
-                    continue;
-                }
-
-                if (fields[field] == WHITE_KING) {
-                    temp_quality += whiteKingSafe(field);
-                    quality += temp_quality;
-                    continue;
-                }
-
-                // *** Qualitaet entsprechend der ermittelten positionellen Qialitaet anpassen *****
-                quality += temp_quality;
             }
 
-        // Ausserhalb der for-Schleife Faelle betrachten die nur einmal gerechnet werden duerfen
-
-        quality += castle_quality();
-        quality += PawnsQualityBlack(blackPawns);
-        quality += PawnsQualityWhite(whitePawns);
-
         // *** Aus Sicht von Schwarz Qualitaets Vorzeichen aendern *************************
-        if (this.player == Player.BLACK)
-            quality *= -1;
-
-        // System.out.println(board.getReadableString()+" "+quality+"\n\n");
-        // qualtity * 1000 -> Matt wird nicht erkannt!?!?
-        // *** Wert zurueckgeben **********************************************************
-        return quality * 10000;
+        return player == Player.BLACK ? -quality : quality;
     }
 
-    private double threatenedQuality(int field) {
-        double temp_quality = 0;
-        // *** schwarze B, L, T, D
-        if (fields[field] >= BLACK_PAWN && fields[field] <= BLACK_QUEEN) {
-            // *** Figur wird von Weiss bedroht *******************************************
-            if (board.IsFieldAttackedByWhite(field)) {
-                // *** Qualit??t der scharzen figur verringeren ****************************
-                temp_quality = (POS_QUALITIES[fields[field]] * THREATENED_FACTOR);
-                return temp_quality;
-            }
-            // *** nicht von wei?? bedroht *************************************************
-            else {
-                // *** volle Qualit??t der schwarzen Figur zur??ck **************************
-                temp_quality = POS_QUALITIES[fields[field]];
-                return temp_quality;
-            }
-        }
-
-        // *** wei??er B, L, T, D
-        if (fields[field] >= WHITE_PAWN && fields[field] <= WHITE_QUEEN) {
-            // *** Figur wird von schwarz bedroht *****************************************
-            if (board.IsFieldAttackedByBlack(field)) {
-                // *** Qualit??t der wei??en figur verringeren und addieren *****************
-                temp_quality = (POS_QUALITIES[fields[field]] * THREATENED_FACTOR);
-                return temp_quality;
-            }
-            // *** nicht von schwarz bedroht **********************************************
-            else {
-                // *** volle Qualit der wei??en Figur addieren *****************************
-                temp_quality = POS_QUALITIES[fields[field]];
-                return temp_quality;
-            }
-        }
-
-        // schwarzer K
-        if (fields[field] == BLACK_KING) {
-            // *** Wenn der K??nig angegriffen wird ****************************************
-            if (board.IsFieldAttackedByWhite(field)) {
-                temp_quality = POS_QUALITIES[BLACK_KING] * KING_THREATENED_FACTOR;
-                return temp_quality;
-            } else {
-                temp_quality = POS_QUALITIES[BLACK_KING];
-                return temp_quality;
-            }
-        }
-
-        // wei??er K
-        if (fields[field] == WHITE_KING) {
-            // *** Wenn der K??nig angegriffen wird ****************************************
-            if (board.IsFieldAttackedByBlack(field)) {
-                temp_quality = POS_QUALITIES[WHITE_KING] * KING_THREATENED_FACTOR;
-                return temp_quality;
-            } else {
-                temp_quality = POS_QUALITIES[WHITE_KING];
-                return temp_quality;
-            }
-
-        }
-
-        return 0;
+    // Abzug fuer eine bedrohte Figur: nur was der Gegner beim Abtausch auf ihrem Feld gewinnt (StaticExchange),
+    // gedeckte Figuren, die nur von wertvolleren Figuren angegriffen werden, verlieren nichts
+    private static int threatenedQuality(IMailboxBoard board, AttackMap attacks, byte piece, int field) {
+        boolean black = piece >= BLACK_PAWN && piece <= BLACK_KING;
+        // *** schwarze Figur wird von Weiss bedroht, weisse von Schwarz ******************
+        if (black ? !attacks.isAttackedByWhite(Move.fieldToSquare(field))
+                : !attacks.isAttackedByBlack(Move.fieldToSquare(field)))
+            return 0;
+        int threat = piece == BLACK_KING || piece == WHITE_KING ? -points_king_threatened
+                : StaticExchange.evaluateThreat(board, field) * HANGING_PERCENT / 100;
+        return black ? threat : -threat;
     }
 
     // private double pawn_quality(int field, int y)
@@ -405,150 +301,134 @@ public class Quality {
     // return temp_quality;
     // }
 
-    private double castle_quality() {
-        double temp_quality = 0;
-        int field;
+    private static int castle_quality(IMailboxBoard board, Player player) {
+        int temp_quality = 0;
 
-        // Rochade moeglich (nur wenn die GegnerDame existiert) points_castle=5
-        boolean enemy_queen = false;
-        for (int y = 2; y < 10; y++)
-            for (int x = 1; x < 9; x++) {
-                // *** Feldindex bestimmen ************************************************
-                field = y * 10 + x;
-                if ((player == Player.WHITE && fields[field] == BLACK_QUEEN)
-                        || (player == Player.BLACK && fields[field] == WHITE_QUEEN))
-                    enemy_queen = true;
-            }
-        if (enemy_queen && WhiteCanLongRochade)
+        // Rochade moeglich (nur wenn die GegnerDame existiert) points_castle=50
+        if (board.getPieceCount(player == Player.WHITE ? BLACK_QUEEN : WHITE_QUEEN) == 0)
+            return temp_quality;
+        if (board.canWhiteLongRochade())
             temp_quality += points_castle;
-        if (enemy_queen && WhiteCanShortRochade)
+        if (board.canWhiteShortRochade())
             temp_quality += points_castle;
-        if (enemy_queen && BlackCanLongRochade)
+        if (board.canBlackLongRochade())
             temp_quality += -points_castle;
-        if (enemy_queen && BlackCanShortRochade)
+        if (board.canBlackShortRochade())
             temp_quality += -points_castle;
 
         return temp_quality;
     }
 
-    private int long_move_quality(int field, int[] directions) {
-        int i = 0;
+    private static int long_move_quality(byte[] fields, int[][] rays) {
         int counter = 0;
-        int newField;
-        while (i < directions.length) {
-            newField = field + directions[i];
-            while (fields[newField] == EMPTYFIELD) {
+        for (int[] ray : rays) {
+            for (int newField : ray) {
+                if (fields[newField] != EMPTYFIELD)
+                    break;
                 counter++;
-                newField = newField + directions[i];
             }
-            i++;
         }
-        return counter;
+        return counter * points_mobility;
+    }
+
+    // Bauernstruktur beider Seiten, nur berechnet wenn sie nicht in der Tabelle steht
+    private int pawnsQuality(IMailboxBoard board, byte[] fields) {
+        long pawnKey = board.getPawnKey();
+        int temp_quality = pawnTable.get(pawnKey);
+        if (temp_quality != PawnHashTable.MISSING)
+            return temp_quality;
+
+        // *** Bauern je Reihe (y 2-9) und Linie (x 1-8) zaehlen, 4 Bit pro Zaehler *******
+        int whiteRows = 0;
+        int whiteLanes = 0;
+        int blackRows = 0;
+        int blackLanes = 0;
+        temp_quality = 0;
+        for (int y = 2; y < 10; y++)
+            for (int x = 1; x < 9; x++) {
+                if (fields[y * 10 + x] == WHITE_PAWN) {
+                    whiteRows += 1 << (y - 2) * COUNT_BITS;
+                    whiteLanes += 1 << (x - 1) * COUNT_BITS;
+                    // *** vorgerueckte
+                    temp_quality += (points_pawn_rows_moved * (y - 3));
+                } else if (fields[y * 10 + x] == BLACK_PAWN) {
+                    blackRows += 1 << (y - 2) * COUNT_BITS;
+                    blackLanes += 1 << (x - 1) * COUNT_BITS;
+                    // *** vorgerueckte
+                    temp_quality -= (points_pawn_rows_moved * (8 - y));
+                }
+            }
+        temp_quality += PawnsQualityWhite(whiteRows, whiteLanes);
+        temp_quality += PawnsQualityBlack(blackRows, blackLanes);
+        pawnTable.put(pawnKey, temp_quality);
+        return temp_quality;
     }
 
-    private double PawnsQualityWhite(ArrayList<Point> positions) {
-        short[] rows = new short[12];
-        double temp_quality = 0;
-        int y = 0;
-        short[] lanes = new short[10];
+    // Anzahl der Bauern auf Reihe y (2-9) bzw. Linie x (1-8), 0 ausserhalb des Bretts
+    private static int row(int rows, int y) {
+        return y < 2 || y > 9 ? 0 : (rows >>> (y - 2) * COUNT_BITS) & COUNT_MASK;
+    }
 
-        for (int i = 0; i < positions.size(); i++) {
-            y = positions.get(i).y;
-            rows[positions.get(i).y]++;
-            lanes[positions.get(i).x]++;
+    private static int lane(int lanes, int x) {
+        return x < 1 || x > 8 ? 0 : (lanes >>> (x - 1) * COUNT_BITS) & COUNT_MASK;
+    }
 
-            // *** vorger??ckte
-            temp_quality += (points_pawn_rows_moved * (y - 3));
-        }
+    private static int PawnsQualityWhite(int rows, int lanes) {
+        int temp_quality = 0;
 
         int u = 0;
         // *** r??ckst??ndig
         for (u = 0; u < 11; u++) {
-            if (rows[u] != 0)
+            if (row(rows, u) != 0)
                 break;
         }
-        if (rows[u] == 1 && rows[u + 1] == 0 && rows[u + 2] == 0)
+        if (row(rows, u) == 1 && row(rows, u + 1) == 0 && row(rows, u + 2) == 0)
             temp_quality += points_pawn_backward;
 
-        // *** doppelte und isolierte
-        for (int i = 1; i < 9; i++) {
-            if (lanes[i] != 0 && lanes[i - 1] == 0 && lanes[i + 1] == 0)
-                temp_quality += points_pawn_isolated;
-            if (lanes[i] > 1)
-                temp_quality += (lanes[i] - 1) * points_pawn_in_a_row;
-        }
-
-        return temp_quality;
+        return temp_quality + lanesQuality(lanes);
     }
 
-    private double PawnsQualityBlack(ArrayList<Point> positions) {
-        short[] rows = new short[12];
-        double temp_quality = 0;
-        int y = 0;
-        short[] lanes = new short[10];
-
-        for (int i = 0; i < positions.size(); i++) {
-            y = positions.get(i).y;
-            rows[positions.get(i).y]++;
-            lanes[positions.get(i).x]++;
+    private static int PawnsQualityBlack(int rows, int lanes) {
+        int temp_quality = 0;
 
-            // *** vorger??ckte
-            temp_quality += (points_pawn_rows_moved * (8 - y));
-        }
-        // *** r??ckst??ndig
         int u = 0;
         // *** r??ckst??ndig
         for (u = 9; u > 2; u--) {
-            if (rows[u] != 0)
+            if (row(rows, u) != 0)
                 break;
         }
-        if (rows[u] == 1 && rows[u - 1] == 0 && rows[u - 2] == 0)
+        if (row(rows, u) == 1 && row(rows, u - 1) == 0 && row(rows, u - 2) == 0)
             temp_quality += points_pawn_backward;
 
-        // *** doppelte und isolierte
+        return -(temp_quality + lanesQuality(lanes));
+    }
+
+    // *** doppelte und isolierte
+    private static int lanesQuality(int lanes) {
+        int temp_quality = 0;
         for (int i = 1; i < 9; i++) {
-            if (lanes[i] != 0 && lanes[i - 1] == 0 && lanes[i + 1] == 0)
+            if (lane(lanes, i) != 0 && lane(lanes, i - 1) == 0 && lane(lanes, i + 1) == 0)
                 temp_quality += points_pawn_isolated;
-            if (lanes[i] > 1)
-                temp_quality += (lanes[i] - 1) * points_pawn_in_a_row;
+            if (lane(lanes, i) > 1)
+                temp_quality += (lane(lanes, i) - 1) * points_pawn_in_a_row;
         }
-        return -temp_quality;
-    }
-
-    private double PointsCenter(int field) {
-        double temp_quality = 0;
-
-        if (field == 54 || field == 55 || field == 64 || field == 65)
-            temp_quality += 5;
-        else if ((field > 42 && field < 47) || (field > 72 && field < 77) || field == 53
-                || field == 63 || field == 56 || field == 66)
-            temp_quality += 2.5;
-
         return temp_quality;
     }
 
-    private double blackKingSafe(int field) {
-        int testfield = 0;
+    private static int blackKingSafe(AttackMap attacks, int field) {
         int temp_quality = 0;
-        for (int i = 0; i < QUEEN_DIRECTIONS.length; i++) {
-            testfield = field + QUEEN_DIRECTIONS[i];
-            if (this.board.fields[testfield] != ILLEGALFIELD) {
-                if (board.IsFieldAttackedByWhite(testfield))
-                    temp_quality += -3;
-            }
+        for (int testfield : MailboxTables.KING_TARGETS[field]) {
+            if (attacks.isAttackedByWhite(Move.fieldToSquare(testfield)))
+                temp_quality += points_king_field_attacked;
         }
         return -temp_quality;
     }
 
-    private double whiteKingSafe(int field) {
-        int testfield = 0;
+    private static int whiteKingSafe(AttackMap attacks, int field) {
         int temp_quality = 0;
-        for (int i = 0; i < QUEEN_DIRECTIONS.length; i++) {
-            testfield = field + QUEEN_DIRECTIONS[i];
-            if (this.board.fields[testfield] != ILLEGALFIELD) {
-                if (board.IsFieldAttackedByBlack(testfield))
-                    temp_quality += -3;
-            }
+        for (int testfield : MailboxTables.KING_TARGETS[field]) {
+            if (attacks.isAttackedByBlack(Move.fieldToSquare(testfield)))
+                temp_quality += points_king_field_attacked;
         }
         return temp_quality;
     }
@@ -0,0 +1,121 @@
+package de.htw.grischa.chess;
+
+import java.util.Arrays;
+
+/**
+ * Objects of the search recycled by every search running on the same thread
+ * <p>
+ * A search copies the board it starts from into a pooled board and takes the turns of every ply from a pooled
+ * {@link MoveIterator}, so after the first search of a thread no boards, field arrays or turn lists are allocated
+ * any more, neither by later iterations of an iterative deepening nor by the next task of a worker.
+ * </p>
+ * <p>
+ * Searches may be nested, e.g. a search rating a leaf by a search of its own. Every search reserves the plies
+ * following the deepest ply used so far by {@link #beginSearch()} and hands them back by
+ * {@link #endSearch(int)}, so a nested search never touches the iterators of the search it is called from.
+ * </p>
+ */
+public final class SearchArena {
+    private static final ThreadLocal<SearchArena> ARENAS = new ThreadLocal<SearchArena>() {
+        @Override
+        protected SearchArena initialValue() {
+            return new SearchArena();
+        }
+    };
+
+    // Turns of every ply, index is the ply of all searches on the thread
+    private MoveIterator[] moveIterators = new MoveIterator[32];
+    // Board of every search, index is the first ply of the search
+    private IChessGame[] boards = new IChessGame[32];
+    // First ply not used by a running search
+    private int usedPlies = 0;
+    // History of the quiet turns of all searches on the thread
+    private final HistoryTable history = new HistoryTable();
+
+    private SearchArena() {
+    }
+
+    /**
+     * Returns the arena of the current thread
+     *
+     * @return SearchArena of the current thread
+     */
+    public static SearchArena get() {
+        return ARENAS.get();
+    }
+
+    /**
+     * Starts a search and reserves the plies not used by the searches running on the thread
+     *
+     * @return int first ply of the search, the search uses this ply plus its depth
+     */
+    int beginSearch() {
+        return usedPlies++;
+    }
+
+    /**
+     * Ends a search, freeing its plies
+     *
+     * @param firstPly int ply returned by {@link #beginSearch()}
+     */
+    void endSearch(int firstPly) {
+        usedPlies = firstPly;
+    }
+
+    /**
+     * Returns the history shared by the iterators of all plies
+     *
+     * @return HistoryTable of the thread
+     */
+    HistoryTable getHistory() {
+        return history;
+    }
+
+    /**
+     * Returns the iterator for the turns of a ply
+     *
+     * @param ply int first ply of the search plus the depth
+     * @return MoveIterator of the ply
+     */
+    MoveIterator getMoveIterator(int ply) {
+        if (ply >= usedPlies) {
+            usedPlies = ply + 1;
+            if (ply >= moveIterators.length) {
+                moveIterators = Arrays.copyOf(moveIterators, ply * 2);
+            }
+        }
+        MoveIterator iterator = moveIterators[ply];
+        if (iterator == null) {
+            iterator = new MoveIterator(history);
+            moveIterators[ply] = iterator;
+        }
+        return iterator;
+    }
+
+    /**
+     * Returns a board holding the same position as the given board
+     * <p>
+     * The board belongs to the arena, it is overwritten by the next search starting at the same ply and must not be
+     * handed out of the search.
+     * </p>
+     *
+     * @param firstPly int ply returned by {@link #beginSearch()}
+     * @param game     IChessGame to copy
+     * @return IChessGame pooled copy
+     */
+    IChessGame getBoard(int firstPly, IChessGame game) {
+        if (firstPly >= boards.length) {
+            boards = Arrays.copyOf(boards, firstPly * 2);
+        }
+        IChessGame board = boards[firstPly];
+        if (board instanceof ChessBoard && game instanceof ChessBoard) {
+            ((ChessBoard) board).copyFrom((ChessBoard) game);
+        } else if (board instanceof BitboardChessBoard && game instanceof BitboardChessBoard) {
+            ((BitboardChessBoard) board).copyFrom((BitboardChessBoard) game);
+        } else {
+            board = game.copy();
+            boards[firstPly] = board;
+        }
+        return board;
+    }
+}
@@ -0,0 +1,143 @@
+package de.htw.grischa.chess;
+
+/**
+ * Static exchange evaluation: the material a sequence of captures on one square wins or loses
+ * <p>
+ * Both players capture on the square in turn, always with their least valuable attacker, and either of them may stop
+ * capturing whenever going on would lose material. The exchange is resolved on the fields of an
+ * {@link IMailboxBoard} without executing any turn: captured attackers are only marked as gone, which uncovers the
+ * rooks, bishops and queens standing behind them on the same ray.
+ * </p>
+ * <p>
+ * Pins, checks and promotions of recapturing pawns are ignored, so the result is an estimate. It tells apart
+ * captures winning material from those losing it far cheaper than a search would, and allocates nothing, so it is
+ * safe for the evaluation and any number of search threads.
+ * </p>
+ */
+public final class StaticExchange {
+    // Material of the pieces in centipawns regardless of colour, indexed by the piece constants of ChessBoard
+    private static final int[] VALUES = new int[ChessBoard.WHITE_KING + 1];
+    private static final int NONE = -1;
+
+    static {
+        for (int piece = 0; piece < VALUES.length; piece++) {
+            VALUES[piece] = Math.abs(PieceSquareTable.MATERIAL[piece]);
+        }
+    }
+
+    private StaticExchange() {
+    }
+
+    /**
+     * Returns the material a turn wins once all captures on its target square are resolved
+     *
+     * @param board IMailboxBoard position before the turn
+     * @param move  int packed turn, a capture or any other turn
+     * @return int material won in centipawns from the view of the player making the turn, negative if lost
+     */
+    public static int evaluate(IMailboxBoard board, int move) {
+        byte piece = Move.getPiece(move);
+        byte promotion = Move.getPromotion(move);
+        int gain = VALUES[Move.getCaptured(move)];
+        int attacker = VALUES[piece];
+        if (promotion != ChessBoard.EMPTY_FIELD) {
+            gain += VALUES[promotion] - VALUES[ChessBoard.WHITE_PAWN];
+            attacker = VALUES[promotion];
+        }
+        return gain - recapture(board.getFields(), Move.squareToField(Move.getTo(move)), attacker,
+                piece < ChessBoard.WHITE_PAWN, 1L << Move.getFrom(move));
+    }
+
+    /**
+     * Returns the material the opponent of a piece wins by capturing it, starting with its least valuable attacker
+     *
+     * @param board IMailboxBoard position to look at
+     * @param field int field of the piece, indexed like {@link ChessBoard#fields}
+     * @return int material won in centipawns from the view of the capturing player, 0 if capturing does not pay
+     */
+    public static int evaluateThreat(IMailboxBoard board, int field) {
+        byte[] fields = board.getFields();
+        byte piece = fields[field];
+        boolean white = piece < ChessBoard.WHITE_PAWN;
+        return recapture(fields, field, VALUES[piece], white, 0L);
+    }
+
+    /**
+     * Returns what a player gains by recapturing on a field, going on with the exchange as long as it pays
+     *
+     * @param fields  byte[] fields of the board, not modified
+     * @param to      int field captured on
+     * @param target  int material of the piece standing on the field
+     * @param white   boolean true if white recaptures
+     * @param removed long squares of the pieces gone from their fields so far
+     * @return int material won in centipawns, 0 if the player better stops capturing
+     */
+    private static int recapture(byte[] fields, int to, int target, boolean white, long removed) {
+        int from = leastValuableAttacker(fields, to, white, removed);
+        if (from == NONE) return 0;
+        // Every capture removes one piece, so the recursion ends after at most 32 plies
+        return Math.max(0, target - recapture(fields, to, VALUES[fields[from]], !white,
+                removed | 1L << Move.fieldToSquare(from)));
+    }
+
+    /**
+     * Finds the least valuable piece of a player attacking a field, skipping removed pieces
+     *
+     * @return int field of the attacker, {@link #NONE} if there is none
+     */
+    private static int leastValuableAttacker(byte[] fields, int to, boolean white, long removed) {
+        int offset = white ? ChessBoard.WHITE_PAWN - ChessBoard.BLACK_PAWN : 0;
+        // Pawns attack diagonally forward, so they stand diagonally behind the field
+        int pawnStep = white ? -10 : 10;
+        byte pawn = (byte) (ChessBoard.BLACK_PAWN + offset);
+        if (isPiece(fields, to + pawnStep - 1, pawn, removed)) return to + pawnStep - 1;
+        if (isPiece(fields, to + pawnStep + 1, pawn, removed)) return to + pawnStep + 1;
+
+        byte knight = (byte) (ChessBoard.BLACK_KNIGHT + offset);
+        for (int field : MailboxTables.KNIGHT_TARGETS[to]) {
+            if (isPiece(fields, field, knight, removed)) return field;
+        }
+
+        byte bishop = (byte) (ChessBoard.BLACK_BISHOP + offset);
+        byte rook = (byte) (ChessBoard.BLACK_ROOK + offset);
+        byte queen = (byte) (ChessBoard.BLACK_QUEEN + offset);
+        int diagonalQueen = NONE;
+        for (int[] ray : MailboxTables.BISHOP_RAYS[to]) {
+            int field = firstPiece(fields, ray, removed);
+            if (field == NONE) continue;
+            if (fields[field] == bishop) return field;
+            if (fields[field] == queen) diagonalQueen = field;
+        }
+        int straightQueen = NONE;
+        for (int[] ray : MailboxTables.ROOK_RAYS[to]) {
+            int field = firstPiece(fields, ray, removed);
+            if (field == NONE) continue;
+            if (fields[field] == rook) return field;
+            if (fields[field] == queen) straightQueen = field;
+        }
+        if (diagonalQueen != NONE) return diagonalQueen;
+        if (straightQueen != NONE) return straightQueen;
+
+        byte king = (byte) (ChessBoard.BLACK_KING + offset);
+        for (int field : MailboxTables.KING_TARGETS[to]) {
+            if (isPiece(fields, field, king, removed)) return field;
+        }
+        return NONE;
+    }
+
+    // Field of the first piece on a ray not removed yet, NONE if the ray is empty up to the edge
+    private static int firstPiece(byte[] fields, int[] ray, long removed) {
+        for (int field : ray) {
+            if (fields[field] != ChessBoard.EMPTY_FIELD && !isRemoved(field, removed)) return field;
+        }
+        return NONE;
+    }
+
+    private static boolean isPiece(byte[] fields, int field, byte piece, long removed) {
+        return fields[field] == piece && !isRemoved(field, removed);
+    }
+
+    private static boolean isRemoved(int field, long removed) {
+        return (removed & (1L << Move.fieldToSquare(field))) != 0;
+    }
+}
@@ -0,0 +1,168 @@
+package de.htw.grischa.chess;
+
+import java.util.Arrays;
+
+/**
+ * Hash table remembering the results of positions already searched
+ * <p>
+ * Every entry holds the draft (remaining depth) a position was searched with, its score, whether the score is exact
+ * or only a lower or upper bound, and the best turn found. Entries are packed into a single long:
+ * </p>
+ * <pre>
+ * bits  0-29 best turn, {@link Move#NO_MOVE} if none
+ * bits 30-31 bound, one of {@link #LOWER}, {@link #UPPER}, {@link #EXACT}
+ * bits 32-39 draft
+ * bits 40-47 generation of the search storing the entry
+ * bits 48-63 score, signed
+ * </pre>
+ * <p>
+ * Like {@link PawnHashTable} every slot holds the Zobrist key XOR the entry and the entry itself, so the table can be
+ * shared by all search threads without locking: a slot torn by two threads writing at the same time no longer
+ * matches its key and is treated as a miss.
+ * </p>
+ * <p>
+ * A slot is replaced by an entry of the same position, or if its entry was stored by an older search or with a
+ * draft not deeper than the new one. Every search starts a new generation by {@link #newSearch()}, so entries of
+ * earlier searches give way without clearing the table.
+ * </p>
+ */
+public class TranspositionTable {
+    /**
+     * Returned by {@link #probe(long)} if the position is not known, never a valid entry
+     */
+    public static final long MISSING = 0L;
+    /**
+     * Score is a lower bound, the search failed high
+     */
+    public static final int LOWER = 1;
+    /**
+     * Score is an upper bound, the search failed low
+     */
+    public static final int UPPER = 2;
+    /**
+     * Score is exact
+     */
+    public static final int EXACT = 3;
+    /**
+     * Largest draft an entry can hold
+     */
+    public static final int MAX_DRAFT = 0xff;
+
+    private static final long MOVE_MASK = (1L << 30) - 1;
+    private static final int BOUND_SHIFT = 30;
+    private static final int DRAFT_SHIFT = 32;
+    private static final int GENERATION_SHIFT = 40;
+    private static final int SCORE_SHIFT = 48;
+    private final long[] slots;
+    private final int mask;
+    // Written by newSearch() of any thread sharing the table, read by all of them
+    private volatile int generation = 0;
+
+    /**
+     * Creates a table of the given size
+     *
+     * @param sizeMB int size in megabytes, rounded down to a power of two slots
+     */
+    public TranspositionTable(int sizeMB) {
+        long entries = Math.max(1L, ((long) sizeMB << 20) / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.slots = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Starts a new generation, the entries of previous searches are replaced first from now on
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xff;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key long Zobrist key of the position
+     * @return long packed entry, {@link #MISSING} if not known
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long entry = slots[index + 1];
+        if ((slots[index] ^ entry) == key) return entry;
+        return MISSING;
+    }
+
+    /**
+     * Stores the result of a search, unless the slot holds a deeper entry of another position of the running search
+     *
+     * @param key   long Zobrist key of the position
+     * @param draft int remaining depth the position was searched with, at most {@link #MAX_DRAFT}
+     * @param score int score from the view of the player to move, must fit into 16 bits
+     * @param bound int {@link #LOWER}, {@link #UPPER} or {@link #EXACT}
+     * @param move  int best turn, {@link Move#NO_MOVE} if none
+     */
+    public void store(long key, int draft, int score, int bound, int move) {
+        int index = ((int) key & mask) << 1;
+        int generation = this.generation;
+        long old = slots[index + 1];
+        if ((slots[index] ^ old) == key) {
+            // Keep the best turn of a previous search of the position if this one found none
+            if (move == Move.NO_MOVE) move = getMove(old);
+        } else if (old != MISSING && getGeneration(old) == generation && getDraft(old) > draft) {
+            return;
+        }
+        long entry = (move & MOVE_MASK) | (long) bound << BOUND_SHIFT | (long) draft << DRAFT_SHIFT
+                | (long) generation << GENERATION_SHIFT | (long) score << SCORE_SHIFT;
+        slots[index] = key ^ entry;
+        slots[index + 1] = entry;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(slots, 0L);
+    }
+
+    /**
+     * Returns the best turn of an entry
+     *
+     * @param entry long packed entry
+     * @return int packed turn, {@link Move#NO_MOVE} if none
+     */
+    public static int getMove(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    /**
+     * Returns the bound of an entry
+     *
+     * @param entry long packed entry
+     * @return int {@link #LOWER}, {@link #UPPER} or {@link #EXACT}
+     */
+    public static int getBound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    /**
+     * Returns the draft of an entry
+     *
+     * @param entry long packed entry
+     * @return int remaining depth the position was searched with
+     */
+    public static int getDraft(long entry) {
+        return (int) (entry >>> DRAFT_SHIFT) & 0xff;
+    }
+
+    /**
+     * Returns the score of an entry
+     *
+     * @param entry long packed entry
+     * @return int score from the view of the player to move
+     */
+    public static int getScore(long entry) {
+        return (int) (entry >> SCORE_SHIFT);
+    }
+
+    private static int getGeneration(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & 0xff;
+    }
+}
@@ -0,0 +1,99 @@
+package de.htw.grischa.chess;
+
+/**
+ * Random numbers for the 64 bit Zobrist key of a position
+ * <p>
+ * The key is the XOR of one number per piece on its square, one number per castling right still available, one
+ * number for the file of the en passant square and one number if black is to move. Every board keeps its key up to
+ * date while executing and taking back turns, so a turn only costs a few XORs instead of hashing the whole position.
+ * </p>
+ * <p>
+ * The numbers are generated from a fixed seed, so every node of the grid calculates the same key for a position.
+ * </p>
+ *
+ * @see IChessGame#getZobristKey()
+ */
+public final class Zobrist {
+    /**
+     * Numbers of the pieces, indexed by the piece constants of {@link ChessBoard} and the square 0-63
+     */
+    static final long[][] PIECES = new long[ChessBoard.WHITE_KING + 1][64];
+    /**
+     * Numbers of the castling rights, indexed by the packed rights (white short 1, white long 2, black short 4,
+     * black long 8)
+     */
+    static final long[] ROCHADES = new long[16];
+    /**
+     * Numbers of the file of the en passant square
+     */
+    static final long[] EN_PASSANT_FILES = new long[8];
+    /**
+     * Number of black to move
+     */
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long[] seed = {0x6a09e667f3bcc908L};
+        for (int piece = ChessBoard.BLACK_PAWN; piece <= ChessBoard.WHITE_KING; piece++) {
+            if (piece > ChessBoard.BLACK_KING && piece < ChessBoard.WHITE_PAWN) continue;
+            for (int square = 0; square < 64; square++) {
+                PIECES[piece][square] = nextRandom(seed);
+            }
+        }
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = nextRandom(seed);
+        }
+        for (int i = 0; i < ROCHADES.length; i++) {
+            for (int right = 0; right < rights.length; right++) {
+                if ((i & (1 << right)) != 0) ROCHADES[i] ^= rights[right];
+            }
+        }
+        for (int file = 0; file < EN_PASSANT_FILES.length; file++) {
+            EN_PASSANT_FILES[file] = nextRandom(seed);
+        }
+        BLACK_TO_MOVE = nextRandom(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    private static long nextRandom(long[] seed) {
+        long x = seed[0];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        seed[0] = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Returns the part of the key not depending on the pieces
+     *
+     * @param rochades      int packed castling rights
+     * @param enPassantFile int file 0-7 of the en passant square, -1 if none
+     * @param player        Player to make turn
+     * @return long key of the state
+     */
+    static long state(int rochades, int enPassantFile, Player player) {
+        long key = ROCHADES[rochades];
+        if (enPassantFile >= 0) key ^= EN_PASSANT_FILES[enPassantFile];
+        if (player == Player.BLACK) key ^= BLACK_TO_MOVE;
+        return key;
+    }
+
+    /**
+     * Converts a key to a hash as used by the database, 32 lower case hex digits
+     *
+     * @param key long Zobrist key
+     * @return String hash length {@link de.htw.grischa.chess.database.client.DatabaseEntry#TARGET_HASH_LENGTH}
+     */
+    public static String toDatabaseHash(long key) {
+        String hex = Long.toHexString(key);
+        StringBuilder hash = new StringBuilder(32);
+        for (int i = hex.length(); i < 32; i++) {
+            hash.append('0');
+        }
+        return hash.append(hex).toString();
+    }
+}
@@ -66,7 +66,7 @@ public class DatabaseEntry {
     private static final int DEPTH_MAX = 150;
 
     /**
-     * md5-hash of the board
+     * hash of the board, hex digits of the Zobrist key
      *
      * @see de.htw.grischa.chess.ChessBoard#toDatabase(de.htw.grischa.chess.Player, int)
      */
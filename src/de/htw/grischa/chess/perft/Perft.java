@@ -0,0 +1,166 @@
+package de.htw.grischa.chess.perft;
+
+import de.htw.grischa.chess.ChessBoardFactory;
+import de.htw.grischa.chess.IChessGame;
+import de.htw.grischa.chess.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the leaf nodes of the game tree up to a fixed depth
+ * <p>
+ * The tree is walked depth first on a single board per thread using make and unmake, so memory stays constant
+ * regardless of the depth. The turns of the root position are distributed over a pool of threads, every thread
+ * working on its own copy of the board. Subtrees reached by transposed turns can be looked up in an optional
+ * {@link PerftCache} shared by all threads.
+ * </p>
+ * <p>
+ * Comparing the counts with the known results of {@link PerftPosition} checks the move generator, the time needed
+ * measures its throughput.
+ * </p>
+ */
+public class Perft {
+    private final int threads;
+    private final PerftCache cache;
+
+    /**
+     * Creates a perft using all available processors and no cache
+     */
+    public Perft() {
+        this(Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    /**
+     * Creates a perft
+     *
+     * @param threads     int number of threads counting the root turns, at least 1
+     * @param cacheSizeMB int size of the cache in megabytes, 0 for no cache
+     */
+    public Perft(int threads, int cacheSizeMB) {
+        this.threads = Math.max(1, threads);
+        this.cache = cacheSizeMB > 0 ? new PerftCache(cacheSizeMB) : null;
+    }
+
+    /**
+     * Counts the leaf nodes
+     *
+     * @param game  IChessGame root position, left unchanged
+     * @param depth int number of plies
+     * @return long number of leaf nodes
+     */
+    public long count(IChessGame game, int depth) {
+        if (depth <= 0) return 1;
+        long nodes = 0;
+        for (long count : divide(game, depth).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes below every turn of the root position
+     *
+     * @param game  IChessGame root position, left unchanged
+     * @param depth int number of plies including the root turn, at least 1
+     * @return Map of turn in coordinate notation to number of leaf nodes, sorted by turn
+     */
+    public Map<String, Long> divide(IChessGame game, final int depth) {
+        int[] moves = new int[Move.MAX_MOVES];
+        int moveCount = game.generateMoves(moves);
+        List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            final IChessGame copy = game.copy();
+            final int move = moves[i];
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    copy.makeMove(move);
+                    return count(copy, depth - 1, new int[depth][Move.MAX_MOVES]);
+                }
+            });
+        }
+        Map<String, Long> result = new TreeMap<String, Long>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, moveCount)));
+        try {
+            List<Future<Long>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < moveCount; i++) {
+                result.put(Move.toNotation(moves[i]), futures.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perft interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    private long count(IChessGame game, int depth, int[][] moveLists) {
+        if (depth == 0) return 1;
+        int[] moves = moveLists[depth - 1];
+        int moveCount = game.generateMoves(moves);
+        // Legal turns only, the leaf nodes below depth 1 are the generated turns
+        if (depth == 1) return moveCount;
+        long key = 0;
+        if (cache != null) {
+            key = game.getZobristKey();
+            long nodes = cache.get(key, depth);
+            if (nodes >= 0) return nodes;
+        }
+        long nodes = 0;
+        for (int i = 0; i < moveCount; i++) {
+            game.makeMove(moves[i]);
+            nodes += count(game, depth - 1, moveLists);
+            game.unmakeMove();
+        }
+        if (cache != null) cache.put(key, depth, nodes);
+        return nodes;
+    }
+
+    /**
+     * Checks the standard positions and prints nodes per second
+     * <p>
+     * Arguments: maximum depth (default 4), number of threads (default all processors), cache size in megabytes
+     * (default 0) and board implementation (<code>mailbox</code> or <code>bitboard</code>, default as configured).
+     * Exits with status 1 if any count differs from the known result.
+     * </p>
+     *
+     * @param args String[] optional arguments
+     */
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int cacheSizeMB = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        if (args.length > 3) {
+            ChessBoardFactory.setBoardType(ChessBoardFactory.BoardType.valueOf(args[3].toUpperCase()));
+        }
+        boolean failed = false;
+        for (PerftPosition position : PerftPosition.values()) {
+            System.out.println(position + " " + position.getFen());
+            for (int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); depth++) {
+                // Fresh cache for every run, otherwise the deeper runs only measure lookups
+                Perft perft = new Perft(threads, cacheSizeMB);
+                IChessGame game = position.createBoard();
+                long start = System.nanoTime();
+                long nodes = perft.count(game, depth);
+                long elapsed = Math.max(1, System.nanoTime() - start);
+                boolean correct = nodes == position.getNodes(depth);
+                failed |= !correct;
+                System.out.println("  " + depth + ": " + nodes + (correct ? " ok " : " expected "
+                        + position.getNodes(depth) + " ") + (elapsed / 1000000) + " ms "
+                        + (nodes * 1000000000L / elapsed) + " nodes/s");
+            }
+        }
+        if (failed) System.exit(1);
+    }
+}
@@ -0,0 +1,58 @@
+package de.htw.grischa.chess.perft;
+
+/**
+ * Hash table remembering the node counts of subtrees already counted
+ * <p>
+ * Positions reached by transposed turns are only counted once per depth. Every slot holds the Zobrist key XOR the
+ * packed data and the packed data itself, so the table can be shared by all counting threads without locking: a slot
+ * torn by two threads writing at the same time no longer matches its key and is treated as a miss.
+ * </p>
+ */
+public class PerftCache {
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private final long[] slots;
+    private final int mask;
+
+    /**
+     * Creates a cache of the given size
+     *
+     * @param sizeMB int size in megabytes, rounded down to a power of two slots
+     */
+    public PerftCache(int sizeMB) {
+        long entries = Math.max(1L, ((long) sizeMB << 20) / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.slots = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up the node count of a subtree
+     *
+     * @param key   long Zobrist key of the position
+     * @param depth int remaining depth
+     * @return long node count, -1 if not known
+     */
+    public long get(long key, int depth) {
+        int index = ((int) key & mask) << 1;
+        long data = slots[index + 1];
+        if ((slots[index] ^ data) == key && (data & DEPTH_MASK) == depth) {
+            return data >>> DEPTH_BITS;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the node count of a subtree, replacing the previous entry of the slot
+     *
+     * @param key   long Zobrist key of the position
+     * @param depth int remaining depth
+     * @param nodes long node count
+     */
+    public void put(long key, int depth, long nodes) {
+        int index = ((int) key & mask) << 1;
+        long data = nodes << DEPTH_BITS | depth;
+        slots[index] = key ^ data;
+        slots[index + 1] = data;
+    }
+}
@@ -0,0 +1,117 @@
+package de.htw.grischa.chess.perft;
+
+import de.htw.grischa.chess.ChessBoardFactory;
+import de.htw.grischa.chess.IChessGame;
+
+/**
+ * Standard positions with their known node counts
+ * <p>
+ * The counts are the well known results published for these positions, see
+ * <a href="https://www.chessprogramming.org/Perft_Results">Perft Results</a>. A move generator producing other
+ * counts has a bug.
+ * </p>
+ */
+public enum PerftPosition {
+    START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            48L, 2039L, 97862L, 4085603L, 193690690L),
+    POSITION_3("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+    POSITION_4("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            6L, 264L, 9467L, 422333L, 15833292L),
+    POSITION_5("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            44L, 1486L, 62379L, 2103487L, 89941194L),
+    POSITION_6("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            46L, 2079L, 89890L, 3894594L, 164075551L);
+
+    private final String fen;
+    private final long[] nodes;
+
+    PerftPosition(String fen, long... nodes) {
+        this.fen = fen;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the position in Forsyth-Edwards Notation
+     *
+     * @return String FEN of the position
+     */
+    public String getFen() {
+        return fen;
+    }
+
+    /**
+     * Returns the deepest depth with a known node count
+     *
+     * @return int maximum depth
+     */
+    public int getMaxDepth() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the known node count
+     *
+     * @param depth int depth between 1 and {@link #getMaxDepth()}
+     * @return long node count
+     */
+    public long getNodes(int depth) {
+        return nodes[depth - 1];
+    }
+
+    /**
+     * Sets up the position on a new board of the implementation selected by {@link ChessBoardFactory}
+     *
+     * @return IChessGame board with the position
+     */
+    public IChessGame createBoard() {
+        String[] fields = fen.split(" ");
+        char[] squares = new char[64];
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (Character.isDigit(c)) {
+                for (int i = 0; i < c - '0'; i++) {
+                    squares[rank * 8 + file++] = 'x';
+                }
+            } else {
+                char piece;
+                switch (Character.toLowerCase(c)) {
+                    case 'p':
+                        piece = 'b';
+                        break;
+                    case 'n':
+                        piece = 's';
+                        break;
+                    case 'b':
+                        piece = 'l';
+                        break;
+                    case 'r':
+                        piece = 't';
+                        break;
+                    case 'q':
+                        piece = 'd';
+                        break;
+                    default:
+                        piece = 'k';
+                }
+                // White pieces are lower case, black pieces upper case
+                squares[rank * 8 + file++] = Character.isUpperCase(c) ? piece : Character.toUpperCase(piece);
+            }
+        }
+        IChessGame game = ChessBoardFactory.newChessBoard();
+        game.loadFromString(new String(squares) + (fields[1].equals("w") ? "w" : "S"));
+        String rochades = fields[2];
+        game.setRochade(rochades.contains("K"), rochades.contains("Q"), rochades.contains("k"),
+                rochades.contains("q"));
+        if (!fields[3].equals("-")) {
+            game.setEnPassantSquare((fields[3].charAt(1) - '1') * 8 + fields[3].charAt(0) - 'a');
+        }
+        return game;
+    }
+}
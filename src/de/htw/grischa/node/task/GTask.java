@@ -4,19 +4,20 @@ import org.apache.log4j.Logger;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
-import de.htw.grischa.chess.ChessBoard;
+import de.htw.grischa.chess.ChessBoardFactory;
 import de.htw.grischa.chess.IChessGame;
 import de.htw.grischa.chess.IterativeAlphaBetaSearch;
 import de.htw.grischa.chess.Player;
+import de.htw.grischa.chess.PositionCodec;
 
 public class GTask implements Task {
     private final static Logger LOG = Logger.getLogger(GTask.class);
     private final static String JSON_GAME_KEY = "game";
     private final static String JSON_MAXPLAYER_KEY = "maxplayer";
     
-    private Boolean mIsRunning = true;
+    private volatile boolean mIsRunning = true;
     private IChessGame mChessGame = null;
-    private Integer mJobResult = null;
+    private volatile Integer mJobResult = null;
     private Player mMaxPlayer = null;
 
     public GTask(IChessGame game, Player maxPlayer) {
@@ -28,9 +29,14 @@ public class GTask implements Task {
         JSONTokener t = new JSONTokener(taskString);
         JSONObject o = new JSONObject(t);
         
-        IChessGame tmpgame = new ChessBoard();
+        IChessGame tmpgame = ChessBoardFactory.newChessBoard();
         String chessString = o.getString(JSON_GAME_KEY);
-        tmpgame.loadFromString(chessString);
+        // 65 chars are the string representation sent by older nodes, without castling and en passant
+        if (chessString.length() == 65) {
+            tmpgame.loadFromString(chessString);
+        } else {
+            PositionCodec.fromHex(chessString, tmpgame);
+        }
         this.mChessGame = tmpgame;
         
         String ps = o.getString(JSON_MAXPLAYER_KEY);
@@ -41,7 +47,6 @@ public class GTask implements Task {
         }
     }
 
-    @SuppressWarnings("deprecation")
     @Override
     public void run() {
         LOG.trace("Running GTask, before creating IterativeAlphaBetaTask");
@@ -60,8 +65,15 @@ public class GTask implements Task {
                 mJobResult = ab.getValue();
             }
         }
-        
-        thread.stop();
+
+        // Let the search unwind and take the answer of its last iteration
+        ab.stop();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            LOG.error(e.getMessage());
+        }
+        mJobResult = ab.getValue();
     }
 
     public void stop() {
@@ -83,7 +95,7 @@ public class GTask implements Task {
     @Override
     public String toString() {
         JSONObject json = new JSONObject();
-        json.put(JSON_GAME_KEY, mChessGame.getStringRepresentation());
+        json.put(JSON_GAME_KEY, PositionCodec.toHex(mChessGame));
         json.put(JSON_MAXPLAYER_KEY, mMaxPlayer);
         return json.toString();
     }
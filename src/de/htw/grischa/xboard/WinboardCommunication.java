@@ -274,8 +274,19 @@ public class WinboardCommunication {
                                 q_Castling = true;
                         }
 
+                        /**
+                         * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+                         * Checking for en passant
+                         * e3 = square passed by the last double pawn push, - if none
+                         * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+                         */
+                        int enPassantSquare = -1;
+                        if (fen.length > 4 && fen[4].length() == 2) {
+                            enPassantSquare = (fen[4].charAt(1) - '1') * 8 + (fen[4].charAt(0) - 'a');
+                        }
+
                         if (rows == 7) {
-                            game.init(invert_y_pos, k_Castling, q_Castling, K_Castling, Q_Castling);
+                            game.init(invert_y_pos, k_Castling, q_Castling, K_Castling, Q_Castling, enPassantSquare);
                             isGo = false;
                             LOG.info("The chessboard " + invert_y_pos + " was generated!");
                         }
@@ -0,0 +1,156 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.perft.PerftPosition;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AlphaBetaSearchFixedDepthTest {
+
+    @Test
+    public void testLazyEvaluation() throws Exception {
+        IChessGame game = PerftPosition.KIWIPETE.createBoard();
+        AlphaBetaSearchFixedDepth full = new AlphaBetaSearchFixedDepth();
+        full.setLazyMargin(-1);
+        int value = full.getAlphaBetaTurn(3, game, null);
+        assertEquals(0, full.getLazyEvaluations());
+        assertTrue(full.getFullEvaluations() > 0);
+
+        AlphaBetaSearchFixedDepth lazy = new AlphaBetaSearchFixedDepth();
+        assertEquals(value, lazy.getAlphaBetaTurn(3, game, null), 1);
+        assertEquals(full.getBestMove(), lazy.getBestMove());
+        assertTrue(lazy.getLazyEvaluations() > 0);
+        assertTrue(lazy.getFullEvaluations() < full.getFullEvaluations());
+    }
+
+    @Test
+    public void testTranspositionTable() throws Exception {
+        IChessGame game = PerftPosition.KIWIPETE.createBoard();
+        AlphaBetaSearchFixedDepth plain = new AlphaBetaSearchFixedDepth();
+        int value = plain.getAlphaBetaTurn(4, game, null);
+
+        AlphaBetaSearchFixedDepth hashed = new AlphaBetaSearchFixedDepth();
+        hashed.setTranspositionTable(new TranspositionTable(1));
+        assertEquals(value, hashed.getAlphaBetaTurn(4, game, null));
+        assertEquals(plain.getBestMove(), hashed.getBestMove());
+        long evaluations = hashed.getFullEvaluations() + hashed.getLazyEvaluations();
+        assertTrue(evaluations < plain.getFullEvaluations() + plain.getLazyEvaluations());
+
+        // A second search of the same position is mostly decided by the entries of the first one
+        assertEquals(value, hashed.getAlphaBetaTurn(4, game, null));
+        assertEquals(plain.getBestMove(), hashed.getBestMove());
+        long repeated = hashed.getFullEvaluations() + hashed.getLazyEvaluations();
+        assertTrue(repeated < evaluations / 2);
+    }
+
+    @Test
+    public void testPrincipalVariationSearch() throws Exception {
+        for (PerftPosition position : new PerftPosition[]{PerftPosition.KIWIPETE, PerftPosition.POSITION_4}) {
+            IChessGame game = position.createBoard();
+            AlphaBetaSearchFixedDepth minMax = new AlphaBetaSearchFixedDepth();
+            int value = minMax.getAlphaBetaTurn(4, game, null);
+
+            AlphaBetaSearchFixedDepth pvs = new AlphaBetaSearchFixedDepth();
+            pvs.setPrincipalVariationSearch(true);
+            assertEquals(value, pvs.getAlphaBetaTurn(4, game, null));
+            assertEquals(minMax.getBestMove(), pvs.getBestMove());
+            assertTrue(pvs.getResearches() > 0);
+
+            // A window around the value finds it as well, a window below it fails high
+            assertEquals(value, pvs.getAlphaBetaTurn(4, game, null, value - 10, value + 10));
+            assertTrue(pvs.getAlphaBetaTurn(4, game, null, value - 20, value - 10) >= value - 10);
+        }
+    }
+
+    @Test
+    public void testSelectiveSearch() throws Exception {
+        for (PerftPosition position : new PerftPosition[]{PerftPosition.KIWIPETE, PerftPosition.POSITION_4}) {
+            IChessGame game = position.createBoard();
+            AlphaBetaSearchFixedDepth full = new AlphaBetaSearchFixedDepth();
+            full.setPrincipalVariationSearch(true);
+            full.getAlphaBetaTurn(5, game, null);
+            assertEquals(0, full.getNullMoves());
+            assertEquals(0, full.getReducedMoves());
+
+            AlphaBetaSearchFixedDepth selective = new AlphaBetaSearchFixedDepth();
+            selective.setPrincipalVariationSearch(true);
+            selective.setNullMovePruning(true);
+            selective.setLateMoveReductions(true);
+            selective.getAlphaBetaTurn(5, game, null);
+            assertTrue(selective.getNullMoveCutoffs() > 0);
+            assertTrue(selective.getNullMoves() >= selective.getNullMoveCutoffs());
+            assertTrue(selective.getReducedMoves() >= selective.getReductionResearches());
+            assertTrue(selective.getReducedMoves() > 0);
+            assertTrue(selective.getNodes() < full.getNodes());
+            assertTrue(game.makeTurn(Move.toNotation(selective.getBestMove())) != null);
+
+            AlphaBetaSearchFixedDepth frontier = new AlphaBetaSearchFixedDepth();
+            frontier.setPrincipalVariationSearch(true);
+            frontier.setFrontierPruning(true);
+            frontier.setExchangePruning(true);
+            frontier.getAlphaBetaTurn(5, game, null);
+            assertEquals(0, full.getFutilityPrunes() + full.getReverseFutilityPrunes() + full.getRazorPrunes());
+            assertTrue(frontier.getFutilityPrunes() > 0);
+            assertTrue(frontier.getReverseFutilityPrunes() > 0);
+            assertTrue(frontier.getExchangePrunes() > 0);
+            assertTrue(frontier.getNodes() < full.getNodes());
+            assertTrue(game.makeTurn(Move.toNotation(frontier.getBestMove())) != null);
+        }
+    }
+
+    @Test
+    public void testQuiescence() throws Exception {
+        // No captures after the first turn, the quiescence search stands pat on every leaf
+        IChessGame start = ChessBoard.getStandardChessBoard();
+        AlphaBetaSearchFixedDepth plain = new AlphaBetaSearchFixedDepth();
+        int value = plain.getAlphaBetaTurn(1, start, null);
+        AlphaBetaSearchFixedDepth quiet = new AlphaBetaSearchFixedDepth();
+        quiet.setQuiescenceNodeLimit(64);
+        assertEquals(value, quiet.getAlphaBetaTurn(1, start, null));
+        assertEquals(plain.getBestMove(), quiet.getBestMove());
+        assertTrue(quiet.getQuiescenceNodes() > 0);
+
+        // Both forms of the search rate the horizon alike
+        IChessGame game = PerftPosition.KIWIPETE.createBoard();
+        AlphaBetaSearchFixedDepth minMax = new AlphaBetaSearchFixedDepth();
+        minMax.setQuiescenceNodeLimit(100000);
+        value = minMax.getAlphaBetaTurn(3, game, null);
+        AlphaBetaSearchFixedDepth pvs = new AlphaBetaSearchFixedDepth();
+        pvs.setPrincipalVariationSearch(true);
+        pvs.setQuiescenceNodeLimit(100000);
+        assertEquals(value, pvs.getAlphaBetaTurn(3, game, null));
+        assertEquals(minMax.getBestMove(), pvs.getBestMove());
+        assertTrue(pvs.getQuiescenceNodes() > 0);
+        assertTrue(pvs.getDeltaPrunes() > 0);
+
+        // The budget bounds the nodes of every quiescence search
+        AlphaBetaSearchFixedDepth bounded = new AlphaBetaSearchFixedDepth();
+        bounded.setPrincipalVariationSearch(true);
+        bounded.setQuiescenceNodeLimit(1);
+        bounded.getAlphaBetaTurn(3, game, null);
+        assertTrue(bounded.getQuiescenceNodes() < pvs.getQuiescenceNodes());
+    }
+
+    @Test
+    public void testNodeLimit() throws Exception {
+        IChessGame game = PerftPosition.KIWIPETE.createBoard();
+        AlphaBetaSearchFixedDepth complete = new AlphaBetaSearchFixedDepth();
+        complete.getAlphaBetaTurn(4, game, null);
+        assertFalse(complete.isAborted());
+        long nodes = complete.getNodes();
+
+        // The limit is checked every 1024 nodes, the turns searched completely until then are kept
+        AlphaBetaSearchFixedDepth limited = new AlphaBetaSearchFixedDepth();
+        limited.setNodeLimit(nodes / 2);
+        limited.getAlphaBetaTurn(4, game, null);
+        assertTrue(limited.isAborted());
+        assertTrue(limited.getNodes() < nodes / 2 + 1024);
+        assertFalse(limited.getBestMove() == Move.NO_MOVE);
+
+        AlphaBetaSearchFixedDepth stopped = new AlphaBetaSearchFixedDepth();
+        stopped.stop();
+        stopped.getAlphaBetaTurn(6, game, null);
+        assertTrue(stopped.isAborted());
+        assertTrue(stopped.getNodes() <= 1024);
+    }
+}
@@ -0,0 +1,143 @@
+package de.htw.grischa.chess;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BitboardChessBoardTest {
+
+    private static List<String> successors(IChessGame game) {
+        List<String> result = new ArrayList<String>();
+        for (IChessGame next : game.getNextTurns()) {
+            result.add(next.getTurnNotation() + next.getStringRepresentation());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Test
+    public void testStandardChessBoard() throws Exception {
+        IChessGame board = BitboardChessBoard.getStandardChessBoard();
+        assertEquals(ChessBoard.getStandardChessBoard().getStringRepresentation(), board.getStringRepresentation());
+        assertEquals(Player.WHITE, board.getPlayerToMakeTurn());
+        assertEquals(20, board.getNextTurns().size());
+    }
+
+    @Test
+    public void testLoadFromString() throws Exception {
+        String position = "txxxkxxtbbbllbbbxxsxxdxBxBxxbxxxxxxbsxxxLSxxBSBxBxBBDBLxTxxxKxxTS";
+        BitboardChessBoard board = new BitboardChessBoard();
+        board.loadFromString(position);
+        assertEquals(position, board.getStringRepresentation());
+        assertEquals(Player.BLACK, board.getPlayerToMakeTurn());
+    }
+
+    @Test
+    public void testLoadFromStringStartsOver() throws Exception {
+        BitboardChessBoard board = BitboardChessBoard.getStandardChessBoard();
+        String start = board.getStringRepresentation();
+        int[] moves = new int[Move.MAX_MOVES];
+        board.generateMoves(moves);
+        board.makeMove(moves[0]);
+        board.loadFromString(start);
+        assertEquals(start, board.getStringRepresentation());
+        assertEquals(0, board.getTurnsMade());
+        assertEquals(BitboardChessBoard.getStandardChessBoard().getZobristKey(), board.getZobristKey());
+        try {
+            board.unmakeMove();
+            fail("Turns made before loading must not be taken back");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(start, board.getStringRepresentation());
+        assertEquals(BitboardChessBoard.getStandardChessBoard().getZobristKey(), board.getZobristKey());
+    }
+
+    @Test
+    public void testSameSuccessorsAsChessBoard() throws Exception {
+        IChessGame mailbox = ChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("d7d5");
+        IChessGame bitboard = BitboardChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("d7d5");
+        assertEquals(successors(mailbox), successors(bitboard));
+    }
+
+    @Test
+    public void testSameQualityAsChessBoard() throws Exception {
+        IChessGame mailbox = ChessBoard.getStandardChessBoard().makeTurn("g1f3");
+        IChessGame bitboard = BitboardChessBoard.getStandardChessBoard().makeTurn("g1f3");
+        assertEquals(mailbox.getQuality(Player.WHITE), bitboard.getQuality(Player.WHITE));
+        assertEquals(mailbox.getMD5Hash(), bitboard.getMD5Hash());
+        assertEquals(mailbox.getZobristKey(), bitboard.getZobristKey());
+    }
+
+    @Test
+    public void testMakeUnmakeMove() throws Exception {
+        IChessGame board = BitboardChessBoard.getStandardChessBoard().makeTurn("e2e4");
+        String position = board.getStringRepresentation();
+        String hash = board.getMD5Hash();
+        long key = board.getZobristKey();
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        assertEquals(board.getNextTurns().size(), count);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            assertEquals(Move.toNotation(moves[i]), board.getTurnNotation());
+            assertEquals(Player.WHITE, board.getPlayerToMakeTurn());
+            board.unmakeMove();
+            assertEquals(position, board.getStringRepresentation());
+            assertEquals(hash, board.getMD5Hash());
+            assertEquals(key, board.getZobristKey());
+        }
+    }
+
+    @Test
+    public void testEnPassantSquare() throws Exception {
+        IChessGame board = BitboardChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("a7a6").makeTurn("e4e5")
+                .makeTurn("d7d5");
+        assertEquals(43, board.getEnPassantSquare());
+
+        BitboardChessBoard loaded = new BitboardChessBoard();
+        loaded.loadFromString(board.getStringRepresentation());
+        assertEquals(-1, loaded.getEnPassantSquare());
+        assertFalse(board.getZobristKey() == loaded.getZobristKey());
+        loaded.setEnPassantSquare(43);
+        assertEquals(board.getZobristKey(), loaded.getZobristKey());
+        assertEquals(board.getMD5Hash(), loaded.getMD5Hash());
+
+        IChessGame captured = loaded.makeTurn("e5d6");
+        assertEquals(-1, captured.getEnPassantSquare());
+        assertEquals(board.makeTurn("e5d6").getStringRepresentation(), captured.getStringRepresentation());
+    }
+
+    @Test
+    public void testNullMove() throws Exception {
+        IChessGame board = BitboardChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("a7a6").makeTurn("e4e5")
+                .makeTurn("d7d5");
+        String position = board.getStringRepresentation();
+        long key = board.getZobristKey();
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+
+        // Passing hands the turn to black and drops the en passant square
+        board.makeNullMove();
+        assertEquals(Player.BLACK, board.getPlayerToMakeTurn());
+        assertEquals(-1, board.getEnPassantSquare());
+        BitboardChessBoard loaded = new BitboardChessBoard();
+        loaded.loadFromString(board.getStringRepresentation());
+        assertEquals(loaded.getZobristKey(), board.getZobristKey());
+        assertEquals(position.substring(0, 64), board.getStringRepresentation().substring(0, 64));
+
+        board.unmakeMove();
+        assertEquals(position, board.getStringRepresentation());
+        assertEquals(key, board.getZobristKey());
+        assertEquals(43, board.getEnPassantSquare());
+        assertEquals(count, board.generateMoves(moves));
+    }
+
+    @Test(expected = Exception.class)
+    public void testIllegalTurn() throws Exception {
+        BitboardChessBoard.getStandardChessBoard().makeTurn("e2e5");
+    }
+}
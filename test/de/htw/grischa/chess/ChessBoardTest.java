@@ -0,0 +1,302 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.perft.PerftPosition;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ChessBoardTest {
+
+    @Test
+    public void testGenerateMoves() throws Exception {
+        int[] moves = new int[Move.MAX_MOVES];
+        assertEquals(20, ChessBoard.getStandardChessBoard().generateMoves(moves));
+    }
+
+    @Test
+    public void testMakeUnmakeMove() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard();
+        String position = board.getStringRepresentation();
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            assertEquals(Player.BLACK, board.getPlayerToMakeTurn());
+            assertEquals(1, board.getTurnsMade());
+            board.unmakeMove();
+            assertEquals(position, board.getStringRepresentation());
+            assertEquals(0, board.getTurnsMade());
+        }
+    }
+
+    @Test
+    public void testMakeMoveRochade() throws Exception {
+        ChessBoard board = new ChessBoard();
+        board.loadFromString("txxxkxxtbbbbbbbbxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxBBBBBBBBTxxxKxxTw");
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (Move.getFlag(moves[i]) == Move.CASTLING && Move.toNotation(moves[i]).equals("e1g1")) {
+                board.makeMove(moves[i]);
+                assertEquals("txxxxtkxbbbbbbbbxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxBBBBBBBBTxxxKxxTS",
+                        board.getStringRepresentation());
+                assertFalse(board.canWhiteShortRochade());
+                assertFalse(board.canWhiteLongRochade());
+                board.unmakeMove();
+                assertTrue(board.canWhiteShortRochade());
+                assertEquals("txxxkxxtbbbbbbbbxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxBBBBBBBBTxxxKxxTw",
+                        board.getStringRepresentation());
+                return;
+            }
+        }
+        fail("e1g1 not generated");
+    }
+
+    @Test
+    public void testGetNextTurns() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard().makeTurn("e2e4");
+        assertEquals("e2e4", board.getTurnNotation());
+        assertEquals(1, board.getTurnsMade());
+        assertEquals(Player.BLACK, board.getPlayerToMakeTurn());
+        assertEquals(20, board.getNextTurns().size());
+        for (IChessGame next : board.getNextTurns()) {
+            assertEquals(Player.WHITE, next.getPlayerToMakeTurn());
+            assertEquals(2, next.getTurnsMade());
+        }
+    }
+
+    @Test
+    public void testMakeTurnPromotion() throws Exception {
+        ChessBoard board = new ChessBoard();
+        board.loadFromString("xxxxkxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxbxxxxxxxxxKxxxw");
+        IChessGame next = board.makeTurn("c7c8n");
+        assertEquals("c7c8n", next.getTurnNotation());
+        assertEquals("xxxxkxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxsxKxxxS",
+                next.getStringRepresentation());
+    }
+
+    @Test(expected = Exception.class)
+    public void testMakeTurnPromotionWithoutPiece() throws Exception {
+        ChessBoard board = new ChessBoard();
+        board.loadFromString("xxxxkxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxbxxxxxxxxxKxxxw");
+        board.makeTurn("c7c8");
+    }
+
+    @Test
+    public void testZobristKey() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard();
+        IChessGame first = board.makeTurn("g1f3").makeTurn("g8f6").makeTurn("b1c3");
+        IChessGame second = board.makeTurn("b1c3").makeTurn("g8f6").makeTurn("g1f3");
+        assertEquals(first.getZobristKey(), second.getZobristKey());
+        assertFalse(board.getZobristKey() == board.makeTurn("g1f3").getZobristKey());
+
+        ChessBoard loaded = new ChessBoard();
+        loaded.loadFromString(first.getStringRepresentation());
+        assertEquals(first.getZobristKey(), loaded.getZobristKey());
+        loaded.setRochade(false, true, true, true);
+        assertFalse(first.getZobristKey() == loaded.getZobristKey());
+
+        IChessGame doublePush = board.makeTurn("e2e4");
+        ChessBoard withoutEnPassant = new ChessBoard();
+        withoutEnPassant.loadFromString(doublePush.getStringRepresentation());
+        assertFalse(doublePush.getZobristKey() == withoutEnPassant.getZobristKey());
+    }
+
+    @Test
+    public void testLegalMoves() throws Exception {
+        int[] moves = new int[Move.MAX_MOVES];
+        // The pawn on b5 is pinned by the rook on h5
+        ChessBoard board = new ChessBoard();
+        board.loadFromString("xxxxxxxxxxxxbxbxxxxxxxxxxtxxxBxKkbxxxxxTxxxBxxxxxxBxxxxxxxxxxxxxw");
+        assertEquals(14, board.generateMoves(moves));
+
+        board.loadFromString("txxxkxxtbbbllbbbxxsxxdxBxBxxbxxxxxxbsxxxLSxxBSBxBxBBDBLxTxxxKxxTw");
+        assertEquals(48, board.generateMoves(moves));
+
+        board.loadFromString("xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxkxxxxxxxdxxxxxxxxKS");
+        assertTrue(board.isInCheck());
+        assertEquals(0, board.generateMoves(moves));
+        assertEquals(GameState.MATT, board.getGameState());
+
+        board.loadFromString("xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxkxxxxxxdxxxxxxxxxKS");
+        assertFalse(board.isInCheck());
+        assertEquals(0, board.generateMoves(moves));
+        assertEquals(GameState.DRAW, board.getGameState());
+    }
+
+    @Test
+    public void testEnPassantSquare() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("a7a6").makeTurn("e4e5")
+                .makeTurn("d7d5");
+        assertEquals(43, board.getEnPassantSquare());
+
+        ChessBoard loaded = new ChessBoard();
+        loaded.loadFromString(board.getStringRepresentation());
+        assertEquals(-1, loaded.getEnPassantSquare());
+        assertFalse(board.getZobristKey() == loaded.getZobristKey());
+        loaded.setEnPassantSquare(43);
+        assertEquals(board.getZobristKey(), loaded.getZobristKey());
+        assertEquals(board.getMD5Hash(), loaded.getMD5Hash());
+
+        IChessGame captured = loaded.makeTurn("e5d6");
+        assertEquals(-1, captured.getEnPassantSquare());
+        assertEquals(board.makeTurn("e5d6").getStringRepresentation(), captured.getStringRepresentation());
+    }
+
+    @Test
+    public void testNullMove() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("a7a6").makeTurn("e4e5")
+                .makeTurn("d7d5");
+        String position = board.getStringRepresentation();
+        long key = board.getZobristKey();
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+
+        // Passing hands the turn to black and drops the en passant square
+        board.makeNullMove();
+        assertEquals(Player.BLACK, board.getPlayerToMakeTurn());
+        assertEquals(-1, board.getEnPassantSquare());
+        ChessBoard loaded = new ChessBoard();
+        loaded.loadFromString(board.getStringRepresentation());
+        assertEquals(loaded.getZobristKey(), board.getZobristKey());
+        assertEquals(position.substring(0, 64), board.getStringRepresentation().substring(0, 64));
+
+        board.unmakeMove();
+        assertEquals(position, board.getStringRepresentation());
+        assertEquals(key, board.getZobristKey());
+        assertEquals(43, board.getEnPassantSquare());
+        assertEquals(count, board.generateMoves(moves));
+    }
+
+    @Test
+    public void testLoadFromStringStartsOver() throws Exception {
+        ChessBoard board = ChessBoard.getStandardChessBoard();
+        String start = board.getStringRepresentation();
+        int[] moves = new int[Move.MAX_MOVES];
+        board.generateMoves(moves);
+        board.makeMove(moves[0]);
+        board.generateMoves(moves);
+        board.makeMove(moves[0]);
+        board.loadFromString(start);
+        assertEquals(start, board.getStringRepresentation());
+        assertEquals(0, board.getTurnsMade());
+        assertEquals(ChessBoard.getStandardChessBoard().getZobristKey(), board.getZobristKey());
+        assertEquals(new Quality().evaluate(BitboardChessBoard.getStandardChessBoard(), Player.WHITE),
+                new Quality().evaluate(board, Player.WHITE));
+        try {
+            board.unmakeMove();
+            fail("Turns made before loading must not be taken back");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(start, board.getStringRepresentation());
+        assertEquals(ChessBoard.getStandardChessBoard().getZobristKey(), board.getZobristKey());
+
+        // A fresh board has no turn to take back either
+        try {
+            new ChessBoard().unmakeMove();
+            fail("A fresh board has no turn to take back");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testAttackMap() throws Exception {
+        ChessBoard board = ChessBoard.getStandardChessBoard();
+        AttackMap attacks = board.getAttackMap();
+        assertEquals(2, attacks.getWhiteAttackers(20));
+        assertEquals(3, attacks.getWhiteAttackers(21));
+        assertEquals(3, attacks.getBlackAttackers(45));
+        assertTrue(attacks.isAttackedByWhite(21));
+        assertFalse(attacks.isAttackedByBlack(21));
+        assertFalse(attacks.isAttackedByWhite(28));
+
+        assertSame(attacks, board.getAttackMap());
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (Move.toNotation(moves[i]).equals("e2e4")) board.makeMove(moves[i]);
+        }
+        assertEquals(1, board.getAttackMap().getWhiteAttackers(35));
+        board.unmakeMove();
+        assertEquals(0, board.getAttackMap().getWhiteAttackers(35));
+
+        BitboardChessBoard bitboard = BitboardChessBoard.getStandardChessBoard();
+        for (int square = 0; square < 64; square++) {
+            assertEquals(attacks.getWhiteAttackers(square), bitboard.getAttackMap().getWhiteAttackers(square));
+            assertEquals(attacks.getBlackAttackers(square), bitboard.getAttackMap().getBlackAttackers(square));
+        }
+    }
+
+    private static void assertPieceTotals(IChessGame game, int depth) {
+        ChessBoard fresh = new ChessBoard();
+        fresh.loadFromString(game.getStringRepresentation());
+        IMailboxBoard board = (IMailboxBoard) game;
+        assertEquals(fresh.getPieceSquareTotal(), board.getPieceSquareTotal());
+        assertEquals(fresh.getPawnKey(), board.getPawnKey());
+        for (byte piece = ChessBoard.BLACK_PAWN; piece <= ChessBoard.WHITE_KING; piece++) {
+            assertEquals(fresh.getPieceCount(piece), board.getPieceCount(piece));
+        }
+        if (depth == 0) return;
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = game.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            game.makeMove(moves[i]);
+            assertPieceTotals(game, depth - 1);
+            game.unmakeMove();
+        }
+    }
+
+    @Test
+    public void testPieceSquareTotal() throws Exception {
+        ChessBoard board = ChessBoard.getStandardChessBoard();
+        assertEquals(0, board.getPieceSquareTotal());
+        assertEquals(8, board.getPieceCount(ChessBoard.WHITE_PAWN));
+        assertEquals(2, board.getPieceCount(ChessBoard.BLACK_BISHOP));
+        board = (ChessBoard) board.makeTurn("e2e4");
+        assertEquals(50, board.getPieceSquareTotal());
+
+        PerftPosition[] positions = {PerftPosition.KIWIPETE, PerftPosition.POSITION_4, PerftPosition.POSITION_5};
+        for (PerftPosition position : positions) {
+            IChessGame game = position.createBoard();
+            ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.SIZE);
+            game.writePosition(buffer);
+            buffer.flip();
+            BitboardChessBoard bitboard = new BitboardChessBoard();
+            bitboard.readPosition(buffer);
+            assertPieceTotals(game, 2);
+            assertPieceTotals(bitboard, 2);
+        }
+    }
+
+    @Test
+    public void testMailboxTables() throws Exception {
+        assertEquals(2, MailboxTables.KNIGHT_TARGETS[21].length);
+        assertEquals(8, MailboxTables.KNIGHT_TARGETS[54].length);
+        assertEquals(3, MailboxTables.KING_TARGETS[98].length);
+        assertEquals(0, MailboxTables.KING_TARGETS[20].length);
+        int[][] rays = MailboxTables.ROOK_RAYS[21];
+        assertEquals(0, rays[0].length);
+        assertEquals(7, rays[3].length);
+        assertEquals(31, rays[3][0]);
+        assertEquals(91, rays[3][6]);
+        int queenTargets = 0;
+        for (int[] ray : MailboxTables.QUEEN_RAYS[54]) {
+            queenTargets += ray.length;
+        }
+        assertEquals(27, queenTargets);
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard().makeTurn("d2d4");
+        IChessGame copy = board.copy();
+        int[] moves = new int[Move.MAX_MOVES];
+        copy.generateMoves(moves);
+        copy.makeMove(moves[0]);
+        assertEquals(ChessBoard.getStandardChessBoard().makeTurn("d2d4").getStringRepresentation(),
+                board.getStringRepresentation());
+        assertEquals(Player.WHITE, copy.getPlayerToMakeTurn());
+    }
+}
@@ -0,0 +1,44 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.perft.PerftPosition;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IterativeAlphaBetaSearchTest {
+
+    @Test
+    public void testTimeBudget() throws Exception {
+        IChessGame game = PerftPosition.KIWIPETE.createBoard();
+        IterativeAlphaBetaSearch search = new IterativeAlphaBetaSearch(game, game.getPlayerToMakeTurn(), 300, 0);
+        long start = System.currentTimeMillis();
+        search.run();
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertTrue(search.getCompletedDepth() >= 2);
+        assertNotNull(search.bestTurn);
+
+        // Plain min/max with the full window, as before the principal variation search
+        IterativeAlphaBetaSearch minMax = new IterativeAlphaBetaSearch(game, game.getPlayerToMakeTurn(), 300, 0);
+        minMax.setPrincipalVariationSearch(false);
+        minMax.setAspirationWindow(0);
+        minMax.run();
+        assertTrue(minMax.getCompletedDepth() >= 2);
+        assertNotNull(minMax.bestTurn);
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        IChessGame game = ChessBoard.getStandardChessBoard();
+        IterativeAlphaBetaSearch search = new IterativeAlphaBetaSearch(game);
+        Thread thread = new Thread(search);
+        thread.start();
+        while (search.getCompletedDepth() < 2) {
+            Thread.sleep(10);
+        }
+        search.stop();
+        thread.join(2000);
+        assertFalse(thread.isAlive());
+        assertNotNull(search.bestTurn);
+        assertTrue(search.getCompletedDepth() < IterativeAlphaBetaSearch.MAX_DEPTH);
+    }
+}
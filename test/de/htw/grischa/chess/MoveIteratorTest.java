@@ -0,0 +1,155 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.perft.PerftPosition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MoveIteratorTest {
+
+    private static List<Integer> drain(MoveIterator iterator) {
+        List<Integer> moves = new ArrayList<Integer>();
+        for (int move = iterator.next(); move != Move.NO_MOVE; move = iterator.next()) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private static List<Integer> generated(IChessGame game) {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = game.generateMoves(moves);
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            result.add(moves[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testCapturesFirst() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("d7d5");
+        MoveIterator iterator = new MoveIterator();
+        iterator.reset(board, Move.NO_MOVE);
+        List<Integer> moves = drain(iterator);
+        assertEquals("e4d5", Move.toNotation(moves.get(0)));
+        assertTrue(Move.isCapture(moves.get(0)));
+        for (int i = 1; i < moves.size(); i++) {
+            assertFalse(Move.isCapture(moves.get(i)));
+        }
+
+        List<Integer> expected = generated(board);
+        Collections.sort(expected);
+        Collections.sort(moves);
+        assertEquals(expected, moves);
+    }
+
+    @Test
+    public void testHashMove() throws Exception {
+        IChessGame board = BitboardChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("d7d5");
+        List<Integer> expected = generated(board);
+        int hashMove = expected.get(expected.size() - 1);
+        MoveIterator iterator = new MoveIterator();
+        iterator.reset(board, hashMove);
+        List<Integer> moves = drain(iterator);
+        assertEquals(hashMove, (int) moves.get(0));
+        assertEquals(expected.size(), moves.size());
+    }
+
+    @Test
+    public void testOrdering() throws Exception {
+        IChessGame board = PerftPosition.KIWIPETE.createBoard();
+        MoveIterator iterator = new MoveIterator();
+        iterator.reset(board, Move.NO_MOVE);
+        List<Integer> moves = drain(iterator);
+        int captures = 0;
+        while (Move.isCapture(moves.get(captures)) || Move.isPromotion(moves.get(captures))) {
+            if (captures > 0) {
+                assertTrue(MoveIterator.getCaptureScore(moves.get(captures - 1))
+                        >= MoveIterator.getCaptureScore(moves.get(captures)));
+            }
+            captures++;
+        }
+        // Queen takes knight is tried before pawn takes pawn
+        assertTrue(moves.indexOf(find(moves, "e2a6")) < moves.indexOf(find(moves, "d5e6")));
+
+        // Captures losing material come last
+        int quietEnd = moves.size();
+        while (Move.isCapture(moves.get(quietEnd - 1))) {
+            assertTrue(StaticExchange.evaluate((IMailboxBoard) board, moves.get(quietEnd - 1)) < 0);
+            quietEnd--;
+        }
+        assertTrue(quietEnd < moves.size());
+
+        // Killers follow the captures, the quiet turn with the best history comes next
+        int killer = moves.get(quietEnd - 1);
+        int quiet = moves.get(quietEnd - 2);
+        iterator.addCutoff(killer, 1);
+        iterator.reset(board, Move.NO_MOVE);
+        List<Integer> ordered = drain(iterator);
+        assertEquals(killer, (int) ordered.get(captures));
+        iterator.addCutoff(quiet, 3);
+        iterator.reset(board, Move.NO_MOVE);
+        ordered = drain(iterator);
+        assertEquals(quiet, (int) ordered.get(captures));
+        assertEquals(killer, (int) ordered.get(captures + 1));
+        assertEquals(moves.size(), ordered.size());
+
+        // Killers of another position are skipped unless possible
+        iterator.reset(ChessBoard.getStandardChessBoard(), Move.NO_MOVE);
+        assertEquals(20, drain(iterator).size());
+    }
+
+    @Test
+    public void testLosingCapturesLast() throws Exception {
+        // Knight on f3 takes the pawn on e5 defended by the pawn on d6
+        ChessBoard board = new ChessBoard();
+        board.loadFromString("xxxxxxxkxxxxxxxxxxxxxsxxxxxxxxxxxxxxBxxxxxxBxxxxxxxxxxxxxxxxxxxKw");
+        MoveIterator iterator = new MoveIterator();
+        iterator.reset(board, Move.NO_MOVE);
+        List<Integer> moves = drain(iterator);
+        assertEquals("f3e5", Move.toNotation(moves.get(moves.size() - 1)));
+        assertFalse(Move.isCapture(moves.get(0)));
+        assertEquals(generated(board).size(), moves.size());
+    }
+
+    @Test
+    public void testCapturesOnly() throws Exception {
+        IChessGame board = PerftPosition.KIWIPETE.createBoard();
+        MoveIterator iterator = new MoveIterator();
+        iterator.resetCaptures(board);
+        List<Integer> moves = drain(iterator);
+        assertFalse(moves.isEmpty());
+        for (int move : moves) {
+            assertTrue(Move.isCapture(move) || Move.isPromotion(move));
+            assertTrue(StaticExchange.evaluate((IMailboxBoard) board, move) >= 0);
+        }
+        assertTrue(moves.size() < board.generateCaptures(new int[Move.MAX_MOVES]));
+
+        // A regular reset hands out all turns again
+        iterator.reset(board, Move.NO_MOVE);
+        assertEquals(generated(board).size(), drain(iterator).size());
+    }
+
+    private static int find(List<Integer> moves, String notation) {
+        for (int move : moves) {
+            if (Move.toNotation(move).equals(notation)) return move;
+        }
+        throw new AssertionError(notation);
+    }
+
+    @Test
+    public void testImpossibleHashMove() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard();
+        int hashMove = Move.create(Move.fieldToSquare(35), Move.fieldToSquare(55), ChessBoard.WHITE_PAWN,
+                ChessBoard.EMPTY_FIELD, ChessBoard.EMPTY_FIELD, Move.NORMAL);
+        MoveIterator iterator = new MoveIterator();
+        iterator.reset(board, hashMove);
+        List<Integer> moves = drain(iterator);
+        assertFalse(moves.contains(hashMove));
+        assertEquals(20, moves.size());
+    }
+}
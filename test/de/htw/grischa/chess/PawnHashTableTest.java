@@ -0,0 +1,28 @@
+package de.htw.grischa.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PawnHashTableTest {
+
+    @Test
+    public void testGetPut() throws Exception {
+        PawnHashTable table = new PawnHashTable(1);
+        long pawnKey = ChessBoard.getStandardChessBoard().getPawnKey();
+        assertEquals(PawnHashTable.MISSING, table.get(pawnKey));
+        table.put(pawnKey, -17);
+        assertEquals(-17, table.get(pawnKey));
+        assertEquals(0, table.get(0L));
+    }
+
+    @Test
+    public void testPawnKey() throws Exception {
+        IChessGame board = ChessBoard.getStandardChessBoard();
+        long pawnKey = ((IMailboxBoard) board).getPawnKey();
+        IChessGame knightMoved = board.makeTurn("g1f3").makeTurn("g8f6");
+        assertEquals(pawnKey, ((IMailboxBoard) knightMoved).getPawnKey());
+        assertFalse(pawnKey == ((IMailboxBoard) board.makeTurn("e2e4")).getPawnKey());
+        assertEquals(pawnKey, BitboardChessBoard.getStandardChessBoard().getPawnKey());
+    }
+}
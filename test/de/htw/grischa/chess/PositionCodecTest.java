@@ -0,0 +1,66 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.perft.PerftPosition;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class PositionCodecTest {
+
+    @After
+    public void tearDown() throws Exception {
+        ChessBoardFactory.setBoardType(ChessBoardFactory.BoardType.MAILBOX);
+    }
+
+    private static void assertSamePosition(IChessGame expected, IChessGame actual) {
+        assertEquals(expected.getStringRepresentation(), actual.getStringRepresentation());
+        assertEquals(expected.getZobristKey(), actual.getZobristKey());
+        assertEquals(expected.getEnPassantSquare(), actual.getEnPassantSquare());
+        assertEquals(expected.getTurnsMade(), actual.getTurnsMade());
+        assertEquals(expected.getMD5Hash(), actual.getMD5Hash());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.SIZE);
+        for (ChessBoardFactory.BoardType type : ChessBoardFactory.BoardType.values()) {
+            ChessBoardFactory.setBoardType(type);
+            for (PerftPosition position : PerftPosition.values()) {
+                IChessGame game = position.createBoard();
+                buffer.clear();
+                game.writePosition(buffer);
+                assertEquals(PositionCodec.SIZE, buffer.position());
+
+                buffer.flip();
+                IChessGame mailbox = new ChessBoard();
+                mailbox.readPosition(buffer);
+                assertSamePosition(game, mailbox);
+
+                buffer.rewind();
+                IChessGame bitboard = new BitboardChessBoard();
+                bitboard.readPosition(buffer);
+                assertSamePosition(game, bitboard);
+            }
+        }
+    }
+
+    @Test
+    public void testEnPassantAndTurns() throws Exception {
+        IChessGame game = BitboardChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("a7a6")
+                .makeTurn("e4e5").makeTurn("d7d5");
+        IChessGame decoded = ChessBoard.getStandardChessBoard();
+        PositionCodec.fromHex(PositionCodec.toHex(game), decoded);
+        assertSamePosition(game, decoded);
+        assertEquals(4, decoded.getTurnsMade());
+        assertEquals(game.makeTurn("e5d6").getStringRepresentation(),
+                decoded.makeTurn("e5d6").getStringRepresentation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHex() throws Exception {
+        PositionCodec.fromHex("not a position", new ChessBoard());
+    }
+}
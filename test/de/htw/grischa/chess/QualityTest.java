@@ -0,0 +1,79 @@
+package de.htw.grischa.chess;
+
+import de.htw.grischa.chess.perft.PerftPosition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class QualityTest {
+
+    @Test
+    public void testEvaluate() throws Exception {
+        Quality quality = new Quality();
+        ChessBoard board = ChessBoard.getStandardChessBoard();
+        assertEquals(0, quality.evaluate(board, Player.WHITE));
+
+        IChessGame moved = board.makeTurn("e2e4");
+        int white = quality.evaluate((IMailboxBoard) moved, Player.WHITE);
+        assertTrue(white > 0);
+        assertEquals(-white, quality.evaluate((IMailboxBoard) moved, Player.BLACK));
+
+        BitboardChessBoard bitboard = new BitboardChessBoard();
+        bitboard.loadFromString(moved.getStringRepresentation());
+        assertEquals(white, quality.evaluate(bitboard, Player.WHITE));
+        assertEquals(white, quality.evaluateFixed(bitboard, Player.WHITE)
+                + quality.evaluateDynamic(bitboard, Player.WHITE));
+    }
+
+    @Test
+    public void testSharedByThreads() throws Exception {
+        final Quality quality = new Quality();
+        final IChessGame game = PerftPosition.KIWIPETE.createBoard();
+        int[] moves = new int[Move.MAX_MOVES];
+        final int count = game.generateMoves(moves);
+        final int[] expected = new int[count];
+        final List<IChessGame> boards = new ArrayList<IChessGame>();
+        for (int i = 0; i < count; i++) {
+            IChessGame board = game.copy();
+            board.makeMove(moves[i]);
+            boards.add(board);
+            expected[i] = new Quality().evaluate((IMailboxBoard) board, Player.WHITE);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(pool.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        // Boards cache their attacks, every thread rates its own copies
+                        List<IChessGame> copies = new ArrayList<IChessGame>();
+                        for (IChessGame board : boards) {
+                            copies.add(board.copy());
+                        }
+                        for (int round = 0; round < 100; round++) {
+                            for (int i = 0; i < count; i++) {
+                                if (quality.evaluate((IMailboxBoard) copies.get(i), Player.WHITE) != expected[i]) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.htw.grischa.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchArenaTest {
+
+    @Test
+    public void testBoardIsRecycled() throws Exception {
+        SearchArena arena = SearchArena.get();
+        int firstPly = arena.beginSearch();
+        IChessGame first = ChessBoard.getStandardChessBoard().makeTurn("e2e4");
+        IChessGame second = ChessBoard.getStandardChessBoard().makeTurn("d2d4").makeTurn("d7d5");
+        IChessGame board = arena.getBoard(firstPly, first);
+        assertEquals(first.getStringRepresentation(), board.getStringRepresentation());
+        assertSame(board, arena.getBoard(firstPly, second));
+        assertEquals(second.getStringRepresentation(), board.getStringRepresentation());
+        assertEquals(second.getZobristKey(), board.getZobristKey());
+        assertEquals(Player.WHITE, board.getPlayerToMakeTurn());
+        arena.endSearch(firstPly);
+    }
+
+    @Test
+    public void testNestedSearch() throws Exception {
+        SearchArena arena = SearchArena.get();
+        int outer = arena.beginSearch();
+        MoveIterator iterator = arena.getMoveIterator(outer + 3);
+        int inner = arena.beginSearch();
+        assertTrue(inner > outer + 3);
+        assertNotSame(iterator, arena.getMoveIterator(inner));
+        arena.endSearch(inner);
+        assertSame(iterator, arena.getMoveIterator(outer + 3));
+        arena.endSearch(outer);
+        assertEquals(outer, arena.beginSearch());
+        arena.endSearch(outer);
+    }
+
+    @Test
+    public void testRepeatedSearch() throws Exception {
+        IChessGame game = ChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("e7e5");
+        String before = game.getStringRepresentation();
+        AlphaBetaSearchFixedDepth search = new AlphaBetaSearchFixedDepth();
+        int value = search.getAlphaBetaTurn(3, game);
+        String turn = search.nextGame.getTurnNotation();
+        assertEquals(value, search.getAlphaBetaTurn(3, game));
+        assertEquals(turn, search.nextGame.getTurnNotation());
+        assertEquals(before, game.getStringRepresentation());
+        assertSame(game, search.nextGame.getParent());
+    }
+}
@@ -0,0 +1,70 @@
+package de.htw.grischa.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StaticExchangeTest {
+
+    // Board with white to move holding the given pieces, e.g. "kh1" for the white king on h1, black in upper case
+    private static ChessBoard board(String... pieces) {
+        char[] position = new char[65];
+        for (int i = 0; i < 64; i++) {
+            position[i] = 'x';
+        }
+        for (String piece : pieces) {
+            position[(piece.charAt(2) - '1') * 8 + piece.charAt(1) - 'a'] = piece.charAt(0);
+        }
+        position[64] = 'w';
+        ChessBoard board = new ChessBoard();
+        board.loadFromString(new String(position));
+        return board;
+    }
+
+    private static int move(IChessGame board, String notation) {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (Move.matches(moves[i], notation)) return moves[i];
+        }
+        throw new AssertionError(notation);
+    }
+
+    @Test
+    public void testExchange() throws Exception {
+        // Knight takes a pawn defended by a pawn
+        ChessBoard board = board("kh1", "Kh8", "sf3", "Be5", "Bd6");
+        assertEquals(100 - 300, StaticExchange.evaluate(board, move(board, "f3e5")));
+
+        // Pawn takes pawn, the queen takes back and nothing is left to recapture
+        IChessGame opening = ChessBoard.getStandardChessBoard().makeTurn("e2e4").makeTurn("d7d5");
+        assertEquals(0, StaticExchange.evaluate((IMailboxBoard) opening, move(opening, "e4d5")));
+
+        // An undefended piece is won outright
+        board = board("kh1", "Kh8", "ta1", "Sa8");
+        assertEquals(300, StaticExchange.evaluate(board, move(board, "a1a8")));
+
+        // A quiet turn to an attacked square loses the piece
+        board = board("kh1", "Kh8", "sg1", "Be4");
+        assertEquals(-300, StaticExchange.evaluate(board, move(board, "g1f3")));
+    }
+
+    @Test
+    public void testXRay() throws Exception {
+        // The rook on d1 backs up the rook on d2, so taking the pawn wins it even though the rook on d8 defends it
+        ChessBoard board = board("kh1", "Kh8", "td1", "td2", "Bd5", "Td8");
+        assertEquals(100, StaticExchange.evaluate(board, move(board, "d2d5")));
+
+        board = board("kh1", "Kh8", "td2", "Bd5", "Td8");
+        assertEquals(100 - 550, StaticExchange.evaluate(board, move(board, "d2d5")));
+    }
+
+    @Test
+    public void testThreat() throws Exception {
+        ChessBoard board = board("kh1", "Kh8", "bd4", "Se5", "sf3", "Bf6", "Sb5");
+        // The knight on e5 is lost to the pawn on d4, the pawn on f6 defends it in vain
+        assertEquals(300, StaticExchange.evaluateThreat(board, Move.squareToField(36)));
+        // The pawn on d4 is attacked by the knight on b5 but defended by the knight on f3
+        assertEquals(0, StaticExchange.evaluateThreat(board, Move.squareToField(27)));
+    }
+}
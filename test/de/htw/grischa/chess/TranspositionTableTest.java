@@ -0,0 +1,49 @@
+package de.htw.grischa.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreProbe() throws Exception {
+        TranspositionTable table = new TranspositionTable(1);
+        IChessGame board = ChessBoard.getStandardChessBoard();
+        long key = board.getZobristKey();
+        assertEquals(TranspositionTable.MISSING, table.probe(key));
+
+        int[] moves = new int[Move.MAX_MOVES];
+        board.generateMoves(moves);
+        table.store(key, 4, -29990, TranspositionTable.UPPER, moves[0]);
+        long entry = table.probe(key);
+        assertEquals(moves[0], TranspositionTable.getMove(entry));
+        assertEquals(4, TranspositionTable.getDraft(entry));
+        assertEquals(-29990, TranspositionTable.getScore(entry));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.getBound(entry));
+
+        // Same position without a best turn keeps the previous one
+        table.store(key, 2, 15, TranspositionTable.EXACT, Move.NO_MOVE);
+        entry = table.probe(key);
+        assertEquals(moves[0], TranspositionTable.getMove(entry));
+        assertEquals(15, TranspositionTable.getScore(entry));
+        assertEquals(TranspositionTable.EXACT, TranspositionTable.getBound(entry));
+        assertEquals(TranspositionTable.MISSING, table.probe(key + 1));
+    }
+
+    @Test
+    public void testReplacement() throws Exception {
+        TranspositionTable table = new TranspositionTable(0);
+        table.store(1L, 5, 10, TranspositionTable.EXACT, Move.NO_MOVE);
+        // Shallower entry of another position does not replace a deeper one of the same search
+        table.store(2L, 3, 20, TranspositionTable.EXACT, Move.NO_MOVE);
+        assertEquals(10, TranspositionTable.getScore(table.probe(1L)));
+        assertEquals(TranspositionTable.MISSING, table.probe(2L));
+
+        // but replaces the entries of a previous search
+        table.newSearch();
+        table.store(2L, 3, 20, TranspositionTable.EXACT, Move.NO_MOVE);
+        assertEquals(TranspositionTable.MISSING, table.probe(1L));
+        assertEquals(20, TranspositionTable.getScore(table.probe(2L)));
+    }
+}
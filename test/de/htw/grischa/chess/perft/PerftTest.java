@@ -0,0 +1,59 @@
+package de.htw.grischa.chess.perft;
+
+import de.htw.grischa.chess.ChessBoardFactory;
+import de.htw.grischa.chess.IChessGame;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PerftTest {
+
+    @After
+    public void tearDown() throws Exception {
+        ChessBoardFactory.setBoardType(ChessBoardFactory.BoardType.MAILBOX);
+    }
+
+    private static void checkPositions(int depth) {
+        Perft perft = new Perft(2, 0);
+        for (PerftPosition position : PerftPosition.values()) {
+            assertEquals(position.toString(), position.getNodes(depth), perft.count(position.createBoard(), depth));
+        }
+    }
+
+    @Test
+    public void testMailboxPositions() throws Exception {
+        ChessBoardFactory.setBoardType(ChessBoardFactory.BoardType.MAILBOX);
+        checkPositions(3);
+    }
+
+    @Test
+    public void testBitboardPositions() throws Exception {
+        ChessBoardFactory.setBoardType(ChessBoardFactory.BoardType.BITBOARD);
+        checkPositions(3);
+    }
+
+    @Test
+    public void testDivide() throws Exception {
+        IChessGame game = PerftPosition.KIWIPETE.createBoard();
+        String before = game.getStringRepresentation();
+        Map<String, Long> divide = new Perft(4, 0).divide(game, 2);
+        assertEquals(48, divide.size());
+        assertEquals(Long.valueOf(43), divide.get("e1g1"));
+        long nodes = 0;
+        for (long count : divide.values()) {
+            nodes += count;
+        }
+        assertEquals(PerftPosition.KIWIPETE.getNodes(2), nodes);
+        assertEquals(before, game.getStringRepresentation());
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Perft perft = new Perft(2, 1);
+        assertEquals(PerftPosition.START.getNodes(4), perft.count(PerftPosition.START.createBoard(), 4));
+        assertEquals(PerftPosition.POSITION_4.getNodes(4), perft.count(PerftPosition.POSITION_4.createBoard(), 4));
+    }
+}